@@ -0,0 +1,206 @@
+package com.automationanywhere.botcommand.benchmark;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+//Input files for the benchmarks.
+//The sample set is the files shipped in test_files/SampleFilesSource, the large set is generated once
+//per JVM into a temp folder: a 100k-row CSV, a 200-page PDF, a 100-slide PPTX, a 50-page TIFF and a DOCX of
+//about 15 pages of letter text and tables.
+public class BenchmarkInputs {
+
+    public static final String SAMPLE_DIR = "src/main/resources/test_files/SampleFilesSource/";
+
+    static final int CSV_ROWS = 100_000;
+    static final int PDF_PAGES = 200;
+    static final int PPTX_SLIDES = 100;
+    static final int TIFF_PAGES = 50;
+    static final int DOCX_SECTIONS = 60;
+
+    private static Path largeDir;
+
+    public final String csv;
+    public final String pdf;
+    public final String pptx;
+    public final String tiff;
+    public final String jpg;
+    public final String xlsx;
+    public final String docx;
+
+    private BenchmarkInputs(String csv, String pdf, String pptx, String tiff, String jpg, String xlsx, String docx) {
+        this.csv = csv;
+        this.pdf = pdf;
+        this.pptx = pptx;
+        this.tiff = tiff;
+        this.jpg = jpg;
+        this.xlsx = xlsx;
+        this.docx = docx;
+    }
+
+    public static BenchmarkInputs forSet(String inputSet) throws IOException {
+        if ("large".equals(inputSet)) {
+            Path dir = largeInputs();
+            return new BenchmarkInputs(dir.resolve("Large.csv").toString(), dir.resolve("Large.pdf").toString(),
+                    dir.resolve("Large.pptx").toString(), dir.resolve("Large.tiff").toString(),
+                    SAMPLE_DIR + "SampleJPG.jpg", SAMPLE_DIR + "SampleExcel.xlsx", dir.resolve("Large.docx").toString());
+        }
+        return new BenchmarkInputs(SAMPLE_DIR + "SampleCSV.csv", SAMPLE_DIR + "SamplePDF.pdf",
+                SAMPLE_DIR + "SamplePowerpoint.pptx", SAMPLE_DIR + "SampleMultipageTIFF.tiff",
+                SAMPLE_DIR + "SampleJPG.jpg", SAMPLE_DIR + "SampleExcel.xlsx", SAMPLE_DIR + "SampleWordDoc.docx");
+    }
+
+    private static synchronized Path largeInputs() throws IOException {
+        if (largeDir == null) {
+            Path dir = Files.createTempDirectory("fileconversion-bench-inputs");
+            writeCsv(dir.resolve("Large.csv"));
+            writePdf(dir.resolve("Large.pdf"));
+            writePptx(dir.resolve("Large.pptx"));
+            writeTiff(dir.resolve("Large.tiff"));
+            writeDocx(dir.resolve("Large.docx"));
+            largeDir = dir;
+        }
+        return largeDir;
+    }
+
+    private static void writeCsv(Path file) throws IOException {
+        String[] countries = {"Czech Republic", "Philippines", "Indonesia", "Brazil", "China", "France"};
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,name,email,amount,created,active,country\r\n");
+            for (int i = 1; i <= CSV_ROWS; i++) {
+                writer.write(i + ",\"Customer, " + i + "\",customer" + i + "@example.com," + (i * 17 % 10000) / 100.0
+                        + ",2021-" + String.format("%02d-%02d", i % 12 + 1, i % 28 + 1) + "," + (i % 2 == 0) + "," + countries[i % countries.length] + "\r\n");
+            }
+        }
+    }
+
+    private static void writePdf(Path file) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 0; p < PDF_PAGES; p++) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.setNonStrokingColor(Color.LIGHT_GRAY);
+                    content.addRect(50, 650, 512, 80);
+                    content.fill();
+                    content.setNonStrokingColor(Color.BLACK);
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 11);
+                    content.setLeading(14);
+                    content.newLineAtOffset(60, 620);
+                    for (int line = 0; line < 40; line++) {
+                        content.showText("Page " + (p + 1) + " line " + (line + 1) + " - The quick brown fox jumps over the lazy dog 0123456789");
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+    }
+
+    private static void writePptx(Path file) throws IOException {
+        try (XMLSlideShow ppt = new XMLSlideShow(); OutputStream out = new FileOutputStream(file.toFile())) {
+            for (int s = 0; s < PPTX_SLIDES; s++) {
+                XSLFSlide slide = ppt.createSlide();
+                XSLFTextBox title = slide.createTextBox();
+                title.setAnchor(new Rectangle(50, 40, 620, 60));
+                title.setText("Slide " + (s + 1));
+                XSLFTextBox body = slide.createTextBox();
+                body.setAnchor(new Rectangle(50, 120, 620, 360));
+                for (int line = 0; line < 8; line++) {
+                    body.addNewTextParagraph().addNewTextRun().setText("Bullet " + (line + 1) + " on slide " + (s + 1));
+                }
+            }
+            ppt.write(out);
+        }
+    }
+
+    private static void writeTiff(Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(new File(file.toString()))) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType("LZW");
+            writer.prepareWriteSequence(null);
+            for (int p = 0; p < TIFF_PAGES; p++) {
+                //A letter page scanned at 200 DPI
+                BufferedImage page = new BufferedImage(1700, 2200, BufferedImage.TYPE_BYTE_GRAY);
+                Graphics2D g = page.createGraphics();
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, page.getWidth(), page.getHeight());
+                g.setColor(Color.BLACK);
+                g.setFont(new Font(Font.SERIF, Font.PLAIN, 28));
+                for (int line = 0; line < 60; line++) {
+                    g.drawString("Scanned page " + (p + 1) + " line " + (line + 1) + " lorem ipsum dolor sit amet", 100, 120 + line * 34);
+                }
+                g.dispose();
+                writer.writeToSequence(new IIOImage(page, null, null), param);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static void writeDocx(Path file) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(); OutputStream out = new FileOutputStream(file.toFile())) {
+            for (int s = 0; s < DOCX_SECTIONS; s++) {
+                XWPFRun heading = document.createParagraph().createRun();
+                heading.setBold(true);
+                heading.setFontSize(14);
+                heading.setText("Section " + (s + 1));
+                for (int p = 0; p < 4; p++) {
+                    document.createParagraph().createRun().setText("Paragraph " + (p + 1) + " of section " + (s + 1)
+                            + ". The quick brown fox jumps over the lazy dog, again and again, until the line wraps at least once or twice on the page.");
+                }
+                XWPFTable table = document.createTable(4, 3);
+                for (int r = 0; r < 4; r++) {
+                    for (int c = 0; c < 3; c++) {
+                        table.getRow(r).getCell(c).setText("R" + (r + 1) + "C" + (c + 1));
+                    }
+                }
+            }
+            document.write(out);
+        }
+    }
+
+    //Fresh output folder for a benchmark trial, with a trailing separator as the actions expect
+    public static String outputDir(String name) throws IOException {
+        return Files.createTempDirectory("fileconversion-bench-" + name).toString() + File.separator;
+    }
+
+    public static void deleteDir(String dir) throws IOException {
+        Path root = Paths.get(dir);
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walk(root).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+    }
+}
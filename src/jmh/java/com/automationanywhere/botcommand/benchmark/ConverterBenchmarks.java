@@ -0,0 +1,205 @@
+package com.automationanywhere.botcommand.benchmark;
+
+import com.automationanywhere.botcommand.CSVtoXLSX;
+import com.automationanywhere.botcommand.ConvertChain;
+import com.automationanywhere.botcommand.DOCXtoPDF;
+import com.automationanywhere.botcommand.IMAGEStoPDF;
+import com.automationanywhere.botcommand.IMAGEtoPDF;
+import com.automationanywhere.botcommand.ImagetoImage;
+import com.automationanywhere.botcommand.PDFtoDOCX;
+import com.automationanywhere.botcommand.PDFtoHTML;
+import com.automationanywhere.botcommand.PDFtoImage;
+import com.automationanywhere.botcommand.PDFtoPPTX;
+import com.automationanywhere.botcommand.PPTXtoImage;
+import com.automationanywhere.botcommand.PPTXtoPDF;
+import com.automationanywhere.botcommand.StartConversion;
+import com.automationanywhere.botcommand.WaitForConversions;
+import com.automationanywhere.botcommand.XLSXtoCSV;
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Throughput and latency percentiles of every converter that runs without Microsoft Office.
+//Run with the GC profiler (the gradle jmh task does by default) to get allocation rates as well.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class ConverterBenchmarks {
+
+    //sample = files in test_files/SampleFilesSource, large = generated stress inputs
+    @Param({"sample", "large"})
+    public String inputSet;
+
+    private BenchmarkInputs inputs;
+    private String outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputs = BenchmarkInputs.forSet(inputSet);
+        outputDir = BenchmarkInputs.outputDir(inputSet);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkInputs.deleteDir(outputDir);
+    }
+
+    @Benchmark
+    public Value<List<Value>> pdfToImage() {
+        return new PDFtoImage().action(inputs.pdf, "png", "color", outputDir, null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Value<List<Value>> pdfToImageDraft() {
+        return new PDFtoImage().action(inputs.pdf, "png", "color", outputDir, null, null, "draft", null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Value<List<Value>> pdfToImageParallel() {
+        return new PDFtoImage().action(inputs.pdf, "png", "color", outputDir, (double) Runtime.getRuntime().availableProcessors(), null, null, null, null, null, null, null);
+    }
+
+    //Parsed streams kept in scratch files instead of on the heap
+    @Benchmark
+    public Value<List<Value>> pdfToImageScratchFiles() {
+        return new PDFtoImage().action(inputs.pdf, "png", "color", outputDir, null, null, null, null, null, 0.0, null, null);
+    }
+
+    //Latency should follow the selected pages, not the document length
+    @Benchmark
+    public Value<List<Value>> pdfToImageFirstAndLastPage() {
+        return new PDFtoImage().action(inputs.pdf, "png", "color", outputDir, null, null, null, null, "1,last", null, null, null);
+    }
+
+    @Benchmark
+    public Value<List<Value>> pdfToSingleTiff() {
+        return new PDFtoImage().action(inputs.pdf, "tiff", "blackandwhite", outputDir, null, null, null, true, null, null, null, null);
+    }
+
+    @Benchmark
+    public Value<String> pdfToHtmlStreaming() {
+        return new PDFtoHTML().action(inputs.pdf, outputDir, "stream", false, null, null, null);
+    }
+
+    @Benchmark
+    public Value<String> pdfToPptx() {
+        return new PDFtoPPTX().action(inputs.pdf, outputDir, "png", null, null, null, null, null);
+    }
+
+    //Text reconstruction without Office, pages read on every core
+    @Benchmark
+    public Value<String> pdfToDocxJava() {
+        return new PDFtoDOCX().action(inputs.pdf, outputDir, "java", (double) Runtime.getRuntime().availableProcessors(), null, null, null);
+    }
+
+    @Benchmark
+    public Value<String> csvToXlsx() {
+        return new CSVtoXLSX().action(inputs.csv, outputDir, null, null);
+    }
+
+    //Numbers, dates and booleans as native cells, repeated strings shared
+    @Benchmark
+    public Value<String> csvToXlsxTyped() {
+        return new CSVtoXLSX().action(inputs.csv, outputDir, null, "sample");
+    }
+
+    @Benchmark
+    public Value<String> xlsxToCsv() {
+        return new XLSXtoCSV().action(inputs.xlsx, outputDir, null, false, "native");
+    }
+
+    @Benchmark
+    public Value<String> imageToImageJpgToPng() {
+        return new ImagetoImage().action(inputs.jpg, "png", "color", outputDir, null, null, null);
+    }
+
+    @Benchmark
+    public Value<String> imageToImageTiffGrayscale() {
+        return new ImagetoImage().action(inputs.tiff, "tiff", "grayscale", outputDir, null, null, null);
+    }
+
+    @Benchmark
+    public Value<String> imageToImageAdaptiveBlackAndWhite() {
+        return new ImagetoImage().action(inputs.tiff, "tiff", "blackandwhite", outputDir, "adaptive", null, null);
+    }
+
+    //Previews decoded with source subsampling instead of at full size
+    @Benchmark
+    public Value<String> tiffThumbnails() {
+        return new ImagetoImage().action(inputs.tiff, "png", "color", outputDir, null, 300.0, 300.0);
+    }
+
+    @Benchmark
+    public Value<List<Value>> pptxToImage() {
+        return new PPTXtoImage().action(inputs.pptx, "png", outputDir, null);
+    }
+
+    @Benchmark
+    public Value<List<Value>> pptxToImageDraft() {
+        return new PPTXtoImage().action(inputs.pptx, "png", outputDir, "draft");
+    }
+
+    @Benchmark
+    public Value<String> pptxToPdf() {
+        return new PPTXtoPDF().action(inputs.pptx, outputDir, null);
+    }
+
+    @Benchmark
+    public Value<String> docxToPdfJava() {
+        return new DOCXtoPDF().action(inputs.docx, outputDir, "java");
+    }
+
+    //Compare with pptxToImage followed by imagesToPdf, which write and re-read every slide image
+    @Benchmark
+    public Value<List<Value>> pptxToPdfViaChain() {
+        return new ConvertChain().action(inputs.pptx, "pdf", "color", outputDir, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Value<List<Value>> tiffToPptxViaChain() {
+        return new ConvertChain().action(inputs.tiff, "pptx", "color", outputDir, null, null, null, null, null);
+    }
+
+    //Two conversions overlapped as background jobs, compare with pdfToPptx plus pptxToImage run one after the other
+    @Benchmark
+    public Value<Map<String, Value>> overlappedJobs() {
+        List<Value> jobs = new ArrayList<>();
+        jobs.add(new StartConversion().action("PDFtoPPTX", inputs.pdf, outputDir, null, null, null, null));
+        jobs.add(new StartConversion().action("PPTXtoImage", inputs.pptx, outputDir, "png", null, null, null));
+        return new WaitForConversions().action(jobs, null);
+    }
+
+    @Benchmark
+    public Value<String> imageToPdf() {
+        return new IMAGEtoPDF().action(inputs.tiff, outputDir);
+    }
+
+    @Benchmark
+    public Value<String> imagesToPdf() {
+        List<Value> images = new ArrayList<>();
+        images.add(new StringValue(inputs.jpg));
+        images.add(new StringValue(inputs.tiff));
+        return new IMAGEStoPDF().action(null, null, images, outputDir + "images.pdf");
+    }
+}
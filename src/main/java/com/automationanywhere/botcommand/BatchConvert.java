@@ -0,0 +1,356 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.BatchRunner;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+import static com.automationanywhere.commandsdk.model.DataType.STRING;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "BatchConvert", label = "[[BatchConvert.label]]",
+        node_label = "[[BatchConvert.node_label]]", description = "[[BatchConvert.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[BatchConvert.return_label]]", return_type = DataType.DICTIONARY, return_required = true, return_description = "[[BatchConvert.return_description]]")
+public class BatchConvert {
+    //Default file pattern for each conversion when none is given, also the list of supported conversions
+    static final Map<String, String> DEFAULT_PATTERNS = new HashMap<>();
+    static {
+        DEFAULT_PATTERNS.put("PDFtoImage", "*.{pdf,PDF}");
+        DEFAULT_PATTERNS.put("PDFtoHTML", "*.{pdf,PDF}");
+        DEFAULT_PATTERNS.put("PDFtoDOCX", "*.{pdf,PDF}");
+        DEFAULT_PATTERNS.put("PDFtoPPTX", "*.{pdf,PDF}");
+        DEFAULT_PATTERNS.put("DOCXtoPDF", "*.{docx,DOCX}");
+        DEFAULT_PATTERNS.put("CSVtoXLSX", "*.{csv,CSV}");
+        DEFAULT_PATTERNS.put("XLSXtoCSV", "*.{xlsx,XLSX}");
+        DEFAULT_PATTERNS.put("PPTXtoPDF", "*.{pptx,PPTX}");
+        DEFAULT_PATTERNS.put("PPTXtoImage", "*.{pptx,PPTX}");
+        DEFAULT_PATTERNS.put("IMAGEtoPDF", "*.{jpeg,jpg,gif,png,tiff,JPEG,JPG,GIF,PNG,TIFF}");
+        DEFAULT_PATTERNS.put("ImagetoImage", "*.{jpeg,jpg,gif,png,tiff,JPEG,JPG,GIF,PNG,TIFF}");
+    }
+
+    //Identify the entry point for the action. Returns a Value<Map> because the return type is Dictionary.
+    @Execute
+    public Value<Map<String, Value>> action(
+            //Select Dropdown for Conversion Type
+            @Idx(index = "1", type = SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "PDF to Image", value = "PDFtoImage")),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "PDF to HTML", value = "PDFtoHTML")),
+                    @Idx.Option(index = "1.3", pkg = @Pkg(label = "PDF to DOCX", value = "PDFtoDOCX")),
+                    @Idx.Option(index = "1.4", pkg = @Pkg(label = "PDF to PPTX", value = "PDFtoPPTX")),
+                    @Idx.Option(index = "1.5", pkg = @Pkg(label = "DOCX to PDF", value = "DOCXtoPDF")),
+                    @Idx.Option(index = "1.6", pkg = @Pkg(label = "CSV to XLSX", value = "CSVtoXLSX")),
+                    @Idx.Option(index = "1.7", pkg = @Pkg(label = "XLSX to CSV", value = "XLSXtoCSV")),
+                    @Idx.Option(index = "1.8", pkg = @Pkg(label = "PPTX to PDF", value = "PPTXtoPDF")),
+                    @Idx.Option(index = "1.9", pkg = @Pkg(label = "PPTX to Image", value = "PPTXtoImage")),
+                    @Idx.Option(index = "1.10", pkg = @Pkg(label = "Image to PDF", value = "IMAGEtoPDF")),
+                    @Idx.Option(index = "1.11", pkg = @Pkg(label = "Image to Image", value = "ImagetoImage"))
+            })
+            @NotEmpty
+            @Pkg(label = "[[BatchConvert.conversion.label]]")
+                    String conversion,
+
+            //Folder to pick input files from
+            @Idx(index = "2", type = TEXT)
+            @Pkg(label = "[[BatchConvert.inputFolder.label]]", description = "[[BatchConvert.inputFolder.description]]")
+                    String inputFolder,
+
+            //Optional glob pattern for files in the folder
+            @Idx(index = "3", type = TEXT)
+            @Pkg(label = "[[BatchConvert.filePattern.label]]", description = "[[BatchConvert.filePattern.description]]")
+                    String filePattern,
+
+            //Optional list of files, used instead of the folder
+            @Idx(index = "4", type = LIST)
+            @Pkg(label = "[[BatchConvert.inputFiles.label]]", description = "[[BatchConvert.inputFiles.description]]")
+                    List<Value> inputFiles,
+
+            //Set Optional Export Dir
+            @Idx(index = "5", type = TEXT)
+            @Pkg(label = "[[BatchConvert.outputLocation.label]]", description = "[[BatchConvert.outputLocation.description]]")
+                    String outputPath,
+
+            //Select Dropdown for Image Conversions
+            @Idx(index = "6", type = SELECT, options = {
+                    @Idx.Option(index = "6.1", pkg = @Pkg(label = "JPEG", value = "jpeg")),
+                    @Idx.Option(index = "6.2", pkg = @Pkg(label = "JPG", value = "jpg")),
+                    @Idx.Option(index = "6.3", pkg = @Pkg(label = "GIF", value = "gif")),
+                    @Idx.Option(index = "6.4", pkg = @Pkg(label = "TIFF", value = "tiff")),
+                    @Idx.Option(index = "6.5", pkg = @Pkg(label = "PNG", value = "png")),
+            })
+            @Pkg(label = "[[BatchConvert.outputType.label]]", description = "[[BatchConvert.outputType.description]]", default_value = "png", default_value_type = STRING)
+                    String outputType,
+
+            //Select Dropdown for Image Conversions
+            @Idx(index = "7", type = SELECT, options = {
+                    @Idx.Option(index = "7.1", pkg = @Pkg(label = "Color", value = "color")),
+                    @Idx.Option(index = "7.2", pkg = @Pkg(label = "Grayscale", value = "grayscale")),
+                    @Idx.Option(index = "7.3", pkg = @Pkg(label = "Black and White", value = "blackandwhite"))
+            })
+            @Pkg(label = "[[BatchConvert.colorFormat.label]]", description = "[[BatchConvert.colorFormat.description]]", default_value = "color", default_value_type = STRING)
+                    String colorFormat,
+
+            //Optional number of files converted at the same time
+            @Idx(index = "8", type = NUMBER)
+            @Pkg(label = "[[BatchConvert.threadCount.label]]", description = "[[BatchConvert.threadCount.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double threadCount,
+
+            //Optional quality/speed trade-off for conversions that render pages or slides
+            @Idx(index = "9", type = SELECT, options = {
+                    @Idx.Option(index = "9.1", pkg = @Pkg(label = "Draft", value = "draft")),
+                    @Idx.Option(index = "9.2", pkg = @Pkg(label = "Screen", value = "screen")),
+                    @Idx.Option(index = "9.3", pkg = @Pkg(label = "OCR", value = "ocr")),
+                    @Idx.Option(index = "9.4", pkg = @Pkg(label = "Print", value = "print"))
+            })
+            @Pkg(label = "[[BatchConvert.renderProfile.label]]", description = "[[BatchConvert.renderProfile.description]]", default_value = "print", default_value_type = STRING)
+                    String renderProfile,
+
+            //Optional engine for DOCX to PDF and PDF to DOCX: Office, the Java engine, or Java with Office as fallback
+            @Idx(index = "10", type = SELECT, options = {
+                    @Idx.Option(index = "10.1", pkg = @Pkg(label = "[[BatchConvert.engine.auto.label]]", value = "auto")),
+                    @Idx.Option(index = "10.2", pkg = @Pkg(label = "[[BatchConvert.engine.java.label]]", value = "java")),
+                    @Idx.Option(index = "10.3", pkg = @Pkg(label = "[[BatchConvert.engine.office.label]]", value = "office"))
+            })
+            @Pkg(label = "[[BatchConvert.engine.label]]", description = "[[BatchConvert.engine.description]]", default_value = "auto", default_value_type = STRING)
+                    String engine) {
+
+        if (!DEFAULT_PATTERNS.containsKey(conversion)) {
+            throw new BotCommandException("Please select a supported conversion to continue");
+        }
+
+        String exportPath = (outputPath == null) ? "" : outputPath;
+        Options options = new Options().outputType(outputType).colorFormat(colorFormat).renderProfile(renderProfile).engine(engine);
+        int threads = (threadCount == null) ? Runtime.getRuntime().availableProcessors() : threadCount.intValue();
+
+        //Business logic
+        List<String> inputs;
+        Map<String, String> clashes;
+        BatchRunner.Result<Value> batch;
+        try {
+            inputs = collectInputs(conversion, inputFolder, filePattern, inputFiles);
+            //Inputs that would overwrite the output of an earlier input are not converted
+            clashes = sharedOutputs(inputs, exportPath);
+            List<String> distinct = new ArrayList<>(inputs);
+            distinct.removeAll(clashes.keySet());
+            batch = new BatchRunner<Value>(threads).run(distinct, inputFile -> convert(conversion, inputFile, exportPath, options));
+        } catch (BotCommandException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
+        }
+
+        //Outputs and errors are both keyed by input file
+        Map<String, Value> outputs = new LinkedHashMap<>(batch.getOutputs());
+        Map<String, Value> errors = new LinkedHashMap<>();
+        for (String input : inputs) {
+            String error = clashes.containsKey(input) ? clashes.get(input) : batch.getErrors().get(input);
+            if (error != null) {
+                errors.put(input, new StringValue(error));
+            }
+        }
+        Map<String, Value> result = new LinkedHashMap<>();
+        result.put("outputs", new DictionaryValue(outputs));
+        result.put("errors", new DictionaryValue(errors));
+
+        //Return DictionaryValue.
+        return new DictionaryValue(result);
+    }
+
+    //Outputs are named <output folder><file name without extension>.<type>, so scan.png and scan.jpg, or two
+    //invoice.pdf from different folders written to one output folder, would write the same file at the same time.
+    //Every input after the first with the same target gets an error instead. Names are compared ignoring case
+    //as Windows file names do.
+    static Map<String, String> sharedOutputs(List<String> inputs, String outputPath) {
+        Map<String, String> firstByTarget = new HashMap<>();
+        Map<String, String> clashes = new LinkedHashMap<>();
+        for (String input : inputs) {
+            Path file = Paths.get(input).toAbsolutePath().normalize();
+            Path folder = outputPath.isEmpty() ? file.getParent() : Paths.get(outputPath).toAbsolutePath().normalize();
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            String target = folder.resolve(dot > 0 ? name.substring(0, dot) : name).toString().toLowerCase(Locale.ROOT);
+            String first = firstByTarget.putIfAbsent(target, input);
+            if (first != null) {
+                clashes.put(input, "Not converted, the output would overwrite the output of " + first + ". Rename the file or convert it to another folder.");
+            }
+        }
+        return clashes;
+    }
+
+    //Files from the list when one is given, otherwise the files in the folder that match the pattern
+    static List<String> collectInputs(String conversion, String inputFolder, String filePattern, List<Value> inputFiles) throws IOException {
+        List<String> inputs = new ArrayList<>();
+        if (inputFiles != null && !inputFiles.isEmpty()) {
+            for (Value file : inputFiles) {
+                if (file != null && file.get() != null && !file.get().toString().trim().isEmpty()) {
+                    inputs.add(file.get().toString().trim());
+                }
+            }
+            return inputs;
+        }
+        if (inputFolder == null || inputFolder.trim().isEmpty()) {
+            throw new BotCommandException("Please select an input folder or a list of files for processing.");
+        }
+        String pattern = (filePattern == null || filePattern.trim().isEmpty()) ? DEFAULT_PATTERNS.get(conversion) : filePattern.trim();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(inputFolder.trim()), pattern)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    inputs.add(file.toString());
+                }
+            }
+        }
+        //Directory order is not defined, sort so results come back in a stable order
+        inputs.sort(String::compareTo);
+        return inputs;
+    }
+
+    //Options a batch or background conversion passes on to the single-file actions. Everything else keeps the
+    //action's default, so a conversion only sees the values it is given here by name.
+    static class Options {
+        private String outputType = "png";
+        private String colorFormat = "color";
+        private String renderProfile;
+        private String engine;
+
+        Options outputType(String outputType) {
+            this.outputType = (outputType == null || outputType.isEmpty()) ? "png" : outputType;
+            return this;
+        }
+
+        Options colorFormat(String colorFormat) {
+            this.colorFormat = (colorFormat == null || colorFormat.isEmpty()) ? "color" : colorFormat;
+            return this;
+        }
+
+        Options renderProfile(String renderProfile) {
+            this.renderProfile = renderProfile;
+            return this;
+        }
+
+        Options engine(String engine) {
+            this.engine = engine;
+            return this;
+        }
+    }
+
+    //Runs the single-file action for one input, also used by StartConversion
+    static Value convert(String conversion, String inputFile, String outputPath, Options options) {
+        switch (conversion) {
+            case "PDFtoImage":
+                return pdfToImage(inputFile, outputPath, options);
+            case "PDFtoHTML":
+                return pdfToHtml(inputFile, outputPath);
+            case "PDFtoDOCX":
+                return pdfToDocx(inputFile, outputPath, options);
+            case "PDFtoPPTX":
+                return pdfToPptx(inputFile, outputPath, options);
+            case "DOCXtoPDF":
+                return docxToPdf(inputFile, outputPath, options);
+            case "CSVtoXLSX":
+                return csvToXlsx(inputFile, outputPath);
+            case "XLSXtoCSV":
+                return xlsxToCsv(inputFile, outputPath);
+            case "PPTXtoPDF":
+                return new PPTXtoPDF().action(inputFile, outputPath, options.renderProfile);
+            case "PPTXtoImage":
+                return new PPTXtoImage().action(inputFile, options.outputType, outputPath, options.renderProfile);
+            case "IMAGEtoPDF":
+                return new IMAGEtoPDF().action(inputFile, outputPath);
+            default:
+                return imageToImage(inputFile, outputPath, options);
+        }
+    }
+
+    //One helper per action with more than the common options. The values it leaves at the action's default are
+    //named, so a new parameter only needs a new line here.
+
+    private static Value pdfToImage(String inputFile, String outputPath, Options options) {
+        Double threadCount = null;
+        Double maxMemoryMB = null;
+        Boolean singleTiff = null;
+        String pageRange = null;
+        Double pdfMemoryMB = null;
+        String scratchFolder = null;
+        String binarization = null;
+        return new PDFtoImage().action(inputFile, options.outputType, options.colorFormat, outputPath, threadCount, maxMemoryMB,
+                options.renderProfile, singleTiff, pageRange, pdfMemoryMB, scratchFolder, binarization);
+    }
+
+    private static Value pdfToHtml(String inputFile, String outputPath) {
+        String conversionMethod = "html";
+        Boolean filePerPage = null;
+        String pageRange = null;
+        Double pdfMemoryMB = null;
+        String scratchFolder = null;
+        return new PDFtoHTML().action(inputFile, outputPath, conversionMethod, filePerPage, pageRange, pdfMemoryMB, scratchFolder);
+    }
+
+    private static Value pdfToDocx(String inputFile, String outputPath, Options options) {
+        Double threadCount = null;
+        String pageRange = null;
+        Double pdfMemoryMB = null;
+        String scratchFolder = null;
+        return new PDFtoDOCX().action(inputFile, outputPath, options.engine, threadCount, pageRange, pdfMemoryMB, scratchFolder);
+    }
+
+    private static Value pdfToPptx(String inputFile, String outputPath, Options options) {
+        String imageFormat = null;
+        Double threadCount = null;
+        String pageRange = null;
+        Double pdfMemoryMB = null;
+        String scratchFolder = null;
+        return new PDFtoPPTX().action(inputFile, outputPath, imageFormat, threadCount, options.renderProfile, pageRange, pdfMemoryMB, scratchFolder);
+    }
+
+    private static Value docxToPdf(String inputFile, String outputPath, Options options) {
+        return new DOCXtoPDF().action(inputFile, outputPath, options.engine);
+    }
+
+    private static Value csvToXlsx(String inputFile, String outputPath) {
+        String delimiter = null;
+        String cellTypes = null;
+        return new CSVtoXLSX().action(inputFile, outputPath, delimiter, cellTypes);
+    }
+
+    private static Value xlsxToCsv(String inputFile, String outputPath) {
+        String sheetName = null;
+        Boolean allSheets = false;
+        String conversionMethod = "native";
+        return new XLSXtoCSV().action(inputFile, outputPath, sheetName, allSheets, conversionMethod);
+    }
+
+    private static Value imageToImage(String inputFile, String outputPath, Options options) {
+        String binarization = null;
+        Double maxWidth = null;
+        Double maxHeight = null;
+        return new ImagetoImage().action(inputFile, options.outputType, options.colorFormat, outputPath, binarization, maxWidth, maxHeight);
+    }
+}
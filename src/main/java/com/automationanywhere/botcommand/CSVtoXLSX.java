@@ -3,27 +3,35 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.CsvColumnTypes;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.CsvReader;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
-import com.documents4j.api.DocumentType;
-import com.documents4j.api.IConverter;
-import com.documents4j.job.LocalConverter;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-
-import java.io.BufferedReader;
-import java.io.File;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import static com.automationanywhere.commandsdk.model.AttributeType.FILE;
+import static com.automationanywhere.commandsdk.model.AttributeType.SELECT;
 import static com.automationanywhere.commandsdk.model.AttributeType.TEXT;
 import static com.automationanywhere.commandsdk.model.DataType.STRING;
 
@@ -39,6 +47,9 @@ import static com.automationanywhere.commandsdk.model.DataType.STRING;
         //Return type information. return_type ensures only the right kind of variable is provided on the UI.
         return_label = "[[CSVtoXLSX.return_label]]", return_type = STRING, return_required = true, return_description = "[[CSVtoXLSX.return_description]]")
 public class CSVtoXLSX {
+    //Number of rows kept in memory before they are flushed to disk
+    private static final int ROW_WINDOW = 500;
+
     //Identify the entry point for the action. Returns a Value<String> because the return type is String.
     @Execute
     public Value<String> action(
@@ -55,7 +66,22 @@ public class CSVtoXLSX {
             //Set Optional Export Dir
             @Idx(index = "2", type = TEXT)
             @Pkg(label = "[[CSVtoXLSX.outputLocation.label]]", description = "[[CSVtoXLSX.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Optional field delimiter, comma if empty
+            @Idx(index = "3", type = TEXT)
+            @Pkg(label = "[[CSVtoXLSX.delimiter.label]]", description = "[[CSVtoXLSX.delimiter.description]]", default_value = ",", default_value_type = STRING)
+                    String delimiter,
+
+            //Everything as text, or numbers, dates and booleans as native cells with the column types taken
+            //from the first rows or from a first pass over the whole file
+            @Idx(index = "4", type = SELECT, options = {
+                    @Idx.Option(index = "4.1", pkg = @Pkg(label = "[[CSVtoXLSX.cellTypes.text.label]]", value = "text")),
+                    @Idx.Option(index = "4.2", pkg = @Pkg(label = "[[CSVtoXLSX.cellTypes.sample.label]]", value = "sample")),
+                    @Idx.Option(index = "4.3", pkg = @Pkg(label = "[[CSVtoXLSX.cellTypes.full.label]]", value = "full"))
+            })
+            @Pkg(label = "[[CSVtoXLSX.cellTypes.label]]", description = "[[CSVtoXLSX.cellTypes.description]]", default_value = "sample", default_value_type = STRING)
+                    String cellTypes) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -65,8 +91,16 @@ public class CSVtoXLSX {
             throw new BotCommandException("Please select a supported file to continue");
         }
 
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("CSVtoXLSX", inputFile);
+
         //Business logic
         try{
+            String typing = CsvColumnTypes.mode(cellTypes);
+            char separator = CsvReader.parseDelimiter(delimiter);
+
             //Get file name to add to custom path
             Path path = Paths.get(inputFile);
             Path fileName = path.getFileName();
@@ -92,34 +126,98 @@ public class CSVtoXLSX {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "CSVtoXLSX", inputFile, outputPath, fileNameWithoutExt, String.valueOf(separator), typing);
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
+
             //Set full path with file name
             outputPath = outputPath + fileNameWithoutExt + ".xlsx";
 
             //Convert to XLSX using Apache POI
-            String csvFileAddress = inputFile; //csv file address
-            String xlsxFileAddress = outputPath; //xlsx file address
-            XSSFWorkbook workBook = new XSSFWorkbook();
-            XSSFSheet sheet = workBook.createSheet("Sheet1");
-            String currentLine=null;
-            int RowNum=0;
-            BufferedReader br = new BufferedReader(new FileReader(csvFileAddress));
-            while ((currentLine = br.readLine()) != null) {
-                String str[] = currentLine.split(",");
-                XSSFRow currentRow=sheet.createRow(RowNum);
-                for(int i=0;i<str.length;i++){
-                    currentRow.createCell(i).setCellValue(str[i]);
+            //SXSSF only keeps a window of rows in memory and flushes the rest to a temp file,
+            //so memory stays flat however many rows the CSV has
+            //Typed output keeps its strings in the shared strings table, so a value repeated down a column
+            //is stored once instead of inline in every cell
+            boolean typed = !typing.equals(CsvColumnTypes.TEXT);
+            SXSSFWorkbook workBook = new SXSSFWorkbook(typed ? CsvColumnTypes.sharedStringsWorkbook() : null, ROW_WINDOW, true, typed);
+            //Read as UTF-8 whatever the platform charset is, cp1252 on Windows runners would garble the byte order mark and accents
+            try (CsvReader csvReader = new CsvReader(new InputStreamReader(new FileInputStream(inputFile), StandardCharsets.UTF_8), separator)) {
+                int maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows();
+                int sheetNum = 1;
+                SXSSFSheet sheet = workBook.createSheet("Sheet" + sheetNum);
+                int rowNum = 0;
+                long totalRows = 0;
+                List<String> fields;
+                //Parsing and building the rows, including the flushes of the row window
+                long loadStart = System.nanoTime();
+
+                //Records read ahead to sample the column types, written before the rest of the file
+                List<List<String>> sampled = new ArrayList<>();
+                CsvColumnTypes columns = null;
+                if (typed) {
+                    columns = new CsvColumnTypes();
+                    if (typing.equals(CsvColumnTypes.FULL)) {
+                        try (CsvReader firstPass = new CsvReader(new InputStreamReader(new FileInputStream(inputFile), StandardCharsets.UTF_8), separator)) {
+                            while ((fields = firstPass.readRecord()) != null) {
+                                columns.sample(fields);
+                            }
+                        }
+                    } else {
+                        //The header plus the sample rows
+                        while (sampled.size() <= CsvColumnTypes.SAMPLE_ROWS && (fields = csvReader.readRecord()) != null) {
+                            List<String> copy = new ArrayList<>(fields);
+                            columns.sample(copy);
+                            sampled.add(copy);
+                        }
+                    }
+                    columns.finish(workBook);
+                    metrics.count("typedColumns", columns.getTypedColumnCount());
                 }
-                RowNum++;
-            }
 
-            FileOutputStream fileOutputStream =  new FileOutputStream(xlsxFileAddress);
-            workBook.write(fileOutputStream);
-            fileOutputStream.close();
-            System.out.println("Done");
+                Iterator<List<String>> pending = sampled.iterator();
+                while ((fields = pending.hasNext() ? pending.next() : csvReader.readRecord()) != null) {
+                    //Carry on in a new sheet once a sheet is full
+                    if (rowNum == maxRows) {
+                        sheetNum++;
+                        sheet = workBook.createSheet("Sheet" + sheetNum);
+                        rowNum = 0;
+                    }
+                    SXSSFRow currentRow = sheet.createRow(rowNum);
+                    if (columns != null) {
+                        columns.write(currentRow, fields);
+                    } else {
+                        for (int i = 0; i < fields.size(); i++) {
+                            currentRow.createCell(i).setCellValue(fields.get(i));
+                        }
+                    }
+                    rowNum++;
+                    totalRows++;
+                }
+                metrics.addTime(ConversionMetrics.LOAD, System.nanoTime() - loadStart);
+                metrics.count("rows", totalRows);
+                metrics.count("sheets", sheetNum);
+
+                long writeStart = System.nanoTime();
+                try (OutputStream fileOutputStream = new BufferedOutputStream(new FileOutputStream(outputPath))) {
+                    workBook.write(fileOutputStream);
+                }
+                metrics.addTime(ConversionMetrics.WRITE, System.nanoTime() - writeStart);
+                metrics.output(outputPath);
+                cached.store(outputPath);
+            } finally {
+                //Remove the temp files backing the flushed rows
+                workBook.dispose();
+                workBook.close();
+            }
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return StringValue.
         return new StringValue(outputPath);
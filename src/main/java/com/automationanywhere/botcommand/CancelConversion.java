@@ -0,0 +1,36 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.BooleanValue;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "CancelConversion", label = "[[CancelConversion.label]]",
+        node_label = "[[CancelConversion.node_label]]", description = "[[CancelConversion.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[CancelConversion.return_label]]", return_type = DataType.BOOLEAN, return_required = false)
+public class CancelConversion {
+    //Identify the entry point for the action. Returns true when the job was stopped.
+    @Execute
+    public Value<Boolean> action(
+            //Id returned by StartConversion
+            @Idx(index = "1", type = TEXT)
+            @Pkg(label = "[[CancelConversion.jobId.label]]")
+            @NotEmpty
+                    String jobId) {
+
+        //A queued job never starts, a running one is interrupted. A finished job is left as it is and gives false.
+        return new BooleanValue(GetConversionStatus.job(jobId).cancel());
+    }
+}
@@ -0,0 +1,94 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+import static com.automationanywhere.commandsdk.model.DataType.BOOLEAN;
+import static com.automationanywhere.commandsdk.model.DataType.STRING;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "ConfigureResultCache", label = "[[ConfigureResultCache.label]]",
+        node_label = "[[ConfigureResultCache.node_label]]", description = "[[ConfigureResultCache.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[ConfigureResultCache.return_label]]", return_type = STRING, return_required = false, return_description = "[[ConfigureResultCache.return_description]]")
+public class ConfigureResultCache {
+    //Identify the entry point for the action. Returns a Value<String> because the return type is String.
+    @Execute
+    public Value<String> action(
+            //Turns the cache on or off for every conversion that follows
+            @Idx(index = "1", type = CHECKBOX)
+            @Pkg(label = "[[ConfigureResultCache.enabled.label]]", description = "[[ConfigureResultCache.enabled.description]]", default_value = "true", default_value_type = BOOLEAN)
+                    Boolean enabled,
+
+            //Optional cache folder
+            @Idx(index = "2", type = TEXT)
+            @Pkg(label = "[[ConfigureResultCache.cacheFolder.label]]", description = "[[ConfigureResultCache.cacheFolder.description]]")
+                    String cacheFolder,
+
+            //Optional size limit
+            @Idx(index = "3", type = NUMBER)
+            @Pkg(label = "[[ConfigureResultCache.maxSizeMB.label]]", description = "[[ConfigureResultCache.maxSizeMB.description]]", default_value = "1024", default_value_type = DataType.NUMBER)
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double maxSizeMB,
+
+            //How cached files are handed back
+            @Idx(index = "4", type = SELECT, options = {
+                    @Idx.Option(index = "4.1", pkg = @Pkg(label = "Copy", value = "copy")),
+                    @Idx.Option(index = "4.2", pkg = @Pkg(label = "Hard link", value = "hardlink"))
+            })
+            @Pkg(label = "[[ConfigureResultCache.fileMode.label]]", description = "[[ConfigureResultCache.fileMode.description]]", default_value = "copy", default_value_type = STRING)
+                    String fileMode,
+
+            //Optionally empty the cache
+            @Idx(index = "5", type = CHECKBOX)
+            @Pkg(label = "[[ConfigureResultCache.clear.label]]", description = "[[ConfigureResultCache.clear.description]]", default_value = "false", default_value_type = BOOLEAN)
+                    Boolean clear) {
+
+        //Business logic
+        try{
+            if (!Boolean.FALSE.equals(enabled)) {
+                Path directory = (cacheFolder == null || cacheFolder.trim().isEmpty())
+                        ? Paths.get(System.getProperty("java.io.tmpdir"), "A360-FileConversion", "cache")
+                        : Paths.get(cacheFolder.trim());
+                long maxBytes = (maxSizeMB == null) ? ResultCache.DEFAULT_MAX_BYTES : maxSizeMB.longValue() * 1024 * 1024;
+                Files.createDirectories(directory);
+                ResultCache.setShared(new ResultCache(directory, maxBytes, "hardlink".equals(fileMode)));
+            }
+
+            ResultCache cache = ResultCache.getShared();
+            if (cache != null && Boolean.TRUE.equals(clear)) {
+                cache.clear();
+            }
+            if (Boolean.FALSE.equals(enabled)) {
+                ResultCache.setShared(null);
+                return new StringValue("");
+            }
+            //A smaller limit applies straight away
+            cache.evict();
+
+            //Return StringValue.
+            return new StringValue(cache.getDirectory().toString());
+        } catch (Exception e) {
+            throw new BotCommandException("Error occurred while configuring the result cache. Error code: " + e.toString());
+        }
+    }
+}
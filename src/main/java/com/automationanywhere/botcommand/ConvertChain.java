@@ -0,0 +1,214 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.ListValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ColorConverter;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.ConversionPipeline;
+import com.automationanywhere.botcommand.utils.PageRange;
+import com.automationanywhere.botcommand.utils.PdfMemoryBudget;
+import com.automationanywhere.botcommand.utils.PipelineSinks;
+import com.automationanywhere.botcommand.utils.PipelineSources;
+import com.automationanywhere.botcommand.utils.RenderProfile;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.model.DataType;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.rendering.ImageType;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+import static com.automationanywhere.commandsdk.model.DataType.STRING;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be dispalable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "ConvertChain", label = "[[ConvertChain.label]]",
+        node_label = "[[ConvertChain.node_label]]", description = "[[ConvertChain.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[ConvertChain.return_label]]", return_type = DataType.LIST, return_required = true)
+public class ConvertChain {
+    //Identify the entry point for the action. Returns a list of the files written.
+    @Execute
+    public Value<List<Value>> action(
+            //PDF, PPTX or image to convert
+            @Idx(index = "1", type = FILE)
+            @Pkg(label = "[[ConvertChain.inputFile.label]]", description = "[[ConvertChain.inputFile.description]]")
+            @FileExtension("pdf,pptx,jpeg,jpg,gif,png,tiff,tif")
+            @NotEmpty
+                    String inputFile,
+
+            //Format of the output
+            @Idx(index = "2", type = SELECT, options = {
+                    @Idx.Option(index = "2.1", pkg = @Pkg(label = "PDF", value = "pdf")),
+                    @Idx.Option(index = "2.2", pkg = @Pkg(label = "PPTX", value = "pptx")),
+                    @Idx.Option(index = "2.3", pkg = @Pkg(label = "Multi-page TIFF", value = "tiff")),
+                    @Idx.Option(index = "2.4", pkg = @Pkg(label = "PNG per page", value = "png")),
+                    @Idx.Option(index = "2.5", pkg = @Pkg(label = "JPG per page", value = "jpg"))
+            })
+            @NotEmpty
+            @Pkg(label = "[[ConvertChain.outputFormat.label]]", description = "[[ConvertChain.outputFormat.description]]")
+                    String outputFormat,
+
+            //Colour format of the pages
+            @Idx(index = "3", type = SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "Color", value = "color")),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Grayscale", value = "grayscale")),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "Black and White", value = "blackandwhite"))
+            })
+            @NotEmpty
+            @Pkg(label = "[[ConvertChain.colorFormat.label]]", description = "[[ConvertChain.colorFormat.description]]", default_value = "color", default_value_type = STRING)
+                    String colorFormat,
+
+            //Set Optional Export Dir
+            @Idx(index = "4", type = TEXT)
+            @Pkg(label = "[[ConvertChain.outputLocation.label]]", description = "[[ConvertChain.outputLocation.description]]")
+                    String outputPath,
+
+            //Optional quality/speed trade-off for rendering PDF pages and slides
+            @Idx(index = "5", type = SELECT, options = {
+                    @Idx.Option(index = "5.1", pkg = @Pkg(label = "Draft", value = "draft")),
+                    @Idx.Option(index = "5.2", pkg = @Pkg(label = "Screen", value = "screen")),
+                    @Idx.Option(index = "5.3", pkg = @Pkg(label = "OCR", value = "ocr")),
+                    @Idx.Option(index = "5.4", pkg = @Pkg(label = "Print", value = "print"))
+            })
+            @Pkg(label = "[[ConvertChain.renderProfile.label]]", description = "[[ConvertChain.renderProfile.description]]", default_value = "print", default_value_type = STRING)
+                    String renderProfile,
+
+            //How pages are embedded in a PDF or PPTX
+            @Idx(index = "6", type = SELECT, options = {
+                    @Idx.Option(index = "6.1", pkg = @Pkg(label = "Automatic", value = "auto")),
+                    @Idx.Option(index = "6.2", pkg = @Pkg(label = "JPEG", value = "jpeg")),
+                    @Idx.Option(index = "6.3", pkg = @Pkg(label = "PNG", value = "png"))
+            })
+            @Pkg(label = "[[ConvertChain.pageEncoding.label]]", description = "[[ConvertChain.pageEncoding.description]]", default_value = "auto", default_value_type = STRING)
+                    String pageEncoding,
+
+            //Optional pages to convert, such as 1-3,7,last
+            @Idx(index = "7", type = TEXT)
+            @Pkg(label = "[[ConvertChain.pageRange.label]]", description = "[[ConvertChain.pageRange.description]]")
+                    String pageRange,
+
+            //Optional heap budget for a PDF input, the rest spills to scratch files
+            @Idx(index = "8", type = NUMBER)
+            @Pkg(label = "[[ConvertChain.pdfMemoryMB.label]]", description = "[[ConvertChain.pdfMemoryMB.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+                    Double pdfMemoryMB,
+
+            //Optional folder for the scratch files
+            @Idx(index = "9", type = TEXT)
+            @Pkg(label = "[[ConvertChain.scratchFolder.label]]", description = "[[ConvertChain.scratchFolder.description]]")
+                    String scratchFolder) {
+
+        //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on inputFile.
+        if ("".equals(inputFile.trim()))
+            throw new BotCommandException("Please select a valid file for processing.");
+
+        String extension = inputFile.substring(inputFile.lastIndexOf('.') + 1).toLowerCase();
+        if (!extension.matches("pdf|pptx|jpeg|jpg|gif|png|tiff|tif")) {
+            throw new BotCommandException("Please select a supported file to continue");
+        }
+        if (extension.equals(outputFormat.toLowerCase())) {
+            throw new BotCommandException("The output format is the same as the input format");
+        }
+
+        //Create return value
+        ListValue<?> result = new ListValue();
+        List<Value> resultList = new ArrayList();
+
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("ConvertChain", inputFile);
+
+        //Business logic
+        try{
+            //Get file name to add to custom path
+            Path path = Paths.get(inputFile);
+            Path fileName = path.getFileName();
+            String fileNameWithoutExt = fileName.toString().substring(0, fileName.toString().lastIndexOf('.'));
+
+            //Check if output path is same as input or custom
+            if(outputPath == null || outputPath.equals("")){
+                //Same as input Path - just remove the file name itself
+                outputPath = inputFile.replace(fileName.toString(), "");
+            }else{
+                //Custom Path
+                //Make sure it ends in a slash
+                if (!outputPath.endsWith("\\") && outputPath.contains("\\")){
+                    outputPath = outputPath + "\\";
+                }else if(!outputPath.endsWith("/") && outputPath.contains("/")){
+                    outputPath = outputPath + "/";
+                }
+            }
+
+            //Create file directories if they dont already exist
+            Files.createDirectories(Paths.get(outputPath));
+
+            //Reuse the result of an earlier conversion of the same file with the same options
+            RenderProfile profile = RenderProfile.forName(renderProfile);
+            String encoding = (pageEncoding == null || pageEncoding.trim().isEmpty()) ? PipelineSinks.AUTO : pageEncoding.trim().toLowerCase();
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "ConvertChain", inputFile, outputPath, fileNameWithoutExt, outputFormat.toLowerCase(), colorFormat, profile.getName(), encoding, PageRange.canonical(pageRange));
+            if (cached.isHit()) {
+                for (String output : cached.getOutputs()) {
+                    resultList.add(new StringValue(output));
+                }
+                metrics.finish();
+                result.set(resultList);
+                return result;
+            }
+
+            //PDF pages are rendered straight into the colour format, other inputs are converted after decoding
+            ImageType imageType;
+            if (ColorConverter.GRAYSCALE.equals(colorFormat)) {
+                imageType = ImageType.GRAY;
+            } else if (ColorConverter.BLACK_AND_WHITE.equals(colorFormat)) {
+                imageType = ImageType.BINARY;
+            } else {
+                imageType = ImageType.RGB;
+            }
+            MemoryUsageSetting memoryUsage = PdfMemoryBudget.of(pdfMemoryMB, scratchFolder);
+
+            //Every page goes decode -> colour -> encode -> output in memory, nothing in between is written to disk
+            List<String> outputs;
+            try (ConversionPipeline.Source source = metrics.time(ConversionMetrics.LOAD, () -> PipelineSources.open(new File(inputFile), profile, imageType, memoryUsage))) {
+                List<Integer> pages = PageRange.parse(pageRange, source.getPageCount());
+                ConversionPipeline pipeline = new ConversionPipeline(source, PipelineSinks.create(outputFormat, outputPath + fileNameWithoutExt, encoding));
+                pipeline.then("color", page -> ColorConverter.convert(page, colorFormat));
+                pipeline.setMetrics(metrics);
+                outputs = pipeline.run(pages);
+            }
+            for (String output : outputs) {
+                resultList.add(new StringValue(output));
+            }
+            cached.store(outputs);
+        } catch (Exception e) {
+            metrics.fail(e);
+            throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
+        }
+        metrics.finish();
+
+        //Return ListValue.
+        result.set(resultList);
+        return result;
+    }
+}
@@ -3,13 +3,16 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.DocxPdfRenderer;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.ConverterPool;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
 import com.documents4j.api.DocumentType;
-import com.documents4j.api.IConverter;
-import com.documents4j.job.LocalConverter;
 import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.parser.PdfReaderContentParser;
 import com.itextpdf.text.pdf.parser.SimpleTextExtractionStrategy;
@@ -19,15 +22,13 @@ import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xwpf.usermodel.XWPFRun;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import static com.automationanywhere.commandsdk.model.AttributeType.FILE;
+import static com.automationanywhere.commandsdk.model.AttributeType.SELECT;
 import static com.automationanywhere.commandsdk.model.AttributeType.TEXT;
 import static com.automationanywhere.commandsdk.model.DataType.STRING;
 
@@ -59,7 +60,16 @@ public class DOCXtoPDF {
             //Set Optional Export Dir
             @Idx(index = "2", type = TEXT)
             @Pkg(label = "[[DOCXtoPDF.outputLocation.label]]", description = "[[DOCXtoPDF.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Word through documents4j, the Java layout engine, or the Java engine with Word for what it cannot lay out
+            @Idx(index = "3", type = SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "[[DOCXtoPDF.engine.auto.label]]", value = "auto")),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "[[DOCXtoPDF.engine.java.label]]", value = "java")),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "[[DOCXtoPDF.engine.office.label]]", value = "office"))
+            })
+            @Pkg(label = "[[DOCXtoPDF.engine.label]]", description = "[[DOCXtoPDF.engine.description]]", default_value = "auto", default_value_type = STRING)
+                    String engine) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -69,6 +79,11 @@ public class DOCXtoPDF {
             throw new BotCommandException("Please select a supported file to continue");
         }
 
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("DOCXtoPDF", inputFile);
+
         //Business logic
         try{
             //Get file name to add to custom path
@@ -96,20 +111,46 @@ public class DOCXtoPDF {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            String conversionEngine = DocxPdfRenderer.engine(engine);
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "DOCXtoPDF", inputFile, outputPath, fileNameWithoutExt, conversionEngine);
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
+
             //Set full path with file name
             outputPath = outputPath + fileNameWithoutExt + ".pdf";
 
-            InputStream inputStream = new FileInputStream(inputFile);
-            OutputStream outputStream = new FileOutputStream(outputPath);
-            IConverter converter = LocalConverter.builder().build();
-            converter.convert(inputStream).as(DocumentType.DOCX).to(outputStream).as(DocumentType.PDF).execute();
-            outputStream.close();
-            System.out.println("Success!");
-            converter.shutDown();
+            //Lay the document out in the JVM, no Office process is involved
+            File in = new File(inputFile), target = new File(outputPath);
+            boolean converted = false;
+            if (!conversionEngine.equals(DocxPdfRenderer.OFFICE)) {
+                try {
+                    int pages = metrics.time(ConversionMetrics.CONVERT, () -> DocxPdfRenderer.render(in, target));
+                    metrics.count("pages", pages);
+                    converted = true;
+                } catch (DocxPdfRenderer.UnsupportedContentException e) {
+                    if (conversionEngine.equals(DocxPdfRenderer.JAVA)) {
+                        throw e;
+                    }
+                    //Auto leaves text boxes, charts and the like to Word, any other error fails the conversion
+                    metrics.count("officeFallbacks", 1);
+                }
+            }
+
+            //Convert to PDF on a pooled Word converter
+            if (!converted) {
+                metrics.run(ConversionMetrics.CONVERT, () -> ConverterPool.getShared().convert(in, DocumentType.DOCX, target, DocumentType.PDF));
+            }
+            metrics.output(outputPath);
+            cached.store(outputPath);
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return StringValue.
         return new StringValue(outputPath);
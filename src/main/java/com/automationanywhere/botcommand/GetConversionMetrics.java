@@ -0,0 +1,56 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "GetConversionMetrics", label = "[[GetConversionMetrics.label]]",
+        node_label = "[[GetConversionMetrics.node_label]]", description = "[[GetConversionMetrics.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[GetConversionMetrics.return_label]]", return_type = DataType.DICTIONARY, return_required = true, return_description = "[[GetConversionMetrics.return_description]]")
+public class GetConversionMetrics {
+    //Identify the entry point for the action. Returns a Value<Map> because the return type is Dictionary.
+    @Execute
+    public Value<Map<String, Value>> action(
+            //Optional action name such as PDFtoImage, the latest conversion of any action if empty
+            @Idx(index = "1", type = TEXT)
+            @Pkg(label = "[[GetConversionMetrics.conversion.label]]", description = "[[GetConversionMetrics.conversion.description]]")
+                    String conversion) {
+
+        //Empty dictionary when nothing has been converted yet
+        Map<String, Value> metrics = new LinkedHashMap<>();
+        Map<String, Object> latest = ConversionMetrics.latest(conversion);
+        if (latest != null) {
+            for (Map.Entry<String, Object> entry : latest.entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    metrics.put(entry.getKey(), new NumberValue((Number) entry.getValue()));
+                } else {
+                    metrics.put(entry.getKey(), new StringValue(String.valueOf(entry.getValue())));
+                }
+            }
+        }
+        Path logFile = ConversionMetrics.getLogFile();
+        metrics.put("metricsLog", new StringValue(logFile == null ? "" : logFile.toString()));
+
+        //Return DictionaryValue.
+        return new DictionaryValue(metrics);
+    }
+}
@@ -0,0 +1,69 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionJobs;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "GetConversionStatus", label = "[[GetConversionStatus.label]]",
+        node_label = "[[GetConversionStatus.node_label]]", description = "[[GetConversionStatus.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[GetConversionStatus.return_label]]", return_type = DataType.DICTIONARY, return_required = true, return_description = "[[GetConversionStatus.return_description]]")
+public class GetConversionStatus {
+    //Identify the entry point for the action. Returns a Value<Map> because the return type is Dictionary.
+    @Execute
+    public Value<Map<String, Value>> action(
+            //Id returned by StartConversion
+            @Idx(index = "1", type = TEXT)
+            @Pkg(label = "[[GetConversionStatus.jobId.label]]")
+            @NotEmpty
+                    String jobId) {
+
+        //Does not wait, the job is described as it is right now
+        return describe(job(jobId));
+    }
+
+    //Job for the id, an unknown or expired id is an error
+    static ConversionJobs.Job<?> job(String jobId) {
+        ConversionJobs.Job<?> job = ConversionJobs.getShared().get(jobId);
+        if (job == null) {
+            throw new BotCommandException("Unknown conversion job: " + jobId + ". Finished jobs are kept for an hour.");
+        }
+        return job;
+    }
+
+    //jobId, conversion, status and elapsedSeconds, plus output once succeeded or error once failed
+    static DictionaryValue describe(ConversionJobs.Job<?> job) {
+        Map<String, Value> status = new LinkedHashMap<>();
+        status.put("jobId", new StringValue(job.getId()));
+        status.put("conversion", new StringValue(job.getDescription()));
+        status.put("status", new StringValue(job.getStatus()));
+        long end = job.getFinishedMillis() == 0 ? System.currentTimeMillis() : job.getFinishedMillis();
+        status.put("elapsedSeconds", new NumberValue((end - job.getSubmittedMillis()) / 1000.0));
+        if (job.getResult() instanceof Value) {
+            status.put("output", (Value) job.getResult());
+        }
+        if (job.getError() != null) {
+            status.put("error", new StringValue(job.getError()));
+        }
+        return new DictionaryValue(status);
+    }
+}
@@ -0,0 +1,110 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.ImagePdfBuilder;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+import static com.automationanywhere.commandsdk.model.DataType.STRING;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "IMAGEStoPDF", label = "[[IMAGEStoPDF.label]]",
+        node_label = "[[IMAGEStoPDF.node_label]]", description = "[[IMAGEStoPDF.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[IMAGEStoPDF.return_label]]", return_type = STRING, return_required = true)
+public class IMAGEStoPDF {
+    //Identify the entry point for the action. Returns a Value<String> because the return type is String.
+    @Execute
+    public Value<String> action(
+            //Folder to pick images from
+            @Idx(index = "1", type = TEXT)
+            @Pkg(label = "[[IMAGEStoPDF.inputFolder.label]]", description = "[[IMAGEStoPDF.inputFolder.description]]")
+                    String inputFolder,
+
+            //Optional glob pattern for images in the folder
+            @Idx(index = "2", type = TEXT)
+            @Pkg(label = "[[IMAGEStoPDF.filePattern.label]]", description = "[[IMAGEStoPDF.filePattern.description]]")
+                    String filePattern,
+
+            //Optional list of images, used instead of the folder
+            @Idx(index = "3", type = LIST)
+            @Pkg(label = "[[IMAGEStoPDF.inputFiles.label]]", description = "[[IMAGEStoPDF.inputFiles.description]]")
+                    List<Value> inputFiles,
+
+            //Full path of the PDF to create
+            @Idx(index = "4", type = TEXT)
+            @Pkg(label = "[[IMAGEStoPDF.outputFile.label]]", description = "[[IMAGEStoPDF.outputFile.description]]")
+            @NotEmpty
+                    String outputFile) {
+
+        //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on outputFile.
+        if ("".equals(outputFile.trim()))
+            throw new BotCommandException("Please enter a valid output file.");
+
+        List<String> images;
+        try {
+            //Same selection as a batch conversion of images, list first, otherwise the folder in name order
+            images = BatchConvert.collectInputs("IMAGEtoPDF", inputFolder, filePattern, inputFiles);
+        } catch (BotCommandException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BotCommandException("Error occurred while listing the images. Error code: " + e.toString());
+        }
+        if (images.isEmpty()) {
+            throw new BotCommandException("Please select at least one image for processing.");
+        }
+
+        String outputPath = outputFile.trim();
+        if (!outputPath.toUpperCase().endsWith(".PDF")) {
+            outputPath = outputPath + ".pdf";
+        }
+
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log, recorded against the first image
+        ConversionMetrics metrics = ConversionMetrics.start("IMAGEStoPDF", images.get(0));
+
+        //Business logic
+        try{
+            //Create file directories if they dont already exist
+            Path parent = Paths.get(outputPath).toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            //Images are added in order and written as they are added, one page per image or TIFF frame
+            try (ImagePdfBuilder pdf = new ImagePdfBuilder(outputPath)) {
+                pdf.setMetrics(metrics);
+                for (String image : images) {
+                    pdf.addFile(image);
+                }
+            }
+            metrics.count("images", images.size());
+            metrics.output(outputPath);
+        } catch (Exception e) {
+            metrics.fail(e);
+            throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
+        }
+        metrics.finish();
+
+        //Return StringValue.
+        return new StringValue(outputPath);
+    }
+}
@@ -3,26 +3,15 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.ImagePdfBuilder;
+import com.automationanywhere.botcommand.utils.ResultCache;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
-import com.itextpdf.text.Document;
-import com.itextpdf.text.Image;
-import com.itextpdf.text.PageSize;
-import com.itextpdf.text.Rectangle;
-import com.itextpdf.text.pdf.PdfDocument;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.tools.imageio.ImageIOUtil;
-
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.net.URL;
+
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -68,6 +57,11 @@ public class IMAGEtoPDF {
 //            throw new BotCommandException("Please select a support image file to continue");
 //        }
 
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("IMAGEtoPDF", inputFile);
+
         //Business logic
         try{
             //Get file name to add to custom path
@@ -104,36 +98,29 @@ public class IMAGEtoPDF {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "IMAGEtoPDF", inputFile, outputPath, fileNameWithoutExt, "allFrames");
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
+
             //Set full path with file name
             outputPath = outputPath + fileNameWithoutExt + ".pdf";
 
 
-            //Convert Image to PDF
-            Document document = new Document();
-            FileOutputStream fos = new FileOutputStream(outputPath);
-
-            //Get dimensions of existing image for creating image size in PDF
-            Image image = Image.getInstance(inputFile);
-            float origWidth = image.getWidth();
-            float origHeight = image.getHeight();
-            image.scaleToFit(origWidth,origHeight);
-            image.setAbsolutePosition(0,0);
-
-            //Write PDF
-            //Set size for new page based on original Image
-            Rectangle rectangle = new Rectangle(origWidth,origHeight);
-            PdfWriter writer = PdfWriter.getInstance(document, fos);
-            writer.open();
-            document.open();
-            //Set page size before adding new page
-            document.setPageSize(rectangle);
-            document.newPage();
-            document.add(image);
-            document.close();
-            writer.close();
+            //Convert Image to PDF, every frame of a multi-page TIFF becomes a page
+            try (ImagePdfBuilder pdf = new ImagePdfBuilder(outputPath)) {
+                pdf.setMetrics(metrics);
+                pdf.addFile(inputFile);
+            }
+            metrics.output(outputPath);
+            cached.store(outputPath);
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return StringValue.
         return new StringValue(outputPath);
@@ -3,21 +3,32 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.Binarizer;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.ColorConverter;
+import com.automationanywhere.botcommand.utils.ImageCodecs;
+import com.automationanywhere.botcommand.utils.Thumbnails;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.model.DataType;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
-import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.automationanywhere.commandsdk.model.AttributeType.*;
 import static com.automationanywhere.commandsdk.model.AttributeType.SELECT;
@@ -73,12 +84,52 @@ public class ImagetoImage {
             //Set Optional Export Dir
             @Idx(index = "4", type = TEXT)
             @Pkg(label = "[[ImagetoImage.outputLocation.label]]", description = "[[ImagetoImage.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //How Black and White picks the threshold
+            @Idx(index = "5", type = SELECT, options = {
+                    @Idx.Option(index = "5.1", pkg = @Pkg(label = "Fixed", value = "fixed")),
+                    @Idx.Option(index = "5.2", pkg = @Pkg(label = "Otsu", value = "otsu")),
+                    @Idx.Option(index = "5.3", pkg = @Pkg(label = "Adaptive", value = "adaptive"))
+            })
+            @Pkg(label = "[[ImagetoImage.binarization.label]]", description = "[[ImagetoImage.binarization.description]]", default_value = "otsu", default_value_type = STRING)
+                    String binarization,
+
+            //Optional box for thumbnails and previews, the image is scaled down to fit it
+            @Idx(index = "6", type = NUMBER)
+            @Pkg(label = "[[ImagetoImage.maxWidth.label]]", description = "[[ImagetoImage.maxWidth.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double maxWidth,
+
+            @Idx(index = "7", type = NUMBER)
+            @Pkg(label = "[[ImagetoImage.maxHeight.label]]", description = "[[ImagetoImage.maxHeight.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double maxHeight) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
             throw new BotCommandException("Please select a valid file for processing.");
 
+        //Without a method Black and White keeps the fixed threshold of earlier versions
+        String threshold;
+        try {
+            threshold = Binarizer.method(binarization);
+        } catch (IllegalArgumentException e) {
+            throw new BotCommandException(e.getMessage());
+        }
+
+        //Without a box the image keeps its size
+        int boxWidth = maxWidth == null ? 0 : maxWidth.intValue();
+        int boxHeight = maxHeight == null ? 0 : maxHeight.intValue();
+        boolean thumbnail = boxWidth > 0 || boxHeight > 0;
+
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("ImagetoImage", inputFile);
+
         //Business logic
         try{
             //Get file name to add to custom path
@@ -114,121 +165,85 @@ public class ImagetoImage {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "ImagetoImage", inputFile, outputPath, fileNameWithoutExt, outputType, colorFormat, threshold, thumbnail ? boxWidth + "x" + boxHeight : "");
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
 
-            System.out.println("File Name without Extension " + fileNameWithoutExt);
-
-            //TIFF IMAGES COULD BE MUTLIPAGE
-            if(fileName.toString().toUpperCase().endsWith(".TIFF")){
-                InputStream inputStream = new FileInputStream(new File(inputFile));
-                ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream);
-                Iterator<ImageReader> iterator = ImageIO.getImageReaders(imageInputStream);
-                if (iterator == null || !iterator.hasNext()){
-                    //SINGLE PAGE TIFF
-                    //Set full path with file name
-                    outputPath = outputPath + fileNameWithoutExt + "." + outputType;
-                    //Read input image
-                    BufferedImage inputImage = ImageIO.read(new File(inputFile));
-                    //Create output Image
-                    BufferedImage outputImage;
-                    //Prepare the image before writing with same dimensions
-                    if(colorFormat.equals("color")){
-                        //Set up the Output Image
-                        outputImage = new BufferedImage(inputImage.getWidth(), inputImage.getHeight(), BufferedImage.TYPE_INT_RGB);
-                    }else if(colorFormat.equals("grayscale")){
-                        outputImage = new BufferedImage(inputImage.getWidth(), inputImage.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-                    }else{
-                        outputImage = new BufferedImage(inputImage.getWidth(), inputImage.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
-                    }
-
-                    outputImage.createGraphics().drawImage(inputImage,0,0, Color.WHITE,null);
-                    //Write the export
-                    ImageIO.write(outputImage, outputType,new File(outputPath));
-                } else{
-                    //MULTI-PAGE TIFF
-                    //Process through pages
-                    ImageReader reader = iterator.next();
-                    reader.setInput(imageInputStream);
-                    String firstPath = "";
-                    int numPage = reader.getNumImages(true);
-                    for (int i = 0; i < numPage; i++) {
-                        String finalOutputPath = "";
-                        try {
-                            BufferedImage inputTiff = reader.read(i);
-                            //Create output Image
-                            BufferedImage outputImage;
-                            if(colorFormat.equals("color")){
-                                //Set up the Output Image
-                                outputImage = new BufferedImage(inputTiff.getWidth(), inputTiff.getHeight(), BufferedImage.TYPE_INT_RGB);
-                            }else if(colorFormat.equals("grayscale")){
-                                outputImage = new BufferedImage(inputTiff.getWidth(), inputTiff.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-                            }else{
-                                outputImage = new BufferedImage(inputTiff.getWidth(), inputTiff.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
-                            }
-                            outputImage.createGraphics().drawImage(inputTiff,0,0, Color.WHITE,null);
-                            //Write the export
-                            finalOutputPath = String.format(outputPath + fileNameWithoutExt + "-%05d.%s", i+1,outputType);
-                            ImageIO.write(outputImage, outputType,new File(String.valueOf(finalOutputPath)));
-                            if (i == 0){
-                                firstPath = finalOutputPath;
+            //A single image is written after the input is closed, so it can replace its own input file
+            BufferedImage singleImage = null;
+            //The reader is reused across calls and always released, closing the stream with it
+            try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new File(inputFile))) {
+                ImageReader reader = imageInputStream == null ? null : ImageCodecs.reader(imageInputStream);
+                if (reader == null) {
+                    throw new BotCommandException("Please select a supported image file to continue");
+                }
+                try {
+                    //TIFF IMAGES COULD BE MUTLIPAGE
+                    if (fileName.toString().toUpperCase().endsWith(".TIFF")) {
+                        //Process through pages
+                        String firstPath = "";
+                        List<String> pagePaths = new ArrayList<>();
+                        int numPage = reader.getNumImages(true);
+                        for (int i = 0; i < numPage; i++) {
+                            String finalOutputPath = "";
+                            try {
+                                //Pages already in the target colour format are written without a redraw
+                                int page = i;
+                                BufferedImage inputImage = metrics.time(ConversionMetrics.LOAD, () -> thumbnail ? Thumbnails.read(reader, page, boxWidth, boxHeight) : reader.read(page));
+                                metrics.image(inputImage.getWidth(), inputImage.getHeight());
+                                BufferedImage outputImage = metrics.time("color", () -> ColorConverter.convert(inputImage, colorFormat, threshold));
+                                //Write the export
+                                finalOutputPath = String.format(outputPath + fileNameWithoutExt + "-%05d.%s", i+1,outputType);
+                                File outputFile = new File(finalOutputPath);
+                                //The encoder streams straight into the file, so this covers the write as well
+                                metrics.run(ConversionMetrics.ENCODE, () -> ImageCodecs.write(outputImage, outputType, outputFile));
+                                metrics.count("pages", 1);
+                                metrics.output(finalOutputPath);
+                                pagePaths.add(finalOutputPath);
+                                if (i == 0){
+                                    firstPath = finalOutputPath;
+                                }
+                            } catch (IOException e) {
+                                e.printStackTrace();
                             }
-                        } catch (IOException e) {
-                            e.printStackTrace();
                         }
+                        //for return on MP Tiff
+                        outputPath = firstPath;
+                        //Pages that failed are skipped above, only a complete result is cached
+                        if (pagePaths.size() == numPage) {
+                            cached.store(pagePaths);
+                        }
+                    } else {
+                        //All OTHER IMAGES GO HERE
+                        //Set full path with file name
+                        outputPath = outputPath + fileNameWithoutExt + "." + outputType;
+                        //A thumbnail only decodes the pixels it needs
+                        BufferedImage inputImage = metrics.time(ConversionMetrics.LOAD, () -> thumbnail ? Thumbnails.read(reader, 0, boxWidth, boxHeight) : reader.read(0));
+                        metrics.image(inputImage.getWidth(), inputImage.getHeight());
+                        singleImage = metrics.time("color", () -> ColorConverter.convert(inputImage, colorFormat, threshold));
                     }
-                    //for return on MP Tiff
-                    outputPath = firstPath;
-                }
-
-
-
-            } else{
-                //All OTHER IMAGES GO HERE
-                //Read input image
-                BufferedImage inputImage = ImageIO.read(new File(inputFile));
-                //Create output Image
-                BufferedImage outputImage;
-                //Prepare the image before writing with same dimensions
-                if(colorFormat.equals("color")){
-                    //Set up the Output Image
-                    outputImage = new BufferedImage(inputImage.getWidth(), inputImage.getHeight(), BufferedImage.TYPE_INT_RGB);
-                }else if(colorFormat.equals("grayscale")){
-                    outputImage = new BufferedImage(inputImage.getWidth(), inputImage.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-                }else{
-                    outputImage = new BufferedImage(inputImage.getWidth(), inputImage.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+                } finally {
+                    ImageCodecs.release(reader);
                 }
-
-                outputImage.createGraphics().drawImage(inputImage,0,0, Color.WHITE,null);
+            }
+            if (singleImage != null) {
                 //Write the export
-                ImageIO.write(outputImage, outputType,new File(outputPath));
+                BufferedImage outputImage = singleImage;
+                File outputFile = new File(outputPath);
+                metrics.run(ConversionMetrics.ENCODE, () -> ImageCodecs.write(outputImage, outputType, outputFile));
+                metrics.count("pages", 1);
+                metrics.output(outputPath);
+                cached.store(outputPath);
             }
 
-
-//
-//
-//
-//
-//            //Convert PDF to Image
-//            PDDocument pdf = PDDocument.load(new File(inputFile));
-//            PDFRenderer pdfRenderer = new PDFRenderer(pdf);
-//            for (int page=0; page < pdf.getNumberOfPages(); ++page){
-//                BufferedImage bim;
-//                if(colorFormat.equals("color")){
-//                    bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.RGB);
-//                }else if(colorFormat.equals("grayscale")){
-//                    bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.GRAY);
-//                }else{
-//                    bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.BINARY);
-//                }
-//
-//                ImageIOUtil.writeImage(bim, String.format(outputPath + fileNameWithoutExt + "-%05d.%s", page+1,outputType), 300);
-//                //Save file path of file to string for return to UI
-//                lastFilePath = String.format(outputPath + fileNameWithoutExt + "-%d.%s", page+1,outputType);
-//            }
-//            pdf.close();
-
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return StringValue.
         return new StringValue(outputPath);
@@ -3,13 +3,23 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.DocxPdfRenderer;
+import com.automationanywhere.botcommand.utils.PageRange;
+import com.automationanywhere.botcommand.utils.ParallelPageRenderer;
+import com.automationanywhere.botcommand.utils.PdfDocxReconstructor;
+import com.automationanywhere.botcommand.utils.PdfMemoryBudget;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.ConverterPool;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.model.DataType;
 import com.documents4j.api.DocumentType;
-import com.documents4j.api.IConverter;
-import com.documents4j.job.LocalConverter;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.Image;
 import com.itextpdf.text.Rectangle;
@@ -18,6 +28,8 @@ import com.itextpdf.text.pdf.PdfWriter;
 import com.itextpdf.text.pdf.parser.PdfReaderContentParser;
 import com.itextpdf.text.pdf.parser.SimpleTextExtractionStrategy;
 import com.itextpdf.text.pdf.parser.TextExtractionStrategy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.poi.xwpf.usermodel.BreakType;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
@@ -27,10 +39,9 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.Future;
+import java.util.List;
 
-import static com.automationanywhere.commandsdk.model.AttributeType.FILE;
-import static com.automationanywhere.commandsdk.model.AttributeType.TEXT;
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
 import static com.automationanywhere.commandsdk.model.DataType.STRING;
 
 //BotCommand makes a class eligible for being considered as an action.
@@ -61,7 +72,40 @@ public class PDFtoDOCX {
             //Set Optional Export Dir
             @Idx(index = "2", type = TEXT)
             @Pkg(label = "[[PDFtoDOCX.outputLocation.label]]", description = "[[PDFtoDOCX.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Word through documents4j, the Java text reconstruction, or the Java engine with Word for PDFs it cannot read
+            @Idx(index = "3", type = SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "[[PDFtoDOCX.engine.auto.label]]", value = "auto")),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "[[PDFtoDOCX.engine.java.label]]", value = "java")),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "[[PDFtoDOCX.engine.office.label]]", value = "office"))
+            })
+            @Pkg(label = "[[PDFtoDOCX.engine.label]]", description = "[[PDFtoDOCX.engine.description]]", default_value = "auto", default_value_type = STRING)
+                    String engine,
+
+            //Optional number of pages read at the same time by the Java engine
+            @Idx(index = "4", type = NUMBER)
+            @Pkg(label = "[[PDFtoDOCX.threadCount.label]]", description = "[[PDFtoDOCX.threadCount.description]]", default_value = "1", default_value_type = DataType.NUMBER)
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double threadCount,
+
+            //Optional pages to convert with the Java engine, such as 1-3,7,last
+            @Idx(index = "5", type = TEXT)
+            @Pkg(label = "[[PDFtoDOCX.pageRange.label]]", description = "[[PDFtoDOCX.pageRange.description]]")
+                    String pageRange,
+
+            //Optional heap budget for the parsed PDF, the rest spills to scratch files
+            @Idx(index = "6", type = NUMBER)
+            @Pkg(label = "[[PDFtoDOCX.pdfMemoryMB.label]]", description = "[[PDFtoDOCX.pdfMemoryMB.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+                    Double pdfMemoryMB,
+
+            //Optional folder for the scratch files
+            @Idx(index = "7", type = TEXT)
+            @Pkg(label = "[[PDFtoDOCX.scratchFolder.label]]", description = "[[PDFtoDOCX.scratchFolder.description]]")
+                    String scratchFolder) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -71,6 +115,11 @@ public class PDFtoDOCX {
             throw new BotCommandException("Please select a supported file to continue");
         }
 
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("PDFtoDOCX", inputFile);
+
         //Business logic
         try{
             //Get file name to add to custom path
@@ -98,25 +147,75 @@ public class PDFtoDOCX {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            //Same engine choice as DOCXtoPDF
+            String conversionEngine = DocxPdfRenderer.engine(engine);
+            boolean hasPageRange = pageRange != null && !pageRange.trim().isEmpty();
+            //Office always converts the whole document
+            if (conversionEngine.equals(DocxPdfRenderer.OFFICE) && hasPageRange) {
+                throw new BotCommandException("A page range is only supported by the Java and Auto engines");
+            }
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "PDFtoDOCX", inputFile, outputPath, fileNameWithoutExt, conversionEngine, PageRange.canonical(pageRange));
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
+
             //Set full path with file name
             outputPath = outputPath + fileNameWithoutExt + ".docx";
 
-            //Convert to DOCX
+            //Rebuild the document from the PDF's own text and images, no Office process is involved
             File in = new File(inputFile), target = new File(outputPath);
-            IConverter converter = LocalConverter.make();
-            Future<Boolean> conversion = converter
-                    .convert(in).as(DocumentType.PDF)
-                    .to(target).as(DocumentType.DOCX)
-                    .schedule();
-            System.out.println("Converted: " + outputPath);
-            converter.shutDown();
+            boolean converted = false;
+            if (!conversionEngine.equals(DocxPdfRenderer.OFFICE)) {
+                //Large PDFs can be held partly or entirely in scratch files instead of on the heap
+                MemoryUsageSetting memoryUsage = PdfMemoryBudget.of(pdfMemoryMB, scratchFolder);
+                //The range is checked against the page count before anything is converted
+                List<Integer> pages = null;
+                try (PDDocument document = metrics.time(ConversionMetrics.LOAD, () -> PdfMemoryBudget.load(in, memoryUsage))) {
+                    pages = PageRange.parse(pageRange, document.getNumberOfPages());
+                } catch (IOException e) {
+                    //Auto leaves PDFs PDFBox cannot read to Word, unless a page range was asked for that Word would ignore
+                    if (conversionEngine.equals(DocxPdfRenderer.JAVA) || hasPageRange) {
+                        throw e;
+                    }
+                    metrics.count("officeFallbacks", 1);
+                }
+                if (pages != null) {
+                    reconstruct(in, target, threadCount, pages, memoryUsage, metrics);
+                    converted = true;
+                }
+            }
+
+            //Convert to DOCX on a pooled Word converter
+            if (!converted) {
+                metrics.run(ConversionMetrics.CONVERT, () -> ConverterPool.getShared().convert(in, DocumentType.PDF, target, DocumentType.DOCX));
+            }
+            metrics.output(outputPath);
+            cached.store(outputPath);
 
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return StringValue.
         return new StringValue(outputPath);
     }
+
+    //Reads the pages on threadCount workers, one PDDocument each, and writes them in page order
+    private static void reconstruct(File in, File target, Double threadCount, List<Integer> pages, MemoryUsageSetting memoryUsage, ConversionMetrics metrics) throws IOException {
+        int threads = (threadCount == null) ? 1 : threadCount.intValue();
+        ParallelPageRenderer renderer = new ParallelPageRenderer(in, threads, 0);
+        renderer.setMetrics(metrics);
+        renderer.setMemoryUsage(memoryUsage);
+        List<PdfDocxReconstructor.PageContent> content = renderer.render(pages, (document, pdfRenderer, i) -> {
+            PdfDocxReconstructor.PageContent page = metrics.time(ConversionMetrics.CONVERT, () -> PdfDocxReconstructor.read(document, i));
+            metrics.count("pages", 1);
+            return page;
+        });
+        metrics.run(ConversionMetrics.WRITE, () -> PdfDocxReconstructor.write(content, target));
+    }
 }
@@ -3,25 +3,39 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.ConverterPool;
+import com.automationanywhere.botcommand.utils.PageRange;
+import com.automationanywhere.botcommand.utils.PdfMemoryBudget;
+import com.automationanywhere.botcommand.utils.StreamingHtmlTree;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
 import com.automationanywhere.commandsdk.i18n.Messages;
 import com.automationanywhere.commandsdk.i18n.MessagesFactory;
+import com.automationanywhere.commandsdk.model.DataType;
 import com.documents4j.api.DocumentType;
-import com.documents4j.api.IConverter;
-import com.documents4j.job.LocalConverter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.fit.pdfdom.PDFDomTree;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static com.automationanywhere.commandsdk.model.AttributeType.*;
 import static com.automationanywhere.commandsdk.model.DataType.STRING;
@@ -57,11 +71,34 @@ public class PDFtoHTML {
             //Select Dropdown for File Conversion
             @Idx(index = "3", type = SELECT, options = {
                     @Idx.Option(index = "3.1", pkg = @Pkg(label = "Method 1 - Pure HTML", value = "html")),
-                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Method 2 - HTML + Images", value = "image"))
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Method 2 - HTML + Images", value = "image")),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "Method 3 - Streaming HTML + asset files", value = "stream"))
             })
             @NotEmpty
             @Pkg(label = "[[PDFtoHTML.Format.label]]", description = "[[PDFtoHTML.Format.description]]")
-                    String conversionMethod) {
+                    String conversionMethod,
+
+            //Optionally split the streaming output into a file per page
+            @Idx(index = "4", type = CHECKBOX)
+            @Pkg(label = "[[PDFtoHTML.filePerPage.label]]", description = "[[PDFtoHTML.filePerPage.description]]", default_value = "false", default_value_type = DataType.BOOLEAN)
+                    Boolean filePerPage,
+
+            //Optional pages to convert, such as 1-3,7,last
+            @Idx(index = "5", type = TEXT)
+            @Pkg(label = "[[PDFtoHTML.pageRange.label]]", description = "[[PDFtoHTML.pageRange.description]]")
+                    String pageRange,
+
+            //Optional heap budget for the parsed PDF, the rest spills to scratch files
+            @Idx(index = "6", type = NUMBER)
+            @Pkg(label = "[[PDFtoHTML.pdfMemoryMB.label]]", description = "[[PDFtoHTML.pdfMemoryMB.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+                    Double pdfMemoryMB,
+
+            //Optional folder for the scratch files
+            @Idx(index = "7", type = TEXT)
+            @Pkg(label = "[[PDFtoHTML.scratchFolder.label]]", description = "[[PDFtoHTML.scratchFolder.description]]")
+                    String scratchFolder) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -72,6 +109,11 @@ public class PDFtoHTML {
         }
 
 
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("PDFtoHTML", inputFile);
+
         //Business logic
         try{
             //Get file name to add to custom path
@@ -96,31 +138,74 @@ public class PDFtoHTML {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "PDFtoHTML", inputFile, outputPath, fileNameWithoutExt, conversionMethod, Boolean.toString(Boolean.TRUE.equals(filePerPage)), PageRange.canonical(pageRange));
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
+
+            //Large PDFs can be held partly or entirely in scratch files instead of on the heap
+            MemoryUsageSetting memoryUsage = PdfMemoryBudget.of(pdfMemoryMB, scratchFolder);
+
+            if(conversionMethod.equals("stream")) {
+                //Pages are written as they are processed, images and fonts go to the <name>_files folder
+                Path outputDir = Paths.get(outputPath);
+                try (PDDocument pdf = metrics.time(ConversionMetrics.LOAD, () -> PdfMemoryBudget.load(new File(inputFile), memoryUsage))) {
+                    StreamingHtmlTree tree = new StreamingHtmlTree(outputDir, fileNameWithoutExt, Boolean.TRUE.equals(filePerPage));
+                    tree.setMetrics(metrics);
+                    tree.setPages(PageRange.parse(pageRange, pdf.getNumberOfPages()));
+                    List<String> htmlFiles = metrics.time(ConversionMetrics.RENDER, () -> tree.write(pdf));
+                    //The first page, or the only file, is returned
+                    outputPath = htmlFiles.isEmpty() ? outputPath + fileNameWithoutExt + ".html" : htmlFiles.get(0);
+                    List<String> outputs = new ArrayList<>(htmlFiles);
+                    outputs.addAll(tree.getAssetFiles());
+                    outputs.forEach(metrics::output);
+                    cached.store(outputs);
+                }
+                metrics.finish();
+                return new StringValue(outputPath);
+            }
+
             //Set full path with file name
             outputPath = outputPath + fileNameWithoutExt + ".html";
 
             if(conversionMethod.equals("html")) {
 
                 //Convert PDF to HTML
-                PDDocument pdf = PDDocument.load(new File(inputFile));
-                Writer output = new PrintWriter(outputPath, "utf-8");
-                new PDFDomTree().writeText(pdf, output);
-                output.close();
+                try (PDDocument pdf = metrics.time(ConversionMetrics.LOAD, () -> PdfMemoryBudget.load(new File(inputFile), memoryUsage));
+                     Writer output = new PrintWriter(outputPath, "utf-8")) {
+                    Set<Integer> selected = new HashSet<>(PageRange.parse(pageRange, pdf.getNumberOfPages()));
+                    metrics.count("pages", selected.size());
+                    //Pages outside the range are skipped before their content is parsed
+                    PDFDomTree tree = new PDFDomTree() {
+                        @Override
+                        public void processPage(PDPage page) throws IOException {
+                            if (selected.contains(getCurrentPageNo() - 1)) {
+                                super.processPage(page);
+                            }
+                        }
+                    };
+                    //PDFDomTree renders and writes the page markup in one pass
+                    metrics.run(ConversionMetrics.RENDER, () -> tree.writeText(pdf, output));
+                }
             }else{
-                //PDF to HTML in documents4j
+                //Office always converts the whole document
+                if (pageRange != null && !pageRange.trim().isEmpty()) {
+                    throw new BotCommandException("A page range is only supported by methods 1 and 3");
+                }
+                //PDF to HTML in documents4j on a pooled converter
                 File in = new File(inputFile), target = new File(outputPath);
-                IConverter converter = LocalConverter.make();
-                Future<Boolean> conversion = converter
-                        .convert(in).as(DocumentType.PDF)
-                        .to(target).as(DocumentType.HTML)
-                        .schedule();
-                System.out.println("converter finished");
-                converter.shutDown();
+                metrics.run(ConversionMetrics.CONVERT, () -> ConverterPool.getShared().convert(in, DocumentType.PDF, target, DocumentType.HTML));
             }
+            metrics.output(outputPath);
+            cached.store(outputPath);
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return StringValue.
         return new StringValue(outputPath);
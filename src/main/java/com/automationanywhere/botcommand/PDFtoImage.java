@@ -4,11 +4,23 @@ import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.ListValue;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.Binarizer;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.PageRange;
+import com.automationanywhere.botcommand.utils.PdfMemoryBudget;
+import com.automationanywhere.botcommand.utils.ResultCache;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.botcommand.utils.ParallelPageRenderer;
+import com.automationanywhere.botcommand.utils.RenderProfile;
+import com.automationanywhere.botcommand.utils.TiffSequenceWriter;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
 import com.automationanywhere.commandsdk.model.DataType;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
@@ -78,7 +90,62 @@ public class PDFtoImage {
             //Set Optional Export Dir
             @Idx(index = "4", type = TEXT)
             @Pkg(label = "[[PDFtoImage.outputLocation.label]]", description = "[[PDFtoImage.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Optional number of pages rendered at the same time
+            @Idx(index = "5", type = NUMBER)
+            @Pkg(label = "[[PDFtoImage.threadCount.label]]", description = "[[PDFtoImage.threadCount.description]]", default_value = "1", default_value_type = DataType.NUMBER)
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double threadCount,
+
+            //Optional cap on the page images held in memory while rendering in parallel
+            @Idx(index = "6", type = NUMBER)
+            @Pkg(label = "[[PDFtoImage.maxMemoryMB.label]]", description = "[[PDFtoImage.maxMemoryMB.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double maxMemoryMB,
+
+            //Optional quality/speed trade-off for rendering
+            @Idx(index = "7", type = SELECT, options = {
+                    @Idx.Option(index = "7.1", pkg = @Pkg(label = "Draft", value = "draft")),
+                    @Idx.Option(index = "7.2", pkg = @Pkg(label = "Screen", value = "screen")),
+                    @Idx.Option(index = "7.3", pkg = @Pkg(label = "OCR", value = "ocr")),
+                    @Idx.Option(index = "7.4", pkg = @Pkg(label = "Print", value = "print"))
+            })
+            @Pkg(label = "[[PDFtoImage.renderProfile.label]]", description = "[[PDFtoImage.renderProfile.description]]", default_value = "print", default_value_type = STRING)
+                    String renderProfile,
+
+            //Optionally write all pages into one multi-page TIFF instead of a file per page
+            @Idx(index = "8", type = CHECKBOX)
+            @Pkg(label = "[[PDFtoImage.singleTiff.label]]", description = "[[PDFtoImage.singleTiff.description]]", default_value = "false", default_value_type = DataType.BOOLEAN)
+                    Boolean singleTiff,
+
+            //Optional pages to convert, such as 1-3,7,last
+            @Idx(index = "9", type = TEXT)
+            @Pkg(label = "[[PDFtoImage.pageRange.label]]", description = "[[PDFtoImage.pageRange.description]]")
+                    String pageRange,
+
+            //Optional heap budget for the parsed PDF, the rest spills to scratch files
+            @Idx(index = "10", type = NUMBER)
+            @Pkg(label = "[[PDFtoImage.pdfMemoryMB.label]]", description = "[[PDFtoImage.pdfMemoryMB.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+                    Double pdfMemoryMB,
+
+            //Optional folder for the scratch files
+            @Idx(index = "11", type = TEXT)
+            @Pkg(label = "[[PDFtoImage.scratchFolder.label]]", description = "[[PDFtoImage.scratchFolder.description]]")
+                    String scratchFolder,
+
+            //How Black and White picks the threshold
+            @Idx(index = "12", type = SELECT, options = {
+                    @Idx.Option(index = "12.1", pkg = @Pkg(label = "Fixed", value = "fixed")),
+                    @Idx.Option(index = "12.2", pkg = @Pkg(label = "Otsu", value = "otsu")),
+                    @Idx.Option(index = "12.3", pkg = @Pkg(label = "Adaptive", value = "adaptive"))
+            })
+            @Pkg(label = "[[PDFtoImage.binarization.label]]", description = "[[PDFtoImage.binarization.description]]", default_value = "otsu", default_value_type = STRING)
+                    String binarization) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -88,10 +155,22 @@ public class PDFtoImage {
             throw new BotCommandException("Please select a PDF to continue");
         }
 
+        //Without a method Black and White keeps PDFBox's fixed threshold of earlier versions
+        String threshold;
+        try {
+            threshold = Binarizer.method(binarization);
+        } catch (IllegalArgumentException e) {
+            throw new BotCommandException(e.getMessage());
+        }
+
         //Create return value
         ListValue<?> result = new ListValue();
         List<Value> resultList = new ArrayList();
-        String currentImgFilePath = "";
+
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("PDFtoImage", inputFile);
 
         //Business logic
         try{
@@ -117,30 +196,104 @@ public class PDFtoImage {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
-            //Convert PDF to Image
-            PDDocument pdf = PDDocument.load(new File(inputFile));
-            PDFRenderer pdfRenderer = new PDFRenderer(pdf);
-            for (int page=0; page < pdf.getNumberOfPages(); ++page){
-
-                //Save file path of file to string for return to UI
-                currentImgFilePath = String.format(outputPath + fileNameWithoutExt + "-%05d.%s", page+1,outputType);
-
-                BufferedImage bim;
-                if(colorFormat.equals("color")){
-                    bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.RGB);
-                }else if(colorFormat.equals("grayscale")){
-                    bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.GRAY);
-                }else{
-                    bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.BINARY);
+            //The colour format picks the image type, the profile everything else
+            RenderProfile profile = RenderProfile.forName(renderProfile);
+            float dpi = profile.getDpi();
+            boolean multiPageTiff = Boolean.TRUE.equals(singleTiff) && (outputType.equalsIgnoreCase("tiff") || outputType.equalsIgnoreCase("tif"));
+
+            //Reuse the result of an earlier conversion of the same file with the same options
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "PDFtoImage", inputFile, outputPath, fileNameWithoutExt, outputType, colorFormat, profile.getName(), Boolean.toString(multiPageTiff), PageRange.canonical(pageRange), threshold);
+            if (cached.isHit()) {
+                for (String imagePath : cached.getOutputs()) {
+                    resultList.add(new StringValue(imagePath));
                 }
+                metrics.finish();
+                result.set(resultList);
+                return result;
+            }
+
+            //Convert PDF to Image
+            ImageType imageType;
+            int bytesPerPixel;
+            if(colorFormat.equals("color")){
+                imageType = ImageType.RGB;
+                bytesPerPixel = 4;
+            }else if(colorFormat.equals("grayscale")){
+                imageType = ImageType.GRAY;
+                bytesPerPixel = 1;
+            }else if(threshold.equals(Binarizer.FIXED)){
+                imageType = ImageType.BINARY;
+                bytesPerPixel = 1;
+            }else{
+                //Otsu and adaptive thresholds are computed from a gray rendering
+                imageType = ImageType.GRAY;
+                bytesPerPixel = 1;
+            }
+            boolean binarize = colorFormat.equals("blackandwhite") && !threshold.equals(Binarizer.FIXED);
+
+            //Large PDFs can be held partly or entirely in scratch files instead of on the heap
+            MemoryUsageSetting memoryUsage = PdfMemoryBudget.of(pdfMemoryMB, scratchFolder);
+
+            int pageCount;
+            try (PDDocument pdf = metrics.time(ConversionMetrics.LOAD, () -> PdfMemoryBudget.load(new File(inputFile), memoryUsage))) {
+                pageCount = pdf.getNumberOfPages();
+            }
+            //Pages outside the range are never rendered
+            List<Integer> pages = PageRange.parse(pageRange, pageCount);
 
-                ImageIOUtil.writeImage(bim, currentImgFilePath, 300);
-                resultList.add(new StringValue(currentImgFilePath));
+            String imagePathPrefix = outputPath + fileNameWithoutExt;
+            List<String> imagePaths;
+            if (multiPageTiff) {
+                //Pages are appended in order, so they are rendered one at a time and only the current raster is held.
+                //The thread count and memory cap do not apply.
+                String tiffPath = imagePathPrefix + "." + outputType;
+                ParallelPageRenderer renderer = new ParallelPageRenderer(new File(inputFile), 1, 0);
+                renderer.setMetrics(metrics);
+                renderer.setRenderProfile(profile);
+                renderer.setMemoryUsage(memoryUsage);
+                try (TiffSequenceWriter tiff = new TiffSequenceWriter(new File(tiffPath))) {
+                    renderer.render(pages, (document, pdfRenderer, page) -> {
+                        BufferedImage rendered = metrics.time(ConversionMetrics.RENDER, () -> pdfRenderer.renderImageWithDPI(page, dpi, imageType));
+                        metrics.image(rendered.getWidth(), rendered.getHeight());
+                        BufferedImage bim = binarize ? metrics.time("binarize", () -> Binarizer.binarize(rendered, threshold)) : rendered;
+                        metrics.run(ConversionMetrics.ENCODE, () -> tiff.writePage(bim, dpi));
+                        metrics.count("pages", 1);
+                        return null;
+                    });
+                }
+                metrics.output(tiffPath);
+                imagePaths = new ArrayList<>();
+                imagePaths.add(tiffPath);
+            } else {
+                //Each worker renders with its own document, pages come back in page order
+                int threads = (threadCount == null) ? 1 : threadCount.intValue();
+                long memoryCap = (maxMemoryMB == null) ? 0 : maxMemoryMB.longValue() * 1024 * 1024;
+                ParallelPageRenderer renderer = new ParallelPageRenderer(new File(inputFile), threads, memoryCap);
+                renderer.setMetrics(metrics);
+                renderer.setRenderProfile(profile);
+                renderer.setMemoryUsage(memoryUsage);
+                imagePaths = renderer.render(pages, dpi, bytesPerPixel, (document, pdfRenderer, page) -> {
+                    //Save file path of file to string for return to UI
+                    String currentImgFilePath = String.format(imagePathPrefix + "-%05d.%s", page+1,outputType);
+                    BufferedImage rendered = metrics.time(ConversionMetrics.RENDER, () -> pdfRenderer.renderImageWithDPI(page, dpi, imageType));
+                    metrics.image(rendered.getWidth(), rendered.getHeight());
+                    BufferedImage bim = binarize ? metrics.time("binarize", () -> Binarizer.binarize(rendered, threshold)) : rendered;
+                    //The encoder streams straight into the file, so this covers the write as well
+                    metrics.time(ConversionMetrics.ENCODE, () -> ImageIOUtil.writeImage(bim, currentImgFilePath, Math.round(dpi)));
+                    metrics.count("pages", 1);
+                    metrics.output(currentImgFilePath);
+                    return currentImgFilePath;
+                });
+            }
+            for (String imagePath : imagePaths) {
+                resultList.add(new StringValue(imagePath));
             }
-            pdf.close();
+            cached.store(imagePaths);
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return ListValue.
         result.set(resultList);
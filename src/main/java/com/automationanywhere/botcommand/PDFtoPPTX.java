@@ -3,42 +3,49 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.PageRange;
+import com.automationanywhere.botcommand.utils.PdfMemoryBudget;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.ParallelPageRenderer;
+import com.automationanywhere.botcommand.utils.RenderProfile;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
-import com.itextpdf.text.Document;
-import com.itextpdf.text.Rectangle;
-import com.itextpdf.text.pdf.PdfWriter;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import com.automationanywhere.commandsdk.annotations.rules.NumberInteger;
+import com.automationanywhere.commandsdk.model.DataType;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageTree;
-import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.poi.sl.usermodel.PictureData;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.apache.poi.xslf.usermodel.XSLFPictureData;
 import org.apache.poi.xslf.usermodel.XSLFPictureShape;
 import org.apache.poi.xslf.usermodel.XSLFSlide;
-import org.imgscalr.Scalr;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
-import static com.automationanywhere.commandsdk.model.AttributeType.FILE;
-import static com.automationanywhere.commandsdk.model.AttributeType.TEXT;
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
 import static com.automationanywhere.commandsdk.model.DataType.STRING;
 
 //BotCommand makes a class eligible for being considered as an action.
@@ -53,6 +60,10 @@ import static com.automationanywhere.commandsdk.model.DataType.STRING;
         //Return type information. return_type ensures only the right kind of variable is provided on the UI.
         return_label = "[[PDFtoPPTX.return_label]]", return_type = STRING, return_required = true, return_description = "[[PDFtoPPTX.return_description]]")
 public class PDFtoPPTX {
+    //Long edge of the slide, in pixels of the rendered page
+    private static final int SLIDE_LONG_EDGE = 1920;
+    private static final float JPEG_QUALITY = 0.9f;
+
     //Identify the entry point for the action. Returns a Value<String> because the return type is String.
     @Execute
     public Value<String> action(
@@ -69,7 +80,49 @@ public class PDFtoPPTX {
             //Set Optional Export Dir
             @Idx(index = "2", type = TEXT)
             @Pkg(label = "[[PDFtoPPTX.outputLocation.label]]", description = "[[PDFtoPPTX.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Select Dropdown for Slide Image Format
+            @Idx(index = "3", type = SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "PNG", value = "png")),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "JPEG", value = "jpeg"))
+            })
+            @Pkg(label = "[[PDFtoPPTX.imageFormat.label]]", description = "[[PDFtoPPTX.imageFormat.description]]", default_value = "png", default_value_type = STRING)
+                    String imageFormat,
+
+            //Optional number of pages rendered at the same time
+            @Idx(index = "4", type = NUMBER)
+            @Pkg(label = "[[PDFtoPPTX.threadCount.label]]", description = "[[PDFtoPPTX.threadCount.description]]", default_value = "1", default_value_type = DataType.NUMBER)
+            @NumberInteger
+            @GreaterThanEqualTo("1")
+                    Double threadCount,
+
+            //Optional quality/speed trade-off for rendering
+            @Idx(index = "5", type = SELECT, options = {
+                    @Idx.Option(index = "5.1", pkg = @Pkg(label = "Draft", value = "draft")),
+                    @Idx.Option(index = "5.2", pkg = @Pkg(label = "Screen", value = "screen")),
+                    @Idx.Option(index = "5.3", pkg = @Pkg(label = "OCR", value = "ocr")),
+                    @Idx.Option(index = "5.4", pkg = @Pkg(label = "Print", value = "print"))
+            })
+            @Pkg(label = "[[PDFtoPPTX.renderProfile.label]]", description = "[[PDFtoPPTX.renderProfile.description]]", default_value = "print", default_value_type = STRING)
+                    String renderProfile,
+
+            //Optional pages to convert, such as 1-3,7,last
+            @Idx(index = "6", type = TEXT)
+            @Pkg(label = "[[PDFtoPPTX.pageRange.label]]", description = "[[PDFtoPPTX.pageRange.description]]")
+                    String pageRange,
+
+            //Optional heap budget for the parsed PDF, the rest spills to scratch files
+            @Idx(index = "7", type = NUMBER)
+            @Pkg(label = "[[PDFtoPPTX.pdfMemoryMB.label]]", description = "[[PDFtoPPTX.pdfMemoryMB.description]]")
+            @NumberInteger
+            @GreaterThanEqualTo("0")
+                    Double pdfMemoryMB,
+
+            //Optional folder for the scratch files
+            @Idx(index = "8", type = TEXT)
+            @Pkg(label = "[[PDFtoPPTX.scratchFolder.label]]", description = "[[PDFtoPPTX.scratchFolder.description]]")
+                    String scratchFolder) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -79,19 +132,10 @@ public class PDFtoPPTX {
             throw new BotCommandException("Please select a supported file to continue");
         }
 
-        //Set temp dir for PPTX to PNG conversion
-        String tempPath = "C:\\temp\\fileconversion";
-        //Setup Temp Dirs for Conversion
-        try{
-            if(new File(tempPath).exists()){
-                FileUtils.deleteDirectory(new File(tempPath));
-            }
-            //Create temp-file directories if they dont already exist
-            Files.createDirectories(Paths.get(tempPath+"\\images"));
-        }catch (Exception e){
-            throw new BotCommandException("Error creating temp directories needed for file conversion. Attempt to create C:\\temp\\fileconversion failed. Please check permissions of user account running the bot.");
-        }
-
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("PDFtoPPTX", inputFile);
 
         //Business logic
         try{
@@ -120,58 +164,135 @@ public class PDFtoPPTX {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            RenderProfile profile = RenderProfile.forName(renderProfile);
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "PDFtoPPTX", inputFile, outputPath, fileNameWithoutExt, "jpeg".equals(imageFormat) ? "jpeg" : "png", profile.getName(), PageRange.canonical(pageRange));
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
+
             //Set full path with file name
             outputPath = outputPath + fileNameWithoutExt + ".pptx";
 
-            //Convert to PDF
-            XMLSlideShow ppt = new XMLSlideShow();
+            //Convert to PPTX
             File sourceFile = new File(inputFile);
+            boolean jpeg = "jpeg".equals(imageFormat);
 
-            PDDocument document = PDDocument.load(sourceFile);
-            PDPageTree list = document.getPages();
-            System.out.println("Total files converted -> "+ list.getCount());
-
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            for(int i=0; i < list.getCount(); i++){
-                PDPage page = list.get(i);
-                BufferedImage image = pdfRenderer.renderImageWithDPI(i,300, ImageType.RGB);
-                Dimension imageMaxSize = new Dimension(1920,1080);
-                BufferedImage resizedImage = Scalr.resize(image, Scalr.Method.QUALITY,imageMaxSize.width, imageMaxSize.height);
-                File outputFile = new File(tempPath + "\\images\\" + (i+1) + ".png");
-                ImageIO.write(resizedImage, "png", outputFile);
-                System.out.println("Scaled Image Written Out");
-
-                ppt.setPageSize(new java.awt.Dimension(1920,1080));
-                XSLFSlide slide = ppt.createSlide();
-                FileInputStream getImage = new FileInputStream(outputFile.getAbsolutePath());
-                byte[] pictureData = IOUtils.toByteArray(getImage);
-
-                XSLFPictureData pd = ppt.addPicture(pictureData, PictureData.PictureType.PNG);
-                XSLFPictureShape pic = slide.createPicture(pd);
-                pic.setAnchor(new java.awt.Rectangle(0,0,resizedImage.getWidth(),resizedImage.getHeight()));
-                getImage.close();
+            //The slide takes the aspect ratio of the first selected page, with its long edge at SLIDE_LONG_EDGE.
+            //Pages outside the range are never rendered.
+            List<Integer> pages;
+            Dimension slideSize;
+            //Large PDFs can be held partly or entirely in scratch files instead of on the heap
+            MemoryUsageSetting memoryUsage = PdfMemoryBudget.of(pdfMemoryMB, scratchFolder);
+            try (PDDocument document = metrics.time(ConversionMetrics.LOAD, () -> PdfMemoryBudget.load(sourceFile, memoryUsage))) {
+                pages = PageRange.parse(pageRange, document.getNumberOfPages());
+                slideSize = pages.isEmpty() ? new Dimension(SLIDE_LONG_EDGE, SLIDE_LONG_EDGE * 9 / 16) : slideSizeFor(document.getPage(pages.get(0)));
             }
-            document.close();
-            FileOutputStream out = new FileOutputStream(outputPath);
-            ppt.write(out);
-            out.close();
-            ppt.close();
-            System.out.println("All things closed");
 
+            //Pages are rendered at the profile's DPI, but never above slide resolution, and encoded in memory, several at a time
+            int threads = (threadCount == null) ? 1 : threadCount.intValue();
+            ParallelPageRenderer renderer = new ParallelPageRenderer(sourceFile, threads, 0);
+            renderer.setMetrics(metrics);
+            renderer.setRenderProfile(profile);
+            renderer.setMemoryUsage(memoryUsage);
+            List<SlidePicture> slideImages = renderer.render(pages, (document, pdfRenderer, i) -> {
+                PDPage page = document.getPage(i);
+                float fit = fitScale(page, slideSize);
+                float scale = Math.min(fit, profile.getDpi() / 72f);
+                BufferedImage image = metrics.time(ConversionMetrics.RENDER, () -> pdfRenderer.renderImage(i, scale, profile.getImageType()));
+                metrics.image(image.getWidth(), image.getHeight());
+                metrics.count("pages", 1);
+                byte[] data = metrics.time(ConversionMetrics.ENCODE, () -> encode(image, jpeg));
+                //On the slide the picture always fills the fitted page area, whatever its resolution
+                return new SlidePicture(data, new Dimension(Math.round(image.getWidth() * fit / scale), Math.round(image.getHeight() * fit / scale)));
+            });
 
+            long writeStart = System.nanoTime();
+            try (XMLSlideShow ppt = new XMLSlideShow()) {
+                ppt.setPageSize(slideSize);
+                //Slides are added in page order once every page is rendered
+                for (SlidePicture picture : slideImages) {
+                    XSLFSlide slide = ppt.createSlide();
+                    XSLFPictureData pd = ppt.addPicture(picture.data, jpeg ? PictureData.PictureType.JPEG : PictureData.PictureType.PNG);
+                    XSLFPictureShape pic = slide.createPicture(pd);
+                    //Centre pages whose aspect ratio differs from the slide
+                    Dimension imageSize = picture.size;
+                    pic.setAnchor(new java.awt.Rectangle((slideSize.width - imageSize.width) / 2, (slideSize.height - imageSize.height) / 2, imageSize.width, imageSize.height));
+                }
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputPath))) {
+                    ppt.write(out);
+                }
+            }
+            metrics.addTime(ConversionMetrics.WRITE, System.nanoTime() - writeStart);
+            metrics.output(outputPath);
+            cached.store(outputPath);
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
-        } finally {
-            try{
-                if(new File(tempPath).exists()){
-                    FileUtils.deleteDirectory(new File(tempPath));
-                }
-            }catch  (Exception e) {
-                System.out.println(e.toString());
-            }
         }
+        metrics.finish();
         //Return StringValue.
         return new StringValue(outputPath);
     }
+
+    //Encoded page image and the size it takes up on the slide
+    private static class SlidePicture {
+        private final byte[] data;
+        private final Dimension size;
+
+        SlidePicture(byte[] data, Dimension size) {
+            this.data = data;
+            this.size = size;
+        }
+    }
+
+    //Slide size with the page's aspect ratio, long edge SLIDE_LONG_EDGE
+    private static Dimension slideSizeFor(PDPage page) {
+        PDRectangle box = page.getCropBox();
+        float width = box.getWidth();
+        float height = box.getHeight();
+        if (page.getRotation() == 90 || page.getRotation() == 270) {
+            float swap = width;
+            width = height;
+            height = swap;
+        }
+        if (width >= height) {
+            return new Dimension(SLIDE_LONG_EDGE, Math.max(1, Math.round(SLIDE_LONG_EDGE * height / width)));
+        }
+        return new Dimension(Math.max(1, Math.round(SLIDE_LONG_EDGE * width / height)), SLIDE_LONG_EDGE);
+    }
+
+    //Render scale that makes the page fit inside the slide without distorting it
+    private static float fitScale(PDPage page, Dimension slideSize) {
+        PDRectangle box = page.getCropBox();
+        float width = box.getWidth();
+        float height = box.getHeight();
+        if (page.getRotation() == 90 || page.getRotation() == 270) {
+            float swap = width;
+            width = height;
+            height = swap;
+        }
+        return Math.min(slideSize.width / width, slideSize.height / height);
+    }
+
+    private static byte[] encode(BufferedImage image, boolean jpeg) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (!jpeg) {
+            ImageIO.write(image, "png", bytes);
+            return bytes.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
 }
@@ -4,6 +4,10 @@ import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.ListValue;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.RenderProfile;
+import com.automationanywhere.botcommand.utils.ResultCache;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
@@ -72,7 +76,17 @@ public class PPTXtoImage {
             //Set Optional Export Dir
             @Idx(index = "3", type = TEXT)
             @Pkg(label = "[[PPTXtoImage.outputLocation.label]]", description = "[[PPTXtoImage.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Optional quality/speed trade-off for rendering
+            @Idx(index = "4", type = SELECT, options = {
+                    @Idx.Option(index = "4.1", pkg = @Pkg(label = "Draft", value = "draft")),
+                    @Idx.Option(index = "4.2", pkg = @Pkg(label = "Screen", value = "screen")),
+                    @Idx.Option(index = "4.3", pkg = @Pkg(label = "OCR", value = "ocr")),
+                    @Idx.Option(index = "4.4", pkg = @Pkg(label = "Print", value = "print"))
+            })
+            @Pkg(label = "[[PPTXtoImage.renderProfile.label]]", description = "[[PPTXtoImage.renderProfile.description]]", default_value = "print", default_value_type = STRING)
+                    String renderProfile) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -84,6 +98,11 @@ public class PPTXtoImage {
         ListValue<?> result = new ListValue();
         List<Value> resultList = new ArrayList();
         String currentImgFilePath = "";
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("PPTXtoImage", inputFile);
+
         //Business logic
         try{
             //Get file name to add to custom path
@@ -111,51 +130,72 @@ public class PPTXtoImage {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            RenderProfile profile = RenderProfile.forName(renderProfile);
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "PPTXtoImage", inputFile, outputPath, fileNameWithoutExt, outputType, profile.getName());
+            if (cached.isHit()) {
+                for (String imagePath : cached.getOutputs()) {
+                    resultList.add(new StringValue(imagePath));
+                }
+                metrics.finish();
+                result.set(resultList);
+                return result;
+            }
+
 //            //Set full path with file name
 //            outputPath = outputPath + fileNameWithoutExt + "." ;
 
             //Convert to Image
+            long loadStart = System.nanoTime();
             FileInputStream inputStream = new FileInputStream(inputFile);
 
             XMLSlideShow ppt = new XMLSlideShow(OPCPackage.open(inputStream));
 
             inputStream.close();
+            metrics.addTime(ConversionMetrics.LOAD, System.nanoTime() - loadStart);
             Dimension pgsize = ppt.getPageSize();
-            float scale = 2;
+            float scale = profile.getSlideScale();
             int width = (int) (pgsize.width * scale );
             int height = (int) (pgsize.height * scale);
-            System.out.println("width:" + width +", height:"+ height);
             int i=1;
-            int totalSlides = ppt.getSlides().size();
-            System.out.println("totalSlides:" + totalSlides);
+            List<String> imagePaths = new ArrayList<>();
 
 
             for (XSLFSlide slide : ppt.getSlides()){
-                BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                long renderStart = System.nanoTime();
+                BufferedImage img = new BufferedImage(width, height, profile.getBufferedImageType());
                 Graphics2D graphics = img.createGraphics();
                 graphics.setPaint(Color.white);
                 graphics.fill(new Rectangle2D.Float(0,0,width, height));
-                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+                profile.configure(graphics);
                 graphics.setColor(Color.white);
                 graphics.clearRect(0,0,width,height);
                 graphics.scale(scale,scale);
 
                 slide.draw(graphics);
+                metrics.addTime(ConversionMetrics.RENDER, System.nanoTime() - renderStart);
+                metrics.image(width, height);
                 currentImgFilePath = String.format(outputPath + fileNameWithoutExt + "_page%05d.%s", i,outputType);
+                //The encoder streams straight into the file, so this covers the write as well
+                long encodeStart = System.nanoTime();
                 FileOutputStream out = new FileOutputStream(currentImgFilePath);
                 javax.imageio.ImageIO.write(img, outputType, out);
                 resultList.add(new StringValue(currentImgFilePath));
                 out.close();
+                metrics.addTime(ConversionMetrics.ENCODE, System.nanoTime() - encodeStart);
+                metrics.count("slides", 1);
+                metrics.output(currentImgFilePath);
+                imagePaths.add(currentImgFilePath);
                 i++;
             }
             inputStream.close();
+            cached.store(imagePaths);
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
         //Return ListValue.
         result.set(resultList);
         return result;
@@ -3,19 +3,19 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.RenderProfile;
+import com.automationanywhere.botcommand.utils.ResultCache;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
-import com.documents4j.api.DocumentType;
-import com.documents4j.api.IConverter;
-import com.documents4j.job.LocalConverter;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.Rectangle;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
-import org.apache.commons.io.FileUtils;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.apache.poi.xslf.usermodel.XSLFSlide;
@@ -23,16 +23,17 @@ import org.apache.poi.xslf.usermodel.XSLFSlide;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.Future;
 
 import static com.automationanywhere.commandsdk.model.AttributeType.FILE;
+import static com.automationanywhere.commandsdk.model.AttributeType.SELECT;
 import static com.automationanywhere.commandsdk.model.AttributeType.TEXT;
 import static com.automationanywhere.commandsdk.model.DataType.STRING;
 
@@ -48,6 +49,9 @@ import static com.automationanywhere.commandsdk.model.DataType.STRING;
         //Return type information. return_type ensures only the right kind of variable is provided on the UI.
         return_label = "[[PPTXtoPDF.return_label]]", return_type = STRING, return_required = true, return_description = "[[PPTXtoPDF.return_description]]")
 public class PPTXtoPDF {
+    //PDF page size relative to the slide size in points, as the pages have always been
+    private static final float PAGE_SCALE = 2;
+
     //Identify the entry point for the action. Returns a Value<String> because the return type is String.
     @Execute
     public Value<String> action(
@@ -64,7 +68,17 @@ public class PPTXtoPDF {
             //Set Optional Export Dir
             @Idx(index = "2", type = TEXT)
             @Pkg(label = "[[PPTXtoPDF.outputLocation.label]]", description = "[[PPTXtoPDF.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Optional quality/speed trade-off for rendering
+            @Idx(index = "3", type = SELECT, options = {
+                    @Idx.Option(index = "3.1", pkg = @Pkg(label = "Draft", value = "draft")),
+                    @Idx.Option(index = "3.2", pkg = @Pkg(label = "Screen", value = "screen")),
+                    @Idx.Option(index = "3.3", pkg = @Pkg(label = "OCR", value = "ocr")),
+                    @Idx.Option(index = "3.4", pkg = @Pkg(label = "Print", value = "print"))
+            })
+            @Pkg(label = "[[PPTXtoPDF.renderProfile.label]]", description = "[[PPTXtoPDF.renderProfile.description]]", default_value = "print", default_value_type = STRING)
+                    String renderProfile) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -74,16 +88,10 @@ public class PPTXtoPDF {
             throw new BotCommandException("Please select a supported file to continue");
         }
 
-        //Set temp dir for PPTX to PNG conversion
-        String tempPath = "C:\\temp\\fileconversion";
-        //Setup Temp Dirs for Conversion
-        try{
-            //Create temp-file directories if they dont already exist
-            Files.createDirectories(Paths.get(tempPath+"\\images"));
-        }catch (Exception e){
-            throw new BotCommandException("Error creating temp directories needed for file conversion. Attempt to create C:\\temp\\fileconversion failed. Please check permissions of user account running the bot.");
-        }
-
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("PPTXtoPDF", inputFile);
 
         //Business logic
         try{
@@ -112,72 +120,75 @@ public class PPTXtoPDF {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
+            //Reuse the result of an earlier conversion of the same file with the same options
+            RenderProfile profile = RenderProfile.forName(renderProfile);
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "PPTXtoPDF", inputFile, outputPath, fileNameWithoutExt, profile.getName());
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
+
             //Set full path with file name
             outputPath = outputPath + fileNameWithoutExt + ".pdf";
 
             //Convert to PDF
-            FileInputStream inputStream = new FileInputStream(inputFile);
-
-            XMLSlideShow ppt = new XMLSlideShow(OPCPackage.open(inputStream));
-
-            inputStream.close();
-            Dimension pgsize = ppt.getPageSize();
-            float scale = 2;
-            int width = (int) (pgsize.width * scale );
-            int height = (int) (pgsize.height * scale);
-            System.out.println("width:" + width +", height:"+ height);
-            int i=1;
-            int totalSlides = ppt.getSlides().size();
-            System.out.println("totalSlides:" + totalSlides);
-
-
-            for (XSLFSlide slide : ppt.getSlides()){
-                BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-                Graphics2D graphics = img.createGraphics();
-                graphics.setPaint(Color.white);
-                graphics.fill(new Rectangle2D.Float(0,0,width, height));
-                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-                graphics.setColor(Color.white);
-                graphics.clearRect(0,0,width,height);
-                graphics.scale(scale,scale);
-
-                slide.draw(graphics);
-                FileOutputStream out = new FileOutputStream(tempPath+"\\images\\" + i+".png");
-                javax.imageio.ImageIO.write(img, "png", out);
-                out.close();
-                i++;
-            }
-
-            Document document = new Document();
-            PdfWriter.getInstance(document, new FileOutputStream(outputPath));
-            document.open();
-            //create rectangle based on image size for new page
-            com.itextpdf.text.Rectangle rectangle = new Rectangle(width,height);
-            document.setPageSize(rectangle);
-            for(int j = 1; j<=totalSlides; j++){
-                com.itextpdf.text.Image slideImage = com.itextpdf.text.Image.getInstance(tempPath+"\\images\\" + j+".png");
-                slideImage.scaleToFit(width,height);
-                slideImage.setAbsolutePosition(0,0);
-                //Add new page and add slide to page
-                document.newPage();
-                document.add(slideImage);
+            //Slides are drawn into one reusable image and handed to iText page by page,
+            //so only a single slide raster is in memory and nothing is written to a temp folder
+            long loadStart = System.nanoTime();
+            try (FileInputStream inputStream = new FileInputStream(inputFile);
+                 XMLSlideShow ppt = new XMLSlideShow(OPCPackage.open(inputStream));
+                 OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputPath))) {
+                metrics.addTime(ConversionMetrics.LOAD, System.nanoTime() - loadStart);
+
+                Dimension pgsize = ppt.getPageSize();
+                float scale = profile.getSlideScale();
+                int width = (int) (pgsize.width * scale );
+                int height = (int) (pgsize.height * scale);
+                metrics.image(width, height);
+                //The page keeps its size whatever the profile, only the resolution of the slide image changes
+                float pageWidth = pgsize.width * PAGE_SCALE;
+                float pageHeight = pgsize.height * PAGE_SCALE;
+
+                //create rectangle based on slide size for new page
+                Document document = new Document(new Rectangle(pageWidth, pageHeight), 0, 0, 0, 0);
+                PdfWriter.getInstance(document, outputStream);
+                document.open();
+
+                BufferedImage img = new BufferedImage(width, height, profile.getBufferedImageType());
+                for (XSLFSlide slide : ppt.getSlides()){
+                    long renderStart = System.nanoTime();
+                    Graphics2D graphics = img.createGraphics();
+                    graphics.setPaint(Color.white);
+                    graphics.fill(new Rectangle2D.Float(0,0,width, height));
+                    profile.configure(graphics);
+                    graphics.scale(scale,scale);
+                    slide.draw(graphics);
+                    graphics.dispose();
+                    metrics.addTime(ConversionMetrics.RENDER, System.nanoTime() - renderStart);
+
+                    //iText copies the pixels, so the image can be redrawn for the next slide
+                    long writeStart = System.nanoTime();
+                    com.itextpdf.text.Image slideImage = com.itextpdf.text.Image.getInstance(img, null);
+                    slideImage.scaleToFit(pageWidth,pageHeight);
+                    slideImage.setAbsolutePosition(0,0);
+                    //Add new page and add slide to page
+                    document.newPage();
+                    document.add(slideImage);
+                    metrics.addTime(ConversionMetrics.WRITE, System.nanoTime() - writeStart);
+                    metrics.count("slides", 1);
+                }
+                long closeStart = System.nanoTime();
+                document.close();
+                metrics.addTime(ConversionMetrics.WRITE, System.nanoTime() - closeStart);
             }
-            document.close();
+            metrics.output(outputPath);
+            cached.store(outputPath);
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
-        } finally {
-            try{
-                if(new File(tempPath).exists()){
-                    FileUtils.deleteDirectory(new File(tempPath));
-                }
-            }catch  (Exception e) {
-                throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
-            }
         }
+        metrics.finish();
         //Return StringValue.
         return new StringValue(outputPath);
     }
@@ -0,0 +1,120 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionJobs;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+import static com.automationanywhere.commandsdk.model.DataType.STRING;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "StartConversion", label = "[[StartConversion.label]]",
+        node_label = "[[StartConversion.node_label]]", description = "[[StartConversion.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[StartConversion.return_label]]", return_type = STRING, return_required = true, return_description = "[[StartConversion.return_description]]")
+public class StartConversion {
+    //Identify the entry point for the action. Returns the id of the job, the conversion runs in the background.
+    @Execute
+    public Value<String> action(
+            //Select Dropdown for Conversion Type
+            @Idx(index = "1", type = SELECT, options = {
+                    @Idx.Option(index = "1.1", pkg = @Pkg(label = "PDF to Image", value = "PDFtoImage")),
+                    @Idx.Option(index = "1.2", pkg = @Pkg(label = "PDF to HTML", value = "PDFtoHTML")),
+                    @Idx.Option(index = "1.3", pkg = @Pkg(label = "PDF to DOCX", value = "PDFtoDOCX")),
+                    @Idx.Option(index = "1.4", pkg = @Pkg(label = "PDF to PPTX", value = "PDFtoPPTX")),
+                    @Idx.Option(index = "1.5", pkg = @Pkg(label = "DOCX to PDF", value = "DOCXtoPDF")),
+                    @Idx.Option(index = "1.6", pkg = @Pkg(label = "CSV to XLSX", value = "CSVtoXLSX")),
+                    @Idx.Option(index = "1.7", pkg = @Pkg(label = "XLSX to CSV", value = "XLSXtoCSV")),
+                    @Idx.Option(index = "1.8", pkg = @Pkg(label = "PPTX to PDF", value = "PPTXtoPDF")),
+                    @Idx.Option(index = "1.9", pkg = @Pkg(label = "PPTX to Image", value = "PPTXtoImage")),
+                    @Idx.Option(index = "1.10", pkg = @Pkg(label = "Image to PDF", value = "IMAGEtoPDF")),
+                    @Idx.Option(index = "1.11", pkg = @Pkg(label = "Image to Image", value = "ImagetoImage"))
+            })
+            @NotEmpty
+            @Pkg(label = "[[StartConversion.conversion.label]]")
+                    String conversion,
+
+            //File to convert
+            @Idx(index = "2", type = FILE)
+            @Pkg(label = "[[StartConversion.inputFile.label]]")
+            @NotEmpty
+                    String inputFile,
+
+            //Set Optional Export Dir
+            @Idx(index = "3", type = TEXT)
+            @Pkg(label = "[[StartConversion.outputLocation.label]]", description = "[[StartConversion.outputLocation.description]]")
+                    String outputPath,
+
+            //Select Dropdown for Image Conversions
+            @Idx(index = "4", type = SELECT, options = {
+                    @Idx.Option(index = "4.1", pkg = @Pkg(label = "JPEG", value = "jpeg")),
+                    @Idx.Option(index = "4.2", pkg = @Pkg(label = "JPG", value = "jpg")),
+                    @Idx.Option(index = "4.3", pkg = @Pkg(label = "GIF", value = "gif")),
+                    @Idx.Option(index = "4.4", pkg = @Pkg(label = "TIFF", value = "tiff")),
+                    @Idx.Option(index = "4.5", pkg = @Pkg(label = "PNG", value = "png")),
+            })
+            @Pkg(label = "[[StartConversion.outputType.label]]", description = "[[StartConversion.outputType.description]]", default_value = "png", default_value_type = STRING)
+                    String outputType,
+
+            //Select Dropdown for Image Conversions
+            @Idx(index = "5", type = SELECT, options = {
+                    @Idx.Option(index = "5.1", pkg = @Pkg(label = "Color", value = "color")),
+                    @Idx.Option(index = "5.2", pkg = @Pkg(label = "Grayscale", value = "grayscale")),
+                    @Idx.Option(index = "5.3", pkg = @Pkg(label = "Black and White", value = "blackandwhite"))
+            })
+            @Pkg(label = "[[StartConversion.colorFormat.label]]", description = "[[StartConversion.colorFormat.description]]", default_value = "color", default_value_type = STRING)
+                    String colorFormat,
+
+            //Optional quality/speed trade-off for conversions that render pages or slides
+            @Idx(index = "6", type = SELECT, options = {
+                    @Idx.Option(index = "6.1", pkg = @Pkg(label = "Draft", value = "draft")),
+                    @Idx.Option(index = "6.2", pkg = @Pkg(label = "Screen", value = "screen")),
+                    @Idx.Option(index = "6.3", pkg = @Pkg(label = "OCR", value = "ocr")),
+                    @Idx.Option(index = "6.4", pkg = @Pkg(label = "Print", value = "print"))
+            })
+            @Pkg(label = "[[StartConversion.renderProfile.label]]", description = "[[StartConversion.renderProfile.description]]", default_value = "print", default_value_type = STRING)
+                    String renderProfile,
+
+            //Optional engine for DOCX to PDF and PDF to DOCX: Office, the Java engine, or Java with Office as fallback
+            @Idx(index = "7", type = SELECT, options = {
+                    @Idx.Option(index = "7.1", pkg = @Pkg(label = "[[StartConversion.engine.auto.label]]", value = "auto")),
+                    @Idx.Option(index = "7.2", pkg = @Pkg(label = "[[StartConversion.engine.java.label]]", value = "java")),
+                    @Idx.Option(index = "7.3", pkg = @Pkg(label = "[[StartConversion.engine.office.label]]", value = "office"))
+            })
+            @Pkg(label = "[[StartConversion.engine.label]]", description = "[[StartConversion.engine.description]]", default_value = "auto", default_value_type = STRING)
+                    String engine) {
+
+        if (!BatchConvert.DEFAULT_PATTERNS.containsKey(conversion)) {
+            throw new BotCommandException("Please select a supported conversion to continue");
+        }
+        //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on inputFile.
+        if ("".equals(inputFile.trim()))
+            throw new BotCommandException("Please select a valid file for processing.");
+
+        String file = inputFile.trim();
+        String exportPath = (outputPath == null) ? "" : outputPath;
+        BatchConvert.Options options = new BatchConvert.Options().outputType(outputType).colorFormat(colorFormat).renderProfile(renderProfile).engine(engine);
+
+        //Same conversion as the single-file action, run on a job worker. Errors are kept with the job for the wait action.
+        ConversionJobs.Job<Value> job;
+        try {
+            job = ConversionJobs.getShared().submit(conversion + " " + file,
+                    () -> BatchConvert.convert(conversion, file, exportPath, options));
+        } catch (Exception e) {
+            throw new BotCommandException("Error occurred while starting the conversion. Error code: " + e.toString());
+        }
+
+        //Return StringValue.
+        return new StringValue(job.getId());
+    }
+}
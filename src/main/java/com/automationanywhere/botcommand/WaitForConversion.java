@@ -0,0 +1,68 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionJobs;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.util.Map;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "WaitForConversion", label = "[[WaitForConversion.label]]",
+        node_label = "[[WaitForConversion.node_label]]", description = "[[WaitForConversion.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[WaitForConversion.return_label]]", return_type = DataType.DICTIONARY, return_required = true, return_description = "[[WaitForConversion.return_description]]")
+public class WaitForConversion {
+    //Identify the entry point for the action. Returns a Value<Map> because the return type is Dictionary.
+    @Execute
+    public Value<Map<String, Value>> action(
+            //Id returned by StartConversion
+            @Idx(index = "1", type = TEXT)
+            @Pkg(label = "[[WaitForConversion.jobId.label]]")
+            @NotEmpty
+                    String jobId,
+
+            //Optional limit on the wait, no limit if empty
+            @Idx(index = "2", type = NUMBER)
+            @Pkg(label = "[[WaitForConversion.timeoutSeconds.label]]", description = "[[WaitForConversion.timeoutSeconds.description]]")
+            @GreaterThanEqualTo("0")
+                    Double timeoutSeconds) {
+
+        ConversionJobs.Job<?> job = GetConversionStatus.job(jobId);
+        long timeoutMillis = (timeoutSeconds == null) ? 0 : Math.round(timeoutSeconds * 1000);
+
+        boolean finished;
+        try {
+            finished = job.await(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BotCommandException("Interrupted while waiting for conversion job " + job.getId());
+        }
+
+        //The job keeps running after a timeout, so the bot can wait again or cancel it
+        if (!finished) {
+            throw new BotCommandException("Conversion job " + job.getId() + " did not finish within " + timeoutSeconds + " seconds");
+        }
+        if (ConversionJobs.FAILED.equals(job.getStatus())) {
+            throw new BotCommandException(job.getError());
+        }
+        if (ConversionJobs.CANCELLED.equals(job.getStatus())) {
+            throw new BotCommandException("Conversion job " + job.getId() + " was cancelled");
+        }
+
+        //Return DictionaryValue.
+        return GetConversionStatus.describe(job);
+    }
+}
@@ -0,0 +1,82 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionJobs;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.annotations.rules.GreaterThanEqualTo;
+import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "WaitForConversions", label = "[[WaitForConversions.label]]",
+        node_label = "[[WaitForConversions.node_label]]", description = "[[WaitForConversions.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[WaitForConversions.return_label]]", return_type = DataType.DICTIONARY, return_required = true, return_description = "[[WaitForConversions.return_description]]")
+public class WaitForConversions {
+    //Identify the entry point for the action. Returns a Value<Map> because the return type is Dictionary.
+    @Execute
+    public Value<Map<String, Value>> action(
+            //Ids returned by StartConversion
+            @Idx(index = "1", type = LIST)
+            @Pkg(label = "[[WaitForConversions.jobIds.label]]", description = "[[WaitForConversions.jobIds.description]]")
+            @NotEmpty
+                    List<Value> jobIds,
+
+            //Optional limit on the wait for all jobs together, no limit if empty
+            @Idx(index = "2", type = NUMBER)
+            @Pkg(label = "[[WaitForConversions.timeoutSeconds.label]]", description = "[[WaitForConversions.timeoutSeconds.description]]")
+            @GreaterThanEqualTo("0")
+                    Double timeoutSeconds) {
+
+        List<String> ids = new ArrayList<>();
+        for (Value id : jobIds) {
+            if (id != null && id.get() != null && !id.get().toString().trim().isEmpty()) {
+                ids.add(id.get().toString().trim());
+            }
+        }
+        long timeoutMillis = (timeoutSeconds == null) ? 0 : Math.round(timeoutSeconds * 1000);
+
+        Map<String, ConversionJobs.Job<?>> jobs;
+        try {
+            jobs = ConversionJobs.getShared().awaitAll(ids, timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BotCommandException("Interrupted while waiting for conversion jobs");
+        }
+
+        //Like BatchConvert a failed job does not fail the action, every job is reported with its status.
+        //Jobs still running after the timeout keep running.
+        Map<String, Value> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            ConversionJobs.Job<?> job = jobs.get(id);
+            if (job != null) {
+                result.put(id, GetConversionStatus.describe(job));
+            } else {
+                Map<String, Value> unknown = new LinkedHashMap<>();
+                unknown.put("jobId", new StringValue(id));
+                unknown.put("status", new StringValue("unknown"));
+                result.put(id, new DictionaryValue(unknown));
+            }
+        }
+
+        //Return DictionaryValue.
+        return new DictionaryValue(result);
+    }
+}
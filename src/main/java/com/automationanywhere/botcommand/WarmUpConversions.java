@@ -0,0 +1,70 @@
+package com.automationanywhere.botcommand;
+
+import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.commandsdk.annotations.*;
+import com.automationanywhere.commandsdk.annotations.BotCommand;
+import com.automationanywhere.commandsdk.model.DataType;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static com.automationanywhere.commandsdk.model.AttributeType.*;
+import static com.automationanywhere.commandsdk.model.DataType.BOOLEAN;
+
+//BotCommand makes a class eligible for being considered as an action.
+@BotCommand
+
+//CommandPks adds required information to be displayable on GUI.
+@CommandPkg(
+        //Unique name inside a package and label to display.
+        name = "WarmUpConversions", label = "[[WarmUpConversions.label]]",
+        node_label = "[[WarmUpConversions.node_label]]", description = "[[WarmUpConversions.description]]", icon = "pkg.svg",
+
+        //Return type information. return_type ensures only the right kind of variable is provided on the UI.
+        return_label = "[[WarmUpConversions.return_label]]", return_type = DataType.DICTIONARY, return_required = false, return_description = "[[WarmUpConversions.return_description]]")
+public class WarmUpConversions {
+    //Identify the entry point for the action. Returns a Value<Map> because the return type is Dictionary.
+    @Execute
+    public Value<Map<String, Value>> action(
+            //Optional folder for PDFBox's font cache
+            @Idx(index = "1", type = TEXT)
+            @Pkg(label = "[[WarmUpConversions.fontCacheFolder.label]]", description = "[[WarmUpConversions.fontCacheFolder.description]]")
+                    String fontCacheFolder,
+
+            //Wait for the warm-up or let the bot carry on while it runs
+            @Idx(index = "2", type = CHECKBOX)
+            @Pkg(label = "[[WarmUpConversions.wait.label]]", description = "[[WarmUpConversions.wait.description]]", default_value = "true", default_value_type = BOOLEAN)
+                    Boolean wait) {
+
+        //Business logic
+        try{
+            Path folder = WarmUp.useFontCacheFolder((fontCacheFolder == null || fontCacheFolder.trim().isEmpty()) ? null : Paths.get(fontCacheFolder.trim()));
+            Future<Map<String, Long>> warmUp = WarmUp.start();
+
+            Map<String, Value> result = new LinkedHashMap<>();
+            result.put("fontCacheFolder", new StringValue(folder.toString()));
+            if (Boolean.FALSE.equals(wait) && !warmUp.isDone()) {
+                result.put("status", new StringValue("running"));
+            } else {
+                //Milliseconds per step, taken from the earlier run when the package was already warmed up
+                for (Map.Entry<String, Long> step : warmUp.get().entrySet()) {
+                    result.put(step.getKey() + "Ms", new NumberValue(step.getValue()));
+                }
+                result.put("status", new StringValue("done"));
+            }
+
+            //Return DictionaryValue.
+            return new DictionaryValue(result);
+        } catch (Exception e) {
+            throw new BotCommandException("Error occurred while warming up the conversions. Error code: " + e.toString());
+        }
+    }
+}
@@ -3,22 +3,28 @@ package com.automationanywhere.botcommand;
 import com.automationanywhere.botcommand.data.Value;
 import com.automationanywhere.botcommand.data.impl.StringValue;
 import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.WarmUp;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.ConverterPool;
+import com.automationanywhere.botcommand.utils.XlsxCsvExporter;
 import com.automationanywhere.commandsdk.annotations.*;
 import com.automationanywhere.commandsdk.annotations.BotCommand;
 import com.automationanywhere.commandsdk.annotations.rules.FileExtension;
 import com.automationanywhere.commandsdk.annotations.rules.NotEmpty;
 import com.documents4j.api.DocumentType;
-import com.documents4j.api.IConverter;
-import com.documents4j.job.LocalConverter;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.Future;
+import java.util.List;
 
+import static com.automationanywhere.commandsdk.model.AttributeType.CHECKBOX;
 import static com.automationanywhere.commandsdk.model.AttributeType.FILE;
+import static com.automationanywhere.commandsdk.model.AttributeType.SELECT;
 import static com.automationanywhere.commandsdk.model.AttributeType.TEXT;
+import static com.automationanywhere.commandsdk.model.DataType.BOOLEAN;
 import static com.automationanywhere.commandsdk.model.DataType.STRING;
 
 //BotCommand makes a class eligible for being considered as an action.
@@ -49,7 +55,25 @@ public class XLSXtoCSV {
             //Set Optional Export Dir
             @Idx(index = "2", type = TEXT)
             @Pkg(label = "[[XLSXtoCSV.outputLocation.label]]", description = "[[XLSXtoCSV.outputLocation.description]]")
-                    String outputPath) {
+                    String outputPath,
+
+            //Optional sheet to export, first sheet if empty
+            @Idx(index = "3", type = TEXT)
+            @Pkg(label = "[[XLSXtoCSV.sheetName.label]]", description = "[[XLSXtoCSV.sheetName.description]]")
+                    String sheetName,
+
+            //Export every sheet to its own CSV
+            @Idx(index = "4", type = CHECKBOX)
+            @Pkg(label = "[[XLSXtoCSV.allSheets.label]]", description = "[[XLSXtoCSV.allSheets.description]]", default_value = "false", default_value_type = BOOLEAN)
+                    Boolean allSheets,
+
+            //Select Dropdown for Conversion Engine
+            @Idx(index = "5", type = SELECT, options = {
+                    @Idx.Option(index = "5.1", pkg = @Pkg(label = "Native (no Office required)", value = "native")),
+                    @Idx.Option(index = "5.2", pkg = @Pkg(label = "Microsoft Excel", value = "office"))
+            })
+            @Pkg(label = "[[XLSXtoCSV.conversionMethod.label]]", description = "[[XLSXtoCSV.conversionMethod.description]]", default_value = "native", default_value_type = STRING)
+                    String conversionMethod) {
 
         //Internal validation, to disallow empty strings. No null check needed as we have NotEmpty on firstString.
         if ("".equals(inputFile.trim()))
@@ -59,6 +83,21 @@ public class XLSXtoCSV {
             throw new BotCommandException("Please select a supported file to continue");
         }
 
+        //Without an engine Excel keeps converting, so existing bots keep their output
+        String engine = (conversionMethod == null || conversionMethod.trim().isEmpty()) ? "office" : conversionMethod.trim().toLowerCase();
+        if (!engine.equals("office") && !engine.equals("native")) {
+            throw new BotCommandException("Unknown conversion engine: " + conversionMethod);
+        }
+        //Excel always saves the active sheet
+        if (engine.equals("office") && ((sheetName != null && !sheetName.trim().isEmpty()) || Boolean.TRUE.equals(allSheets))) {
+            throw new BotCommandException("Sheet name and Export all sheets need the native conversion engine.");
+        }
+
+        //The first conversion of a bot run starts the warm-up for the ones after it
+        WarmUp.startInBackground();
+        //Timings and sizes for GetConversionMetrics and the metrics log
+        ConversionMetrics metrics = ConversionMetrics.start("XLSXtoCSV", inputFile);
+
         //Business logic
         try{
             //Get file name to add to custom path
@@ -86,22 +125,52 @@ public class XLSXtoCSV {
             //Create file directories if they dont already exist
             Files.createDirectories(Paths.get(outputPath));
 
-            //Set full path with file name
-            outputPath = outputPath + fileNameWithoutExt + ".csv";
-
-            //Convert to PDF
-            File in = new File(inputFile), target = new File(outputPath);
-            IConverter converter = LocalConverter.make();
-            Future<Boolean> conversion = converter
-                    .convert(in).as(DocumentType.XLSX)
-                    .to(target).as(DocumentType.CSV)
-                    .schedule();
+            //Reuse the result of an earlier conversion of the same file with the same options
+            ResultCache.Lookup cached = ResultCache.lookup(metrics, "XLSXtoCSV", inputFile, outputPath, fileNameWithoutExt, sheetName, String.valueOf(Boolean.TRUE.equals(allSheets)), engine);
+            if (cached.isHit()) {
+                metrics.finish();
+                return new StringValue(cached.getOutputs().get(0));
+            }
 
-            converter.shutDown();
+            if (engine.equals("office")) {
+                //Set full path with file name
+                outputPath = outputPath + fileNameWithoutExt + ".csv";
+
+                //Convert to CSV on a pooled Excel converter
+                File in = new File(inputFile), target = new File(outputPath);
+                metrics.run(ConversionMetrics.CONVERT, () -> ConverterPool.getShared().convert(in, DocumentType.XLSX, target, DocumentType.CSV));
+                metrics.output(outputPath);
+                cached.store(outputPath);
+            } else if (Boolean.TRUE.equals(allSheets)) {
+                //One CSV per sheet, the first one is returned
+                String csvPathPrefix = outputPath + fileNameWithoutExt;
+                XlsxCsvExporter exporter = new XlsxCsvExporter(new File(inputFile));
+                //Sheets are parsed and written in one streaming pass
+                List<String> csvPaths = metrics.time(ConversionMetrics.CONVERT, () -> exporter.exportAllSheets(csvPathPrefix));
+                metrics.count("sheets", csvPaths.size());
+                metrics.count("rows", exporter.getRowCount());
+                csvPaths.forEach(metrics::output);
+                cached.store(csvPaths);
+                outputPath = csvPaths.isEmpty() ? outputPath : csvPaths.get(0);
+            } else {
+                //Set full path with file name
+                outputPath = outputPath + fileNameWithoutExt + ".csv";
+
+                //Convert to CSV with the POI streaming reader
+                String csvPath = outputPath;
+                XlsxCsvExporter exporter = new XlsxCsvExporter(new File(inputFile));
+                metrics.run(ConversionMetrics.CONVERT, () -> exporter.exportSheet(sheetName, csvPath));
+                metrics.count("sheets", 1);
+                metrics.count("rows", exporter.getRowCount());
+                metrics.output(csvPath);
+                cached.store(csvPath);
+            }
 
         } catch (Exception e) {
+            metrics.fail(e);
             throw new BotCommandException("Error occurred during file conversion. Error code: " + e.toString());
         }
+        metrics.finish();
 
         //Return StringValue.
         return new StringValue(outputPath);
@@ -0,0 +1,68 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Runs one conversion per input on a fixed pool of threads.
+//A failing input is recorded with its error and does not stop the rest of the batch.
+public class BatchRunner<R> {
+
+    public interface Conversion<R> {
+        R convert(String inputFile) throws Exception;
+    }
+
+    private final int threadCount;
+
+    public BatchRunner(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    //Results and errors are both keyed by input, in input order
+    public static class Result<R> {
+        private final Map<String, R> outputs = new LinkedHashMap<>();
+        private final Map<String, String> errors = new LinkedHashMap<>();
+
+        public Map<String, R> getOutputs() {
+            return outputs;
+        }
+
+        public Map<String, String> getErrors() {
+            return errors;
+        }
+    }
+
+    public Result<R> run(List<String> inputs, Conversion<R> conversion) throws InterruptedException {
+        Result<R> result = new Result<>();
+        if (inputs.isEmpty()) {
+            return result;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threadCount, inputs.size()), r -> {
+            Thread t = new Thread(r, "batch-conversion-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<R>> futures = new ArrayList<>();
+            for (String input : inputs) {
+                futures.add(pool.submit(() -> conversion.convert(input)));
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                try {
+                    result.outputs.put(inputs.get(i), futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    result.errors.put(inputs.get(i), cause.getMessage() == null ? cause.toString() : cause.getMessage());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,272 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.stream.IntStream;
+
+//Converts images to black and white for OCR and fax-style output.
+//"fixed" cuts at mid-gray like the original Black and White option, "otsu" picks the cut that best separates the
+//image's dark and light pixels, and "adaptive" picks a cut per tile so shadows and uneven lighting on scans do not
+//turn whole regions black. The image is processed in row bands on all cores, from the raster samples straight into
+//the packed 1-bit raster of the output, without Java2D colour conversion.
+public class Binarizer {
+
+    public static final String FIXED = "fixed";
+    public static final String OTSU = "otsu";
+    public static final String ADAPTIVE = "adaptive";
+
+    static final int FIXED_THRESHOLD = 128;
+    //Adaptive tiles are squares of this many pixels, thresholds are interpolated between tile centres
+    static final int TILE_SIZE = 64;
+    //A pixel is black when it is this much darker than the mean of its tile
+    private static final int ADAPTIVE_OFFSET = 12;
+    //Tiles with less contrast than this are plain background or plain ink, they take the threshold of the tiles around them
+    private static final int MIN_TILE_CONTRAST = 40;
+    private static final int MIN_BAND_ROWS = 32;
+
+    private Binarizer() {
+    }
+
+    //The method's constant, FIXED for null or empty so existing bots keep their output
+    public static String method(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return FIXED;
+        }
+        String method = name.trim().toLowerCase();
+        if (!method.equals(FIXED) && !method.equals(OTSU) && !method.equals(ADAPTIVE)) {
+            throw new IllegalArgumentException("Unknown binarization method: " + name);
+        }
+        return method;
+    }
+
+    //Black and white copy of the image. Images that already are black and white are returned as they are.
+    public static BufferedImage binarize(BufferedImage source, String method) {
+        if (ColorConverter.isBinary(source)) {
+            return source;
+        }
+        String name = method(method);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        byte[] luma = luma(source);
+        BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] bits = ((DataBufferByte) output.getRaster().getDataBuffer()).getData();
+        if (name.equals(ADAPTIVE)) {
+            int global = otsu(histogram(luma, width, height));
+            writeAdaptive(luma, width, height, global, bits);
+        } else {
+            int threshold = name.equals(OTSU) ? otsu(histogram(luma, width, height)) : FIXED_THRESHOLD;
+            bands(height).forEach(band -> {
+                int[] rows = rows(band, height);
+                for (int y = rows[0]; y < rows[1]; y++) {
+                    writeRow(luma, width, y, bits, x -> threshold);
+                }
+            });
+        }
+        return output;
+    }
+
+    //0-255 brightness of every pixel, one byte each, read in parallel bands
+    static byte[] luma(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        byte[] luma = new byte[width * height];
+        bands(height).forEach(band -> {
+            int[] rows = rows(band, height);
+            int[] row = new int[width];
+            int[] values = new int[width];
+            for (int y = rows[0]; y < rows[1]; y++) {
+                ColorConverter.readLuma(source, y, row, values);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    luma[offset + x] = (byte) values[x];
+                }
+            }
+        });
+        return luma;
+    }
+
+    //Brightness histogram, counted per band and merged
+    static long[] histogram(byte[] luma, int width, int height) {
+        return bands(height).mapToObj(band -> {
+            int[] rows = rows(band, height);
+            long[] counts = new long[256];
+            for (int i = rows[0] * width; i < rows[1] * width; i++) {
+                counts[luma[i] & 0xFF]++;
+            }
+            return counts;
+        }).reduce(new long[256], (a, b) -> {
+            long[] sum = new long[256];
+            for (int i = 0; i < 256; i++) {
+                sum[i] = a[i] + b[i];
+            }
+            return sum;
+        });
+    }
+
+    //Otsu's threshold: the cut that maximises the variance between the dark and the light class.
+    //Pixels at or above the returned value are white.
+    public static int otsu(long[] histogram) {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < 256; i++) {
+            total += histogram[i];
+            sum += (double) i * histogram[i];
+        }
+        if (total == 0) {
+            return FIXED_THRESHOLD;
+        }
+        long dark = 0;
+        double darkSum = 0;
+        double best = -1;
+        int threshold = FIXED_THRESHOLD;
+        for (int cut = 0; cut < 255; cut++) {
+            dark += histogram[cut];
+            if (dark == 0) {
+                continue;
+            }
+            long light = total - dark;
+            if (light == 0) {
+                break;
+            }
+            darkSum += (double) cut * histogram[cut];
+            double darkMean = darkSum / dark;
+            double lightMean = (sum - darkSum) / light;
+            double between = (double) dark * light * (darkMean - lightMean) * (darkMean - lightMean);
+            if (between > best) {
+                best = between;
+                threshold = cut + 1;
+            }
+        }
+        return threshold;
+    }
+
+    //Threshold per tile from its mean, interpolated bilinearly between tile centres
+    private static void writeAdaptive(byte[] luma, int width, int height, int global, byte[] bits) {
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        int[] thresholds = new int[tilesX * tilesY];
+        IntStream.range(0, tilesY).parallel().forEach(ty -> {
+            for (int tx = 0; tx < tilesX; tx++) {
+                thresholds[ty * tilesX + tx] = tileThreshold(luma, width, height, tx, ty);
+            }
+        });
+        fillFlatTiles(thresholds, tilesX, tilesY, global);
+        bands(height).forEach(band -> {
+            int[] rows = rows(band, height);
+            for (int y = rows[0]; y < rows[1]; y++) {
+                //Position between the centres of the tile rows above and below
+                float fy = Math.max(0, Math.min(tilesY - 1, (y - TILE_SIZE / 2f) / TILE_SIZE));
+                int ty0 = (int) fy;
+                int ty1 = Math.min(tilesY - 1, ty0 + 1);
+                float wy = fy - ty0;
+                writeRow(luma, width, y, bits, x -> {
+                    float fx = Math.max(0, Math.min(tilesX - 1, (x - TILE_SIZE / 2f) / TILE_SIZE));
+                    int tx0 = (int) fx;
+                    int tx1 = Math.min(tilesX - 1, tx0 + 1);
+                    float wx = fx - tx0;
+                    float top = thresholds[ty0 * tilesX + tx0] * (1 - wx) + thresholds[ty0 * tilesX + tx1] * wx;
+                    float bottom = thresholds[ty1 * tilesX + tx0] * (1 - wx) + thresholds[ty1 * tilesX + tx1] * wx;
+                    return Math.round(top * (1 - wy) + bottom * wy);
+                });
+            }
+        });
+    }
+
+    //Mean of the tile less the offset, -1 for a flat tile
+    private static int tileThreshold(byte[] luma, int width, int height, int tx, int ty) {
+        int x0 = tx * TILE_SIZE;
+        int y0 = ty * TILE_SIZE;
+        int x1 = Math.min(width, x0 + TILE_SIZE);
+        int y1 = Math.min(height, y0 + TILE_SIZE);
+        long sum = 0;
+        int min = 255;
+        int max = 0;
+        for (int y = y0; y < y1; y++) {
+            int offset = y * width;
+            for (int x = x0; x < x1; x++) {
+                int value = luma[offset + x] & 0xFF;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        if (max - min < MIN_TILE_CONTRAST) {
+            return -1;
+        }
+        int mean = (int) (sum / ((long) (x1 - x0) * (y1 - y0)));
+        return Math.max(1, mean - ADAPTIVE_OFFSET);
+    }
+
+    //Flat tiles get the average threshold of their neighbours, spreading outwards from the tiles with content,
+    //so a plain background follows the lighting around it. Without any such tile the global threshold is used.
+    private static void fillFlatTiles(int[] thresholds, int tilesX, int tilesY, int global) {
+        boolean missing = true;
+        boolean changed = true;
+        while (missing && changed) {
+            missing = false;
+            changed = false;
+            int[] previous = thresholds.clone();
+            for (int ty = 0; ty < tilesY; ty++) {
+                for (int tx = 0; tx < tilesX; tx++) {
+                    if (previous[ty * tilesX + tx] >= 0) {
+                        continue;
+                    }
+                    int sum = 0;
+                    int count = 0;
+                    for (int ny = Math.max(0, ty - 1); ny <= Math.min(tilesY - 1, ty + 1); ny++) {
+                        for (int nx = Math.max(0, tx - 1); nx <= Math.min(tilesX - 1, tx + 1); nx++) {
+                            int neighbour = previous[ny * tilesX + nx];
+                            if (neighbour >= 0) {
+                                sum += neighbour;
+                                count++;
+                            }
+                        }
+                    }
+                    if (count > 0) {
+                        thresholds[ty * tilesX + tx] = sum / count;
+                        changed = true;
+                    } else {
+                        missing = true;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < thresholds.length; i++) {
+            if (thresholds[i] < 0) {
+                thresholds[i] = global;
+            }
+        }
+    }
+
+    private interface Threshold {
+        int at(int x);
+    }
+
+    //Rows of a packed 1-bit raster start on a byte boundary, so bands never share a byte
+    private static void writeRow(byte[] luma, int width, int y, byte[] bits, Threshold threshold) {
+        int stride = (width + 7) / 8;
+        int offset = y * width;
+        int out = y * stride;
+        for (int x = 0; x < width; x++) {
+            if ((luma[offset + x] & 0xFF) >= threshold.at(x)) {
+                bits[out + (x >> 3)] |= (byte) (0x80 >> (x & 7));
+            }
+        }
+    }
+
+    private static int bandRows(int height) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(MIN_BAND_ROWS, (height + cores * 2 - 1) / (cores * 2));
+    }
+
+    private static IntStream bands(int height) {
+        int count = (height + bandRows(height) - 1) / bandRows(height);
+        return IntStream.range(0, count).parallel();
+    }
+
+    //First row and the row after the last of a band
+    private static int[] rows(int band, int height) {
+        int size = bandRows(height);
+        return new int[]{band * size, Math.min(height, (band + 1) * size)};
+    }
+}
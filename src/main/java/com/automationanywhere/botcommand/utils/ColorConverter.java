@@ -0,0 +1,165 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+
+//Converts images to the colour formats offered by the actions ("color", "grayscale", "blackandwhite").
+//Images already in the requested format are returned as they are, so only the container format changes.
+//Other images are converted row by row straight into the raster of the output image instead of being
+//redrawn with Graphics2D. Gray images keep their gray values in colour, and transparent pixels are flattened onto
+//white, the same as the old drawImage path.
+public class ColorConverter {
+
+    public static final String COLOR = "color";
+    public static final String GRAYSCALE = "grayscale";
+    public static final String BLACK_AND_WHITE = "blackandwhite";
+
+    private ColorConverter() {
+    }
+
+    public static BufferedImage convert(BufferedImage source, String colorFormat) {
+        return convert(source, colorFormat, Binarizer.FIXED);
+    }
+
+    //Black and white output uses the Binarizer method (fixed, otsu or adaptive)
+    public static BufferedImage convert(BufferedImage source, String colorFormat, String binarization) {
+        if (matches(source, colorFormat)) {
+            return source;
+        }
+        if (COLOR.equals(colorFormat)) {
+            return toRgb(source);
+        } else if (GRAYSCALE.equals(colorFormat)) {
+            return toGray(source);
+        }
+        return Binarizer.binarize(source, binarization);
+    }
+
+    //True when the image can be written as-is for the requested colour format
+    public static boolean matches(BufferedImage image, String colorFormat) {
+        ColorModel cm = image.getColorModel();
+        if (cm.hasAlpha()) {
+            return false;
+        }
+        if (COLOR.equals(colorFormat)) {
+            int type = image.getType();
+            return type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_INT_BGR;
+        } else if (GRAYSCALE.equals(colorFormat)) {
+            return image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        }
+        return isBinary(image);
+    }
+
+    //1-bit image whose two palette entries are black and white
+    public static boolean isBinary(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_BYTE_BINARY || !(image.getColorModel() instanceof IndexColorModel)) {
+            return false;
+        }
+        IndexColorModel icm = (IndexColorModel) image.getColorModel();
+        return icm.getMapSize() == 2 && icm.getPixelSize() == 1
+                && (icm.getRGB(0) & 0xFFFFFF) == 0x000000 && (icm.getRGB(1) & 0xFFFFFF) == 0xFFFFFF;
+    }
+
+    public static BufferedImage toRgb(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] out = ((DataBufferInt) output.getRaster().getDataBuffer()).getData();
+        int[] row = new int[width];
+        if (isGrayNoAlpha(source)) {
+            //Each gray sample goes into R, G and B as it is, getRGB would lighten it with an sRGB conversion
+            int[] luma = new int[width];
+            for (int y = 0; y < height; y++) {
+                readLuma(source, y, row, luma);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    out[offset + x] = luma[x] * 0x010101;
+                }
+            }
+            return output;
+        }
+        boolean alpha = source.getColorModel().hasAlpha();
+        for (int y = 0; y < height; y++) {
+            source.getRGB(0, y, width, 1, row, 0, width);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                out[offset + x] = alpha ? flatten(row[x]) : row[x] & 0xFFFFFF;
+            }
+        }
+        return output;
+    }
+
+    public static BufferedImage toGray(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] out = ((DataBufferByte) output.getRaster().getDataBuffer()).getData();
+        int[] row = new int[width];
+        int[] luma = new int[width];
+        for (int y = 0; y < height; y++) {
+            readLuma(source, y, row, luma);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                out[offset + x] = (byte) luma[x];
+            }
+        }
+        return output;
+    }
+
+    //Black and white at the fixed mid-gray threshold
+    public static BufferedImage toBinary(BufferedImage source) {
+        return Binarizer.binarize(source, Binarizer.FIXED);
+    }
+
+    //Fills luma with the 0-255 brightness of row y, row is scratch space of the same width.
+    //Gray images are read from their samples so the gray values are not run through an sRGB conversion.
+    public static void readLuma(BufferedImage source, int y, int[] row, int[] luma) {
+        int width = source.getWidth();
+        if (isGrayNoAlpha(source)) {
+            int shift = source.getColorModel().getComponentSize(0) - 8;
+            source.getRaster().getSamples(0, y, width, 1, 0, luma);
+            if (shift > 0) {
+                for (int x = 0; x < width; x++) {
+                    luma[x] >>= shift;
+                }
+            }
+            return;
+        }
+        source.getRGB(0, y, width, 1, row, 0, width);
+        for (int x = 0; x < width; x++) {
+            luma[x] = luminance(row[x]);
+        }
+    }
+
+    //Rec. 601 luma of an ARGB pixel flattened onto white, 0-255
+    static int luminance(int argb) {
+        int rgb = (argb >>> 24) == 0xFF ? argb : flatten(argb);
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        return (r * 77 + g * 150 + b * 29) >> 8;
+    }
+
+    //Blends an ARGB pixel onto a white background
+    private static int flatten(int argb) {
+        int a = argb >>> 24;
+        if (a == 0xFF) {
+            return argb & 0xFFFFFF;
+        }
+        int inv = 255 - a;
+        int r = (((argb >> 16) & 0xFF) * a + 255 * inv) / 255;
+        int g = (((argb >> 8) & 0xFF) * a + 255 * inv) / 255;
+        int b = ((argb & 0xFF) * a + 255 * inv) / 255;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private static boolean isGrayNoAlpha(BufferedImage image) {
+        ColorModel cm = image.getColorModel();
+        return !cm.hasAlpha() && !(cm instanceof IndexColorModel)
+                && cm.getColorSpace().getType() == ColorSpace.TYPE_GRAY
+                && image.getRaster().getNumBands() == 1 && cm.getComponentSize(0) >= 8;
+    }
+}
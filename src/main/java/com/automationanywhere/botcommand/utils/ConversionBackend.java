@@ -0,0 +1,19 @@
+package com.automationanywhere.botcommand.utils;
+
+import com.documents4j.api.DocumentType;
+
+import java.io.File;
+import java.util.concurrent.Future;
+
+//A document converter that can be kept warm in the ConverterPool.
+//Documents4jBackend drives Microsoft Office, other implementations can stand in for it where Office is not installed.
+public interface ConversionBackend {
+
+    //Starts converting source into target, the future completes with false if the conversion failed
+    Future<Boolean> schedule(File source, DocumentType sourceType, File target, DocumentType targetType);
+
+    //False once the backend can no longer convert and has to be replaced
+    boolean isOperational();
+
+    void shutDown();
+}
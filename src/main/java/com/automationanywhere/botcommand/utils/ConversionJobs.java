@@ -0,0 +1,239 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//Runs conversions in the background so a bot can carry on with other steps and collect the result later.
+//Every job gets an id that the wait, status and cancel actions look up. Finished jobs are kept for the retention time
+//so their result can still be collected, then they are forgotten.
+public class ConversionJobs {
+
+    public static final String QUEUED = "queued";
+    public static final String RUNNING = "running";
+    public static final String SUCCEEDED = "succeeded";
+    public static final String FAILED = "failed";
+    public static final String CANCELLED = "cancelled";
+
+    public static final long DEFAULT_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static ConversionJobs shared;
+
+    private final ExecutorService executor;
+    private final long retentionMillis;
+    private final Map<String, Job<?>> jobs = new ConcurrentHashMap<>();
+
+    public ConversionJobs(int threadCount, long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threadCount), r -> {
+            Thread t = new Thread(r, "conversion-job-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    //Jobs shared by every action in the package, as many at a time as there are processors
+    public static synchronized ConversionJobs getShared() {
+        if (shared == null) {
+            shared = new ConversionJobs(Runtime.getRuntime().availableProcessors(), DEFAULT_RETENTION_MILLIS);
+        }
+        return shared;
+    }
+
+    //Replaces the shared jobs. Jobs of the previous instance are cancelled.
+    public static synchronized void setShared(ConversionJobs jobs) {
+        if (shared != null && shared != jobs) {
+            shared.shutDown();
+        }
+        shared = jobs;
+    }
+
+    //A background conversion and its outcome
+    public static class Job<R> {
+        private final String id;
+        private final String description;
+        private final long submittedMillis = System.currentTimeMillis();
+        private final FutureTask<R> future;
+        private volatile String status = QUEUED;
+        private volatile R result;
+        private volatile String error;
+        private volatile long finishedMillis;
+
+        Job(String id, String description, Callable<R> conversion) {
+            this.id = id;
+            this.description = description;
+            this.future = new FutureTask<>(() -> run(conversion));
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        //What is being converted, such as "PDFtoImage C:\in\report.pdf"
+        public String getDescription() {
+            return description;
+        }
+
+        public String getStatus() {
+            //Cancelled the moment cancel returns, even if the worker has not noticed yet
+            return future.isCancelled() ? CANCELLED : status;
+        }
+
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        //Output of a succeeded job, otherwise null
+        public R getResult() {
+            return result;
+        }
+
+        //Message of a failed job, otherwise null
+        public String getError() {
+            return error;
+        }
+
+        public long getSubmittedMillis() {
+            return submittedMillis;
+        }
+
+        //0 while the job has not finished
+        public long getFinishedMillis() {
+            return finishedMillis;
+        }
+
+        //Waits up to timeoutMillis for the job to finish, 0 or less waits as long as it takes.
+        //Returns false when the job is still queued or running after the timeout.
+        public boolean await(long timeoutMillis) throws InterruptedException {
+            try {
+                if (timeoutMillis > 0) {
+                    future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    future.get();
+                }
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException | CancellationException e) {
+                //Recorded by the job itself
+            }
+            return true;
+        }
+
+        //Stops the job, interrupting it if it has started. Returns false when it had already finished.
+        public boolean cancel() {
+            boolean cancelled = future.cancel(true);
+            if (cancelled) {
+                finish(CANCELLED, null, null);
+            }
+            return cancelled;
+        }
+
+        private R run(Callable<R> conversion) throws Exception {
+            status = RUNNING;
+            try {
+                R output = conversion.call();
+                finish(future.isCancelled() ? CANCELLED : SUCCEEDED, output, null);
+                return output;
+            } catch (Exception | Error e) {
+                finish(future.isCancelled() ? CANCELLED : FAILED, null, e.getMessage() == null ? e.toString() : e.getMessage());
+                throw e;
+            }
+        }
+
+        private synchronized void finish(String finalStatus, R output, String message) {
+            //A cancelled job stays cancelled even if the conversion ended after the interrupt
+            if (finishedMillis != 0) {
+                return;
+            }
+            result = output;
+            error = message;
+            status = finalStatus;
+            finishedMillis = System.currentTimeMillis();
+        }
+    }
+
+    //Queues the conversion and returns its job straight away
+    public <R> Job<R> submit(String description, Callable<R> conversion) {
+        purgeExpired();
+        Job<R> job = new Job<>(UUID.randomUUID().toString(), description, conversion);
+        //Registered before it can run, so a job that finishes at once can still be looked up
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(job.future);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new IllegalStateException("Conversion jobs have been shut down", e);
+        }
+        return job;
+    }
+
+    //Job with the id, null when it is unknown or has expired
+    public Job<?> get(String id) {
+        return id == null ? null : jobs.get(id.trim());
+    }
+
+    //Waits until every job has finished or the timeout has passed, 0 or less waits as long as it takes.
+    //Jobs that are unknown are left out of the result, jobs still running are returned with their current status.
+    public Map<String, Job<?>> awaitAll(Collection<String> ids, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Map<String, Job<?>> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            Job<?> job = get(id);
+            if (job == null) {
+                continue;
+            }
+            result.put(job.getId(), job);
+            if (timeoutMillis <= 0) {
+                job.await(0);
+            } else {
+                long remaining = deadline - System.currentTimeMillis();
+                //Once the time is up, still collect the jobs that have finished
+                if (remaining > 0) {
+                    job.await(remaining);
+                }
+            }
+        }
+        return result;
+    }
+
+    //Every job that is still known, oldest first
+    public List<Job<?>> list() {
+        List<Job<?>> all = new ArrayList<>(jobs.values());
+        all.sort((a, b) -> Long.compare(a.getSubmittedMillis(), b.getSubmittedMillis()));
+        return all;
+    }
+
+    //Forgets jobs that finished longer ago than the retention time
+    private void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        Iterator<Job<?>> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Job<?> job = iterator.next();
+            if (job.getFinishedMillis() != 0 && job.getFinishedMillis() < cutoff) {
+                iterator.remove();
+            }
+        }
+    }
+
+    //Cancels every job that has not finished and stops the workers
+    public void shutDown() {
+        for (Job<?> job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,273 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Collects what one conversion spent its time on: per-phase timings, pages/rows/slides processed,
+//input and output bytes and the largest image held in memory.
+//When the conversion finishes the record is kept as the latest one for its action (see GetConversionMetrics)
+//and appended as a JSON line to the metrics log, so latency histograms can be built across runs.
+//Phases timed on several worker threads add up, so they can exceed the total time of the conversion.
+public class ConversionMetrics {
+
+    //Common phase names, converters may add their own
+    public static final String LOAD = "load";
+    public static final String RENDER = "render";
+    public static final String ENCODE = "encode";
+    public static final String WRITE = "write";
+    //Single-pass conversions that cannot be split further, such as Office or a streaming reader that writes as it parses
+    public static final String CONVERT = "convert";
+
+    //System property with the metrics log file, an empty value turns the log off
+    public static final String LOG_PROPERTY = "fileconversion.metrics.log";
+    //The log is moved to <log>.1 once it grows past this size
+    static final long MAX_LOG_BYTES = 10L * 1024 * 1024;
+
+    private static final Map<String, Map<String, Object>> LATEST = new ConcurrentHashMap<>();
+    private static volatile Map<String, Object> latest;
+    private static volatile Path logFile = defaultLogFile();
+    private static final Object LOG_LOCK = new Object();
+
+    public interface Phase<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    public interface VoidPhase<E extends Exception> {
+        void run() throws E;
+    }
+
+    private final String action;
+    private final String inputFile;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final List<String> outputs = new ArrayList<>();
+    private long peakPixels;
+    private int peakWidth;
+    private int peakHeight;
+    private boolean finished;
+
+    private ConversionMetrics(String action, String inputFile) {
+        this.action = action;
+        this.inputFile = inputFile;
+    }
+
+    public static ConversionMetrics start(String action, String inputFile) {
+        return new ConversionMetrics(action, inputFile);
+    }
+
+    //Times work that returns a value
+    public <T, E extends Exception> T time(String phase, Phase<T, E> work) throws E {
+        long start = System.nanoTime();
+        try {
+            return work.run();
+        } finally {
+            addTime(phase, System.nanoTime() - start);
+        }
+    }
+
+    //Times work that returns nothing
+    public <E extends Exception> void run(String phase, VoidPhase<E> work) throws E {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            addTime(phase, System.nanoTime() - start);
+        }
+    }
+
+    public synchronized void addTime(String phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    //Units processed, e.g. count("pages", 1) per page or count("rows", total) once
+    public synchronized void count(String unit, long amount) {
+        counts.merge(unit, amount, Long::sum);
+    }
+
+    //Records the size of an image held in memory, the largest one is reported
+    public synchronized void image(int width, int height) {
+        long pixels = (long) width * height;
+        if (pixels > peakPixels) {
+            peakPixels = pixels;
+            peakWidth = width;
+            peakHeight = height;
+        }
+    }
+
+    //A file produced by the conversion, counted in the output bytes
+    public synchronized void output(String path) {
+        outputs.add(path);
+    }
+
+    public void finish() {
+        complete(null);
+    }
+
+    public void fail(Throwable error) {
+        complete(error);
+    }
+
+    private void complete(Throwable error) {
+        Map<String, Object> record;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            record = toRecord(System.nanoTime() - startNanos, error);
+        }
+        Map<String, Object> snapshot = Collections.unmodifiableMap(record);
+        LATEST.put(action, snapshot);
+        latest = snapshot;
+        appendToLog(snapshot);
+    }
+
+    private Map<String, Object> toRecord(long totalNanos, Throwable error) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("timestamp", Instant.now().toString());
+        record.put("action", action);
+        record.put("inputFile", inputFile);
+        record.put("status", error == null ? "success" : "error");
+        if (error != null) {
+            record.put("error", error.toString());
+        }
+        record.put("totalMs", millis(totalNanos));
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            record.put(phase.getKey() + "Ms", millis(phase.getValue()));
+        }
+        record.putAll(counts);
+        record.put("inputBytes", fileSize(inputFile));
+        long outputBytes = 0;
+        for (String output : outputs) {
+            outputBytes += fileSize(output);
+        }
+        record.put("outputFiles", (long) outputs.size());
+        record.put("outputBytes", outputBytes);
+        if (peakPixels > 0) {
+            record.put("peakImageWidth", (long) peakWidth);
+            record.put("peakImageHeight", (long) peakHeight);
+        }
+        return record;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private static long fileSize(String path) {
+        if (path == null) {
+            return 0;
+        }
+        File file = new File(path);
+        return file.isFile() ? file.length() : 0;
+    }
+
+    //Latest record for an action, or for any action when action is empty. Null if none has finished yet.
+    public static Map<String, Object> latest(String action) {
+        if (action == null || action.trim().isEmpty()) {
+            return latest;
+        }
+        return LATEST.get(action.trim());
+    }
+
+    public static Path getLogFile() {
+        return logFile;
+    }
+
+    //Null turns the log off
+    public static void setLogFile(Path file) {
+        logFile = file;
+    }
+
+    private static Path defaultLogFile() {
+        String configured = System.getProperty(LOG_PROPERTY);
+        if (configured != null) {
+            return configured.trim().isEmpty() ? null : Paths.get(configured.trim());
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "A360-FileConversion", "conversion-metrics.jsonl");
+    }
+
+    //Metrics must never fail a conversion, so problems with the log are only printed
+    private static void appendToLog(Map<String, Object> record) {
+        Path file = logFile;
+        if (file == null) {
+            return;
+        }
+        byte[] line = (toJson(record) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        synchronized (LOG_LOCK) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                if (Files.exists(file) && Files.size(file) + line.length > MAX_LOG_BYTES) {
+                    Files.move(file, Paths.get(file.toString() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.write(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.out.println("Could not write conversion metrics: " + e.toString());
+            }
+        }
+    }
+
+    static String toJson(Map<String, Object> record) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Object> entry : record.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendString(json, entry.getKey());
+            json.append(':');
+            if (entry.getValue() instanceof Number) {
+                json.append(entry.getValue());
+            } else {
+                appendString(json, String.valueOf(entry.getValue()));
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,127 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//Chains a conversion through several formats without writing the formats in between.
+//A source decodes the pages of the input, transforms change each page (such as its colour format), and a sink adds the
+//page to the output, encoding it with an encoder when the output embeds pictures. Pages travel between the stages in
+//memory, one page at a time, so PPTX to PDF or TIFF to PPTX never write intermediate images or documents to disk.
+public class ConversionPipeline {
+
+    //Decodes the pages of the input in any order
+    public interface Source extends Closeable {
+        int getPageCount() throws IOException;
+
+        //Resolution of the decoded pages, 72 is one pixel per point
+        float getDpi();
+
+        BufferedImage decode(int page) throws IOException;
+    }
+
+    //Changes a page between decoding and the sink, returning the page itself when there is nothing to change
+    public interface Transform {
+        BufferedImage apply(BufferedImage page) throws IOException;
+    }
+
+    //Turns a page into the bytes of a picture, for outputs that embed pictures
+    public interface Encoder {
+        EncodedPage encode(BufferedImage page) throws IOException;
+    }
+
+    //Receives the pages in page order and writes the output
+    public interface Sink extends Closeable {
+        void accept(int page, BufferedImage image, float dpi) throws IOException;
+
+        //Files written, complete once the sink is closed
+        List<String> getOutputs();
+    }
+
+    //Encoded picture and the image format it is in ("jpeg" or "png")
+    public static class EncodedPage {
+        private final byte[] data;
+        private final String format;
+
+        public EncodedPage(byte[] data, String format) {
+            this.data = data;
+            this.format = format;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+    }
+
+    private final Source source;
+    private final Sink sink;
+    private final List<String> transformPhases = new ArrayList<>();
+    private final List<Transform> transforms = new ArrayList<>();
+    private ConversionMetrics metrics;
+
+    public ConversionPipeline(Source source, Sink sink) {
+        this.source = source;
+        this.sink = sink;
+    }
+
+    //Adds a transform after the ones already added, timed under the given phase
+    public ConversionPipeline then(String phase, Transform transform) {
+        transformPhases.add(phase);
+        transforms.add(transform);
+        return this;
+    }
+
+    //Times every stage in the conversion's metrics
+    public void setMetrics(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    //Runs the zero-based pages through the chain in the order given, closes the sink and returns its outputs.
+    //The source is left open, it belongs to the caller.
+    public List<String> run(List<Integer> pages) throws IOException {
+        long writeStart;
+        try (Sink output = sink) {
+            for (int page : pages) {
+                BufferedImage image = time(ConversionMetrics.RENDER, () -> source.decode(page));
+                if (metrics != null) {
+                    metrics.image(image.getWidth(), image.getHeight());
+                }
+                for (int i = 0; i < transforms.size(); i++) {
+                    Transform transform = transforms.get(i);
+                    BufferedImage input = image;
+                    image = time(transformPhases.get(i), () -> transform.apply(input));
+                }
+                BufferedImage result = image;
+                time(ConversionMetrics.ENCODE, () -> {
+                    output.accept(page, result, source.getDpi());
+                    return null;
+                });
+                if (metrics != null) {
+                    metrics.count("pages", 1);
+                }
+            }
+            //Sinks that hold their output until the end write it while closing, which is timed up to the end of the try
+            writeStart = System.nanoTime();
+        }
+        if (metrics != null) {
+            metrics.addTime(ConversionMetrics.WRITE, System.nanoTime() - writeStart);
+        }
+        List<String> outputs = sink.getOutputs();
+        if (metrics != null) {
+            for (String file : outputs) {
+                metrics.output(file);
+            }
+        }
+        return outputs;
+    }
+
+    private <T> T time(String phase, ConversionMetrics.Phase<T, IOException> work) throws IOException {
+        return metrics == null ? work.run() : metrics.time(phase, work);
+    }
+}
@@ -0,0 +1,244 @@
+package com.automationanywhere.botcommand.utils;
+
+import com.documents4j.api.DocumentType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//Keeps converters warm across actions so each file does not pay to start and stop Office.
+//At most maxSize converters exist at once, converters left idle for longer than the idle timeout are shut down,
+//and a converter that fails or reports it is no longer operational is thrown away and replaced on the next borrow.
+public class ConverterPool {
+
+    public static final int DEFAULT_MAX_SIZE = 2;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static ConverterPool shared;
+
+    private final Supplier<ConversionBackend> factory;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final Semaphore available;
+    //Most recently returned converter first, so the oldest ones age out
+    private final Deque<IdleBackend> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private boolean closed = false;
+
+    public ConverterPool(Supplier<ConversionBackend> factory, int maxSize, long idleTimeoutMillis) {
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.available = new Semaphore(this.maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "converter-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    //Pool shared by every action in the package, backed by Microsoft Office through documents4j
+    public static synchronized ConverterPool getShared() {
+        if (shared == null || shared.isClosed()) {
+            shared = new ConverterPool(Documents4jBackend::new, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT_MILLIS);
+            //Make sure Office is not left running when the bot runner exits
+            final ConverterPool pool = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::shutDown, "converter-pool-shutdown"));
+        }
+        return shared;
+    }
+
+    //Replaces the shared pool, e.g. with a different backend. The previous pool is shut down.
+    public static synchronized void setShared(ConverterPool pool) {
+        if (shared != null && shared != pool) {
+            shared.shutDown();
+        }
+        shared = pool;
+    }
+
+    //Converts source into target on a pooled converter and waits for the result
+    public void convert(File source, DocumentType sourceType, File target, DocumentType targetType) throws IOException {
+        try (Lease lease = borrow()) {
+            Future<Boolean> conversion = lease.backend().schedule(source, sourceType, target, targetType);
+            boolean converted;
+            try {
+                converted = conversion.get();
+            } catch (InterruptedException e) {
+                //Cancelled job: stop the conversion so it does not write the target later, and shut down the
+                //converter it was running on instead of handing it out while it may still be busy
+                conversion.cancel(true);
+                lease.invalidate();
+                throw e;
+            } catch (ExecutionException e) {
+                lease.invalidate();
+                throw new IOException("Conversion of " + source.getName() + " failed", e.getCause());
+            } catch (RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+            if (!converted) {
+                //The converter may be in a bad state, start a fresh one next time
+                lease.invalidate();
+                throw new IOException("Conversion of " + source.getName() + " to " + targetType + " failed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting " + source.getName(), e);
+        }
+    }
+
+    //Takes a converter out of the pool, waiting while maxSize converters are in use.
+    //The lease must be closed to give the converter back.
+    public Lease borrow() throws InterruptedException {
+        available.acquire();
+        try {
+            while (true) {
+                IdleBackend candidate;
+                synchronized (this) {
+                    if (closed) {
+                        throw new IllegalStateException("Converter pool has been shut down");
+                    }
+                    candidate = idle.pollFirst();
+                }
+                if (candidate == null) {
+                    return new Lease(factory.get());
+                }
+                //Health check before handing it out
+                if (isHealthy(candidate.backend)) {
+                    return new Lease(candidate.backend);
+                }
+                shutDownQuietly(candidate.backend);
+            }
+        } catch (RuntimeException | Error e) {
+            available.release();
+            throw e;
+        }
+    }
+
+    private void release(ConversionBackend backend, boolean healthy) {
+        boolean keep;
+        synchronized (this) {
+            keep = healthy && !closed;
+            if (keep) {
+                idle.addFirst(new IdleBackend(backend, System.currentTimeMillis()));
+            }
+        }
+        if (!keep) {
+            shutDownQuietly(backend);
+        }
+        available.release();
+    }
+
+    //Shuts down converters that have been idle for longer than the idle timeout
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Deque<IdleBackend> expired = new ArrayDeque<>();
+        synchronized (this) {
+            Iterator<IdleBackend> it = idle.iterator();
+            while (it.hasNext()) {
+                IdleBackend entry = it.next();
+                if (entry.idleSince <= cutoff) {
+                    it.remove();
+                    expired.add(entry);
+                }
+            }
+        }
+        for (IdleBackend entry : expired) {
+            shutDownQuietly(entry.backend);
+        }
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    //Shuts down every idle converter, converters still in use are shut down when they are returned
+    public void shutDown() {
+        Deque<IdleBackend> remaining;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remaining = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        evictor.shutdownNow();
+        for (IdleBackend entry : remaining) {
+            shutDownQuietly(entry.backend);
+        }
+    }
+
+    private static boolean isHealthy(ConversionBackend backend) {
+        try {
+            return backend.isOperational();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void shutDownQuietly(ConversionBackend backend) {
+        try {
+            backend.shutDown();
+        } catch (RuntimeException e) {
+            System.out.println("Error shutting down converter: " + e.toString());
+        }
+    }
+
+    //A converter on loan from the pool
+    public class Lease implements AutoCloseable {
+        private final ConversionBackend backend;
+        private boolean healthy = true;
+        private boolean returned = false;
+
+        private Lease(ConversionBackend backend) {
+            this.backend = backend;
+        }
+
+        public ConversionBackend backend() {
+            return backend;
+        }
+
+        //Marks the converter as broken so it is shut down instead of going back into the pool
+        public void invalidate() {
+            healthy = false;
+        }
+
+        @Override
+        public void close() {
+            if (!returned) {
+                returned = true;
+                release(backend, healthy);
+            }
+        }
+    }
+
+    private static class IdleBackend {
+        private final ConversionBackend backend;
+        private final long idleSince;
+
+        private IdleBackend(ConversionBackend backend, long idleSince) {
+            this.backend = backend;
+            this.idleSince = idleSince;
+        }
+    }
+}
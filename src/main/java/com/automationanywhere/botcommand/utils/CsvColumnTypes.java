@@ -0,0 +1,230 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.ooxml.POIXMLRelation;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.usermodel.XSSFFactory;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+//Infers a cell type per CSV column so CSVtoXLSX can write numbers, dates and booleans as native cells.
+//A column gets a type when every non-empty value seen for it parses as that type, otherwise it stays text.
+//The first record is left out of the inference as it usually is a header. Values that do not fit the
+//column type, like the header itself, are still written as text. Date styles are created once per column.
+public class CsvColumnTypes {
+
+    public static final String TEXT = "text";
+    public static final String SAMPLE = "sample";
+    public static final String FULL = "full";
+
+    //Records looked at in sample mode before the column types are fixed
+    public static final int SAMPLE_ROWS = 1000;
+
+    static final int NUMBER = 1;
+    static final int DATE = 2;
+    static final int DATE_TIME = 4;
+    static final int BOOLEAN = 8;
+    private static final int ANY = NUMBER | DATE | DATE_TIME | BOOLEAN;
+
+    private static final int MAX_DIGITS = 15;
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+
+    private final List<Integer> candidates = new ArrayList<>();
+    //Columns that had at least one non-empty value
+    private final List<Boolean> filled = new ArrayList<>();
+    private boolean header = true;
+    private int[] types;
+    private CellStyle[] styles;
+
+    //The mode's constant, TEXT for null or empty so existing bots keep their output
+    public static String mode(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return TEXT;
+        }
+        String mode = name.trim().toLowerCase();
+        if (!mode.equals(TEXT) && !mode.equals(SAMPLE) && !mode.equals(FULL)) {
+            throw new IllegalArgumentException("Unknown cell type mode: " + name);
+        }
+        return mode;
+    }
+
+    //Empty workbook whose shared strings table looks strings up by their text. POI's own table serialises every
+    //string to XML to find out whether it is already in the table, which costs more than the rest of the cell.
+    public static XSSFWorkbook sharedStringsWorkbook() {
+        return new XSSFWorkbook(new XSSFFactory() {
+            @Override
+            public POIXMLDocumentPart newDocumentPart(POIXMLRelation descriptor) {
+                if (descriptor == XSSFRelation.SHARED_STRINGS) {
+                    return new PlainSharedStrings();
+                }
+                return super.newDocumentPart(descriptor);
+            }
+        });
+    }
+
+    //Only plain strings are added when writing a CSV, so the text itself identifies an entry
+    private static class PlainSharedStrings extends SharedStringsTable {
+        @Override
+        protected String xmlText(CTRst st) {
+            return st.sizeOfRArray() == 0 && st.isSetT() ? st.getT() : super.xmlText(st);
+        }
+    }
+
+    //Adds a record to the inference. The first record added is taken as the header and skipped.
+    public void sample(List<String> fields) {
+        if (header) {
+            header = false;
+            return;
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            if (i == candidates.size()) {
+                candidates.add(ANY);
+                filled.add(false);
+            }
+            String value = fields.get(i);
+            if (value.isEmpty()) {
+                continue;
+            }
+            candidates.set(i, candidates.get(i) & matches(value));
+            filled.set(i, true);
+        }
+    }
+
+    //Fixes the column types from the records sampled so far and creates the column styles in the workbook
+    public void finish(Workbook workbook) {
+        types = new int[candidates.size()];
+        styles = new CellStyle[candidates.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = filled.get(i) ? pick(candidates.get(i)) : 0;
+            if (types[i] == DATE || types[i] == DATE_TIME) {
+                styles[i] = workbook.createCellStyle();
+                styles[i].setDataFormat(workbook.createDataFormat().getFormat(types[i] == DATE ? "yyyy-mm-dd" : "yyyy-mm-dd hh:mm:ss"));
+            }
+        }
+    }
+
+    //Number of columns that got a type other than text
+    public int getTypedColumnCount() {
+        int count = 0;
+        for (int type : types) {
+            if (type != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //Writes a record into the row. Empty fields are left as blank cells.
+    public void write(Row row, List<String> fields) {
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i);
+            if (value.isEmpty()) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            int type = i < types.length ? types[i] : 0;
+            if (type == NUMBER && isDecimal(value)) {
+                cell.setCellValue(Double.parseDouble(value));
+            } else if ((type == DATE || type == DATE_TIME) && (matches(value) & type) != 0) {
+                cell.setCellValue(serial(dateTime(value)));
+                cell.setCellStyle(styles[i]);
+            } else if (type == BOOLEAN && isBoolean(value)) {
+                cell.setCellValue(Boolean.parseBoolean(value));
+            } else {
+                cell.setCellValue(value);
+            }
+        }
+    }
+
+    //Numbers win over dates and dates over date-times, a column of plain dates is written without a time
+    private static int pick(int candidates) {
+        for (int type : new int[]{NUMBER, DATE, DATE_TIME, BOOLEAN}) {
+            if ((candidates & type) != 0) {
+                return type;
+            }
+        }
+        return 0;
+    }
+
+    //Types the value parses as. Cheap checks on the characters come first so text is rejected without exceptions.
+    static int matches(String value) {
+        if (isDecimal(value)) {
+            return NUMBER;
+        }
+        if (isBoolean(value)) {
+            return BOOLEAN;
+        }
+        int length = value.length();
+        if (length < 10 || value.charAt(4) != '-' || value.charAt(7) != '-' || !Character.isDigit(value.charAt(0))) {
+            return 0;
+        }
+        try {
+            LocalDateTime parsed = dateTime(value);
+            //Excel serials start in 1900
+            if (parsed.getYear() < 1900) {
+                return 0;
+            }
+            //A plain date also fits a column of date-times
+            return length == 10 ? DATE | DATE_TIME : DATE_TIME;
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    //Plain decimal with an optional minus sign and fraction. Leading zeros, exponents and more than
+    //15 digits are kept as text so zip codes, account numbers and ids are not changed by the conversion to a double.
+    static boolean isDecimal(String value) {
+        int length = value.length();
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        int digits = 0;
+        int point = -1;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && point < 0 && digits > 0) {
+                point = i;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+            } else {
+                return false;
+            }
+        }
+        if (digits == 0 || digits > MAX_DIGITS || point == length - 1) {
+            return false;
+        }
+        //A leading zero is only allowed before the decimal point
+        return value.charAt(start) != '0' || length == start + 1 || point == start + 1;
+    }
+
+    private static boolean isBoolean(String value) {
+        return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false");
+    }
+
+    //ISO date and time with a T or a space between them, and a plain date as midnight
+    private static LocalDateTime dateTime(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    //Excel's day number, counted from 1899-12-30 so that it agrees with Excel's leap day in 1900 from March 1900 on
+    static double serial(LocalDateTime value) {
+        long days = value.toLocalDate().toEpochDay() - EXCEL_EPOCH.toEpochDay();
+        if (days < 61) {
+            //Before Excel's 29 February 1900
+            days--;
+        }
+        return days + value.toLocalTime().toSecondOfDay() / 86400.0 + value.getNano() / 86400e9;
+    }
+}
@@ -0,0 +1,134 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+//Single-pass RFC 4180 CSV tokenizer.
+//Handles quoted fields, escaped quotes (""), delimiters and line breaks inside quotes,
+//and CRLF/LF/CR line endings. Only one record is held in memory at a time.
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char QUOTE = '"';
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private boolean firstRead = true;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> record = new ArrayList<>();
+
+    public CsvReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    //Turns the delimiter entered on the UI into a char, empty means comma and "\t" or "tab" means tab
+    public static char parseDelimiter(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            return ',';
+        }
+        if (delimiter.equals("\\t") || delimiter.equalsIgnoreCase("tab")) {
+            return '\t';
+        }
+        return delimiter.charAt(0);
+    }
+
+    //Returns the fields of the next record, or null at the end of the input.
+    //The returned list is reused by the next call, copy it if it needs to be kept.
+    public List<String> readRecord() throws IOException {
+        record.clear();
+        field.setLength(0);
+
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    //Unterminated quote, keep what was read
+                    break;
+                }
+                if (c == QUOTE) {
+                    int peek = read();
+                    if (peek == QUOTE) {
+                        //Escaped quote
+                        field.append(QUOTE);
+                    } else {
+                        inQuotes = false;
+                        c = peek;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else {
+                if (c == -1) {
+                    break;
+                }
+                if (c == delimiter) {
+                    record.add(field.toString());
+                    field.setLength(0);
+                    quoted = false;
+                } else if (c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    int peek = read();
+                    if (peek != '\n' && peek != -1) {
+                        unread();
+                    }
+                    break;
+                } else if (c == QUOTE && field.length() == 0 && !quoted) {
+                    quoted = true;
+                    inQuotes = true;
+                } else {
+                    //Anything else, including a stray quote in an unquoted field, is taken literally
+                    field.append((char) c);
+                }
+            }
+            c = read();
+        }
+        record.add(field.toString());
+        return record;
+    }
+
+    private int read() throws IOException {
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+            //Skip a UTF-8 byte order mark at the start of the file
+            if (firstRead) {
+                firstRead = false;
+                if (buffer[0] == '\uFEFF') {
+                    position = 1;
+                    return read();
+                }
+            }
+        }
+        return buffer[position++];
+    }
+
+    //Only ever called straight after a successful read, so the char is still in the buffer
+    private void unread() {
+        position--;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
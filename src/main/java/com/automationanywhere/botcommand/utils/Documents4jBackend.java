@@ -0,0 +1,40 @@
+package com.automationanywhere.botcommand.utils;
+
+import com.documents4j.api.DocumentType;
+import com.documents4j.api.IConverter;
+import com.documents4j.job.LocalConverter;
+
+import java.io.File;
+import java.util.concurrent.Future;
+
+//ConversionBackend backed by a documents4j LocalConverter, which starts the Office automation bridge once
+public class Documents4jBackend implements ConversionBackend {
+
+    private final IConverter converter;
+
+    public Documents4jBackend() {
+        this(LocalConverter.builder().build());
+    }
+
+    public Documents4jBackend(IConverter converter) {
+        this.converter = converter;
+    }
+
+    @Override
+    public Future<Boolean> schedule(File source, DocumentType sourceType, File target, DocumentType targetType) {
+        return converter
+                .convert(source).as(sourceType)
+                .to(target).as(targetType)
+                .schedule();
+    }
+
+    @Override
+    public boolean isOperational() {
+        return converter.isOperational();
+    }
+
+    @Override
+    public void shutDown() {
+        converter.shutDown();
+    }
+}
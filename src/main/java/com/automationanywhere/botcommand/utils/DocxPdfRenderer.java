@@ -0,0 +1,1550 @@
+package com.automationanywhere.botcommand.utils;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Chunk;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.TabSettings;
+import com.itextpdf.text.TabStop;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.ColumnText;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfPageEventHelper;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.ooxml.util.DocumentHelper;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFPictureData;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+//Converts DOCX to PDF inside the JVM, without Microsoft Word.
+//The XML of the XWPFDocument's parts is laid out with iText: paragraphs with their styles, numbering and tab stops,
+//tables with merged cells, borders and shading, inline pictures, hyperlinks, page and section breaks, and headers and
+//footers with page numbers. Text is set in the standard PDF fonts, so nothing has to be embedded or looked up.
+//Content that cannot be laid out faithfully this way (text boxes, shapes, charts, equations, embedded objects,
+//footnotes, multiple columns, text the standard fonts cannot show) raises an UnsupportedContentException, so the
+//caller can hand the file to Word instead.
+public class DocxPdfRenderer {
+
+    public static final String AUTO = "auto";
+    public static final String JAVA = "java";
+    public static final String OFFICE = "office";
+
+    static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    static final String R_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final float TWIPS_PER_POINT = 20f;
+    private static final float EMUS_PER_POINT = 12700f;
+    //Height of a single spaced line relative to the font size, close to Word's for the usual body fonts
+    private static final float SINGLE_LINE = 1.15f;
+    //Word's defaults where the document does not set them: Letter pages with 1 inch margins, 10pt text, 0.5 inch tabs
+    private static final float DEFAULT_FONT_SIZE = 10f;
+    private static final float DEFAULT_TAB_INTERVAL = 36f;
+    private static final float DEFAULT_CELL_MARGIN = 5.4f;
+
+    //Elements that mean the document has content this engine does not lay out, with what to call it in the error.
+    //Shapes without text, like the rules and boxes of letter templates, are decoration and are left out.
+    private static final Map<String, String> UNSUPPORTED = new LinkedHashMap<>();
+
+    static {
+        UNSUPPORTED.put("txbxContent", "text boxes");
+        UNSUPPORTED.put("pict", "VML drawings");
+        UNSUPPORTED.put("chart", "charts");
+        UNSUPPORTED.put("object", "embedded objects");
+        UNSUPPORTED.put("altChunk", "embedded documents");
+        UNSUPPORTED.put("oMath", "equations");
+        UNSUPPORTED.put("footnoteReference", "footnotes");
+        UNSUPPORTED.put("endnoteReference", "endnotes");
+    }
+
+    //Standard PDF fonts by family, regular, bold, italic and bold italic
+    private static final Map<String, String[]> STANDARD_FONTS = new HashMap<>();
+
+    static {
+        STANDARD_FONTS.put("sans", new String[]{BaseFont.HELVETICA, BaseFont.HELVETICA_BOLD, BaseFont.HELVETICA_OBLIQUE, BaseFont.HELVETICA_BOLDOBLIQUE});
+        STANDARD_FONTS.put("serif", new String[]{BaseFont.TIMES_ROMAN, BaseFont.TIMES_BOLD, BaseFont.TIMES_ITALIC, BaseFont.TIMES_BOLDITALIC});
+        STANDARD_FONTS.put("mono", new String[]{BaseFont.COURIER, BaseFont.COURIER_BOLD, BaseFont.COURIER_OBLIQUE, BaseFont.COURIER_BOLDOBLIQUE});
+    }
+
+    private static final Map<String, BaseColor> HIGHLIGHTS = new HashMap<>();
+
+    static {
+        HIGHLIGHTS.put("yellow", color("FFFF00"));
+        HIGHLIGHTS.put("green", color("00FF00"));
+        HIGHLIGHTS.put("cyan", color("00FFFF"));
+        HIGHLIGHTS.put("magenta", color("FF00FF"));
+        HIGHLIGHTS.put("blue", color("0000FF"));
+        HIGHLIGHTS.put("red", color("FF0000"));
+        HIGHLIGHTS.put("lightGray", color("C0C0C0"));
+        HIGHLIGHTS.put("darkGray", color("808080"));
+        HIGHLIGHTS.put("black", BaseColor.BLACK);
+        HIGHLIGHTS.put("white", BaseColor.WHITE);
+    }
+
+    //Thrown before the PDF is complete when the document needs layout this engine does not do
+    public static class UnsupportedContentException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedContentException(String message) {
+            super(message);
+        }
+    }
+
+    private final XWPFDocument document;
+    private final Map<String, Element> styles = new HashMap<>();
+    private final List<Element> defaultRunProperties = new ArrayList<>();
+    private final List<Element> defaultParagraphProperties = new ArrayList<>();
+    private String defaultParagraphStyle;
+    private final Map<String, Element> abstractNumbering = new HashMap<>();
+    private final Map<String, Element> numbering = new HashMap<>();
+    //Current number of every level, per abstract list, and the list instances already started
+    private final Map<String, int[]> counters = new HashMap<>();
+    private final Set<String> startedLists = new HashSet<>();
+    private final Map<POIXMLDocumentPart, Element> parsedParts = new HashMap<>();
+    private final Map<String, BaseFont> baseFonts = new HashMap<>();
+    private final CharsetEncoder standardEncoding = Charset.forName("windows-1252").newEncoder();
+
+    private Document pdf;
+    private final List<Section> sections = new ArrayList<>();
+    private int sectionIndex;
+    private int pageCount;
+
+    private DocxPdfRenderer(XWPFDocument document) {
+        this.document = document;
+    }
+
+    //The engine's constant, OFFICE for null or empty so existing bots keep converting through Word
+    public static String engine(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return OFFICE;
+        }
+        String engine = name.trim().toLowerCase();
+        if (!engine.equals(AUTO) && !engine.equals(JAVA) && !engine.equals(OFFICE)) {
+            throw new IllegalArgumentException("Unknown conversion engine: " + name);
+        }
+        return engine;
+    }
+
+    //Writes the document as PDF and returns the number of pages. Nothing is left at target if the conversion fails.
+    public static int render(File source, File target) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(source, PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Cannot open " + source.getName(), e);
+        }
+        boolean written = false;
+        try {
+            XWPFDocument document = new XWPFDocument(pkg);
+            int pages = new DocxPdfRenderer(document).write(target);
+            written = true;
+            return pages;
+        } finally {
+            //Opened read-only, so only discard what was loaded
+            pkg.revert();
+            if (!written) {
+                Files.deleteIfExists(target.toPath());
+            }
+        }
+    }
+
+    private int write(File target) throws IOException {
+        Element body = child(part(document), "body");
+        if (body == null) {
+            throw new IOException("The document has no body");
+        }
+        readStyles();
+        readNumbering();
+        readSections(body);
+        for (Section section : sections) {
+            for (POIXMLDocumentPart headerFooter : section.headersAndFooters()) {
+                checkSupported(part(headerFooter));
+            }
+        }
+        checkSupported(body);
+
+        Section first = sections.get(0);
+        pdf = new Document(first.pageSize(), first.marginLeft, first.marginRight, first.marginTop, first.marginBottom);
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(target))) {
+            PdfWriter writer = PdfWriter.getInstance(pdf, output);
+            writer.setPageEvent(new HeadersAndFooters());
+            pdf.open();
+            addBody(body, new Context(document, true, 0, first.textWidth()));
+            //A document without text still gives its blank page, as it does in Word
+            if (writer.getPageNumber() == 1) {
+                writer.setPageEmpty(false);
+            }
+            pdf.close();
+        } catch (DocumentException e) {
+            throw new IOException("Cannot write " + target.getName(), e);
+        }
+        return pageCount;
+    }
+
+    // ---- Document parts
+
+    //Root element of a part's XML, parsed once
+    private Element part(POIXMLDocumentPart part) throws IOException {
+        Element root = parsedParts.get(part);
+        if (root == null) {
+            try (InputStream in = part.getPackagePart().getInputStream()) {
+                root = DocumentHelper.readDocument(in).getDocumentElement();
+            } catch (SAXException e) {
+                throw new IOException("Cannot read " + part.getPackagePart().getPartName(), e);
+            }
+            parsedParts.put(part, root);
+        }
+        return root;
+    }
+
+    private void readStyles() throws IOException {
+        if (document.getStyles() == null) {
+            return;
+        }
+        Element root = part(document.getStyles());
+        Element defaults = child(root, "docDefaults");
+        if (defaults != null) {
+            addIfPresent(defaultRunProperties, child(child(defaults, "rPrDefault"), "rPr"));
+            addIfPresent(defaultParagraphProperties, child(child(defaults, "pPrDefault"), "pPr"));
+        }
+        for (Element style : children(root, "style")) {
+            String id = attr(style, "styleId");
+            if (id != null) {
+                styles.put(id, style);
+                if ("paragraph".equals(attr(style, "type")) && on(attr(style, "default"))) {
+                    defaultParagraphStyle = id;
+                }
+            }
+        }
+    }
+
+    private void readNumbering() throws IOException {
+        if (document.getNumbering() == null) {
+            return;
+        }
+        Element root = part(document.getNumbering());
+        for (Element list : children(root, "abstractNum")) {
+            abstractNumbering.put(attr(list, "abstractNumId"), list);
+        }
+        for (Element num : children(root, "num")) {
+            numbering.put(attr(num, "numId"), num);
+        }
+    }
+
+    //Every section ends with a paragraph carrying its sectPr, the last one with the body's own sectPr
+    private void readSections(Element body) throws IOException {
+        Section previous = null;
+        for (Element properties : sectionProperties(body, new ArrayList<>())) {
+            previous = new Section(properties, previous);
+            sections.add(previous);
+        }
+        if (sections.isEmpty()) {
+            sections.add(new Section(null, null));
+        }
+        for (Section section : sections) {
+            for (Element columns : children(section.properties, "cols")) {
+                if (number(attr(columns, "num"), 1) > 1) {
+                    throw new UnsupportedContentException("The document has multiple columns");
+                }
+            }
+        }
+    }
+
+    private static List<Element> sectionProperties(Element parent, List<Element> found) {
+        for (Element element : children(parent)) {
+            String name = element.getLocalName();
+            if (name.equals("sectPr")) {
+                found.add(element);
+            } else if (name.equals("p")) {
+                Element properties = child(child(element, "pPr"), "sectPr");
+                if (properties != null) {
+                    found.add(properties);
+                }
+            } else if (name.equals("sdt") || name.equals("sdtContent") || name.equals("customXml")) {
+                sectionProperties(element, found);
+            }
+        }
+        return found;
+    }
+
+    //The fallbacks of alternate content are only for older readers, like the VML copy of every DrawingML shape
+    private static void checkSupported(Element parent) throws UnsupportedContentException {
+        for (Element element : children(parent)) {
+            String unsupported = UNSUPPORTED.get(element.getLocalName());
+            if (unsupported != null) {
+                throw new UnsupportedContentException("The document has " + unsupported);
+            }
+            if (!element.getLocalName().equals("Fallback")) {
+                checkSupported(element);
+            }
+        }
+    }
+
+    // ---- Sections, headers and footers
+
+    private class Section {
+        final Element properties;
+        final float width;
+        final float height;
+        final float marginTop;
+        final float marginBottom;
+        final float marginLeft;
+        final float marginRight;
+        final float headerDistance;
+        final float footerDistance;
+        final boolean titlePage;
+        final boolean continuous;
+        //Header and footer parts by type, default, first or even. Types the section does not set come from the section before.
+        final Map<String, POIXMLDocumentPart> headers = new HashMap<>();
+        final Map<String, POIXMLDocumentPart> footers = new HashMap<>();
+
+        Section(Element properties, Section previous) {
+            this.properties = properties;
+            Element size = child(properties, "pgSz");
+            Element margins = child(properties, "pgMar");
+            width = twips(attr(size, "w"), 12240);
+            height = twips(attr(size, "h"), 15840);
+            marginTop = Math.abs(twips(attr(margins, "top"), 1440));
+            marginBottom = Math.abs(twips(attr(margins, "bottom"), 1440));
+            marginLeft = twips(attr(margins, "left"), 1440);
+            marginRight = twips(attr(margins, "right"), 1440);
+            headerDistance = twips(attr(margins, "header"), 720);
+            footerDistance = twips(attr(margins, "footer"), 720);
+            titlePage = on(child(properties, "titlePg"));
+            continuous = "continuous".equals(val(child(properties, "type")));
+            if (previous != null) {
+                headers.putAll(previous.headers);
+                footers.putAll(previous.footers);
+            }
+            references(properties, "headerReference", headers);
+            references(properties, "footerReference", footers);
+        }
+
+        private void references(Element properties, String name, Map<String, POIXMLDocumentPart> parts) {
+            for (Element reference : children(properties, name)) {
+                POIXMLDocumentPart part = document.getRelationById(reference.getAttributeNS(R_NS, "id"));
+                if (part != null) {
+                    parts.put(attr(reference, "type") == null ? "default" : attr(reference, "type"), part);
+                }
+            }
+        }
+
+        List<POIXMLDocumentPart> headersAndFooters() {
+            List<POIXMLDocumentPart> parts = new ArrayList<>(headers.values());
+            parts.addAll(footers.values());
+            return parts;
+        }
+
+        Rectangle pageSize() {
+            return new Rectangle(width, height);
+        }
+
+        float textWidth() {
+            return width - marginLeft - marginRight;
+        }
+
+        //Word leaves the first page of a section without header or footer when the title page has none
+        POIXMLDocumentPart headerFooter(Map<String, POIXMLDocumentPart> parts, boolean firstPage) {
+            return (titlePage && firstPage) ? parts.get("first") : parts.get("default");
+        }
+    }
+
+    private class HeadersAndFooters extends PdfPageEventHelper {
+        private Section pageSection;
+        private int sectionPage;
+
+        @Override
+        public void onStartPage(PdfWriter writer, Document document) {
+            Section section = sections.get(sectionIndex);
+            sectionPage = (section == pageSection) ? sectionPage + 1 : 1;
+            pageSection = section;
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            pageCount++;
+            try {
+                int page = writer.getPageNumber();
+                draw(writer, pageSection.headerFooter(pageSection.headers, sectionPage == 1), page, true);
+                draw(writer, pageSection.headerFooter(pageSection.footers, sectionPage == 1), page, false);
+            } catch (IOException | DocumentException e) {
+                //Page events cannot throw checked exceptions, the conversion fails with the cause
+                throw new IllegalStateException("Cannot lay out the header or footer: " + e.getMessage(), e);
+            }
+        }
+
+        private void draw(PdfWriter writer, POIXMLDocumentPart part, int page, boolean header) throws IOException, DocumentException {
+            if (part == null) {
+                return;
+            }
+            Section section = pageSection;
+            float left = section.marginLeft;
+            float right = section.width - section.marginRight;
+            ColumnText column = new ColumnText(writer.getDirectContent());
+            if (header) {
+                column.setSimpleColumn(left, 0, right, section.height - section.headerDistance);
+            } else {
+                //Footers grow upwards from the footer distance, so measure the content first
+                ColumnText measure = new ColumnText(writer.getDirectContent());
+                measure.setSimpleColumn(left, 0, right, section.height);
+                for (com.itextpdf.text.Element element : blocks(part(part), new Context(part, false, page, section.textWidth()))) {
+                    measure.addElement(element);
+                }
+                measure.go(true);
+                float contentHeight = section.height - measure.getYLine();
+                column.setSimpleColumn(left, section.footerDistance, right, section.footerDistance + contentHeight + 1);
+            }
+            for (com.itextpdf.text.Element element : blocks(part(part), new Context(part, false, page, section.textWidth()))) {
+                column.addElement(element);
+            }
+            column.go();
+        }
+    }
+
+    // ---- Blocks
+
+    //Where a paragraph or table is being laid out
+    private static class Context {
+        final POIXMLDocumentPart part;
+        //The main text, where page breaks and sections apply
+        final boolean body;
+        //Page number shown by PAGE fields, 0 outside headers and footers
+        final int page;
+        float width;
+        String tableStyle;
+        String previousStyle;
+        //Complex field being read: instruction text, then its result
+        StringBuilder fieldInstruction;
+        boolean replaceFieldResult;
+
+        Context(POIXMLDocumentPart part, boolean body, int page, float width) {
+            this.part = part;
+            this.body = body;
+            this.page = page;
+            this.width = width;
+        }
+
+        Context cell(String tableStyle, float width) {
+            Context cell = new Context(part, false, page, width);
+            cell.tableStyle = tableStyle;
+            return cell;
+        }
+    }
+
+    private void addBody(Element parent, Context context) throws IOException, DocumentException {
+        for (Element element : children(parent)) {
+            switch (element.getLocalName()) {
+                case "p":
+                    pdf.add(paragraph(element, context));
+                    if (child(child(element, "pPr"), "sectPr") != null && sectionIndex + 1 < sections.size()) {
+                        startSection(sections.get(sectionIndex + 1), context);
+                    }
+                    break;
+                case "tbl":
+                    pdf.add(table(element, context));
+                    break;
+                case "sdt":
+                    addBody(child(element, "sdtContent"), context);
+                    break;
+                case "customXml":
+                    addBody(element, context);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    //Page size and margins apply from the next page on, which a continuous section does not force.
+    //The section is current before the new page starts, so the page event gives the page its headers.
+    private void startSection(Section next, Context context) {
+        sectionIndex++;
+        context.width = next.textWidth();
+        pdf.setPageSize(next.pageSize());
+        pdf.setMargins(next.marginLeft, next.marginRight, next.marginTop, next.marginBottom);
+        if (!next.continuous) {
+            pdf.newPage();
+        }
+    }
+
+    //Paragraphs and tables of a table cell, header or footer
+    private List<com.itextpdf.text.Element> blocks(Element parent, Context context) throws IOException, DocumentException {
+        List<com.itextpdf.text.Element> blocks = new ArrayList<>();
+        addBlocks(parent, context, blocks);
+        return blocks;
+    }
+
+    private void addBlocks(Element parent, Context context, List<com.itextpdf.text.Element> blocks) throws IOException, DocumentException {
+        for (Element element : children(parent)) {
+            switch (element.getLocalName()) {
+                case "p":
+                    blocks.add(paragraph(element, context));
+                    break;
+                case "tbl":
+                    blocks.add(table(element, context));
+                    break;
+                case "sdt":
+                    addBlocks(child(element, "sdtContent"), context, blocks);
+                    break;
+                case "customXml":
+                    addBlocks(element, context, blocks);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    // ---- Paragraphs
+
+    private static class ParagraphFormat {
+        String alignment = "left";
+        float before;
+        float after;
+        String lineRule = "auto";
+        float line = 240;
+        float left;
+        float right;
+        float firstLine;
+        boolean pageBreakBefore;
+        boolean keepLines;
+        boolean contextualSpacing;
+        String numId;
+        int level;
+        //Tab stop positions in points and their alignment
+        final TreeMap<Float, String> tabs = new TreeMap<>();
+
+        void apply(Element properties) {
+            if (properties == null) {
+                return;
+            }
+            for (Element property : children(properties)) {
+                switch (property.getLocalName()) {
+                    case "jc":
+                        alignment = val(property);
+                        break;
+                    case "spacing":
+                        before = twips(attr(property, "before"), before * TWIPS_PER_POINT);
+                        after = twips(attr(property, "after"), after * TWIPS_PER_POINT);
+                        if (attr(property, "line") != null) {
+                            line = number(attr(property, "line"), line);
+                            lineRule = first(attr(property, "lineRule"), "auto");
+                        }
+                        break;
+                    case "ind":
+                        left = twips(first(attr(property, "left"), attr(property, "start")), left * TWIPS_PER_POINT);
+                        right = twips(first(attr(property, "right"), attr(property, "end")), right * TWIPS_PER_POINT);
+                        if (attr(property, "hanging") != null) {
+                            firstLine = -twips(attr(property, "hanging"), 0);
+                        } else if (attr(property, "firstLine") != null) {
+                            firstLine = twips(attr(property, "firstLine"), 0);
+                        }
+                        break;
+                    case "pageBreakBefore":
+                        pageBreakBefore = on(property);
+                        break;
+                    case "keepLines":
+                        keepLines = on(property);
+                        break;
+                    case "contextualSpacing":
+                        contextualSpacing = on(property);
+                        break;
+                    case "numPr":
+                        Element id = child(property, "numId");
+                        if (id != null) {
+                            numId = val(id);
+                        }
+                        level = (int) number(val(child(property, "ilvl")), level);
+                        break;
+                    case "tabs":
+                        for (Element tab : children(property, "tab")) {
+                            float position = twips(attr(tab, "pos"), 0);
+                            if ("clear".equals(val(tab))) {
+                                tabs.remove(position);
+                            } else {
+                                tabs.put(position, val(tab));
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    private static class RunFormat {
+        String family = "sans";
+        boolean bold;
+        boolean italic;
+        boolean underline;
+        boolean strike;
+        boolean caps;
+        boolean hidden;
+        float size = DEFAULT_FONT_SIZE;
+        BaseColor color;
+        BaseColor highlight;
+        String verticalAlign;
+
+        RunFormat copy() {
+            RunFormat copy = new RunFormat();
+            copy.family = family;
+            copy.bold = bold;
+            copy.italic = italic;
+            copy.underline = underline;
+            copy.strike = strike;
+            copy.caps = caps;
+            copy.hidden = hidden;
+            copy.size = size;
+            copy.color = color;
+            copy.highlight = highlight;
+            copy.verticalAlign = verticalAlign;
+            return copy;
+        }
+
+        void apply(Element properties) {
+            if (properties == null) {
+                return;
+            }
+            for (Element property : children(properties)) {
+                switch (property.getLocalName()) {
+                    case "rFonts":
+                        String name = first(attr(property, "ascii"), attr(property, "hAnsi"));
+                        if (name != null) {
+                            family = family(name);
+                        }
+                        break;
+                    case "b":
+                        bold = on(property);
+                        break;
+                    case "i":
+                        italic = on(property);
+                        break;
+                    case "u":
+                        underline = !"none".equals(val(property));
+                        break;
+                    case "strike":
+                    case "dstrike":
+                        strike = on(property);
+                        break;
+                    case "caps":
+                        caps = on(property);
+                        break;
+                    case "vanish":
+                        hidden = on(property);
+                        break;
+                    case "sz":
+                        size = number(val(property), size * 2) / 2;
+                        break;
+                    case "color":
+                        color = color(val(property));
+                        break;
+                    case "highlight":
+                        highlight = HIGHLIGHTS.get(val(property));
+                        break;
+                    case "shd":
+                        BaseColor fill = color(attr(property, "fill"));
+                        if (fill != null) {
+                            highlight = fill;
+                        }
+                        break;
+                    case "vertAlign":
+                        verticalAlign = val(property);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private static String family(String font) {
+            String name = font.toLowerCase();
+            if (name.contains("courier") || name.contains("consolas") || name.contains("mono") || name.contains("console")) {
+                return "mono";
+            }
+            if (!name.contains("sans") && (name.contains("times") || name.contains("georgia") || name.contains("cambria")
+                    || name.contains("garamond") || name.contains("palatino") || name.contains("antiqua") || name.contains("serif"))) {
+                return "serif";
+            }
+            return "sans";
+        }
+    }
+
+    //Styles from the root of the basedOn chain down to the style itself
+    private List<Element> styleChain(String id) {
+        List<Element> chain = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        while (id != null && seen.add(id) && styles.containsKey(id)) {
+            Element style = styles.get(id);
+            chain.add(0, style);
+            id = val(child(style, "basedOn"));
+        }
+        return chain;
+    }
+
+    private Paragraph paragraph(Element p, Context context) throws IOException, DocumentException {
+        Element properties = child(p, "pPr");
+        String styleId = first(val(child(properties, "pStyle")), defaultParagraphStyle);
+
+        ParagraphFormat format = new ParagraphFormat();
+        RunFormat runFormat = new RunFormat();
+        defaultParagraphProperties.forEach(format::apply);
+        defaultRunProperties.forEach(runFormat::apply);
+        for (Element style : styleChain(context.tableStyle)) {
+            format.apply(child(style, "pPr"));
+            runFormat.apply(child(style, "rPr"));
+        }
+        for (Element style : styleChain(styleId)) {
+            format.apply(child(style, "pPr"));
+            runFormat.apply(child(style, "rPr"));
+        }
+        //The list level's indents sit between the style and the paragraph's own properties
+        Element numberingProperties = child(properties, "numPr");
+        String numId = first(val(child(numberingProperties, "numId")), format.numId);
+        int levelNumber = (int) number(val(child(numberingProperties, "ilvl")), format.level);
+        Element level = numberingLevel(numId, levelNumber);
+        if (level != null) {
+            format.apply(child(level, "pPr"));
+        }
+        format.apply(properties);
+
+        Paragraph paragraph = new Paragraph();
+        if (format.pageBreakBefore && context.body) {
+            paragraph.add(Chunk.NEXTPAGE);
+        }
+        float largest = 0;
+        if (level != null) {
+            String label = nextLabel(numId, levelNumber, level);
+            if (!label.isEmpty()) {
+                RunFormat labelFormat = runFormat.copy();
+                labelFormat.apply(child(level, "rPr"));
+                paragraph.add(chunk(label, labelFormat, null));
+                largest = labelFormat.size;
+                String suffix = first(val(child(level, "suff")), "tab");
+                if (suffix.equals("tab")) {
+                    paragraph.add(Chunk.TABBING);
+                    //Word puts the text of a hanging list item at the indent
+                    if (format.firstLine < 0) {
+                        format.tabs.putIfAbsent(format.left, "left");
+                    }
+                } else if (suffix.equals("space")) {
+                    paragraph.add(chunk(" ", labelFormat, null));
+                }
+            }
+        }
+        largest = Math.max(largest, addRuns(p, paragraph, runFormat, context, null));
+
+        if (paragraph.isEmpty()) {
+            //An empty paragraph still takes a line in the size of its paragraph mark
+            RunFormat mark = runFormat.copy();
+            mark.apply(child(properties, "rPr"));
+            paragraph.add(new Chunk(" ", font(mark)));
+            largest = mark.size;
+        }
+
+        paragraph.setAlignment(alignment(format.alignment));
+        paragraph.setIndentationLeft(format.left);
+        paragraph.setIndentationRight(format.right);
+        paragraph.setFirstLineIndent(format.firstLine);
+        boolean sameStyle = format.contextualSpacing && styleId != null && styleId.equals(context.previousStyle);
+        paragraph.setSpacingBefore(sameStyle ? 0 : format.before);
+        paragraph.setSpacingAfter(format.after);
+        context.previousStyle = styleId;
+        switch (format.lineRule) {
+            case "exact":
+                paragraph.setLeading(format.line / TWIPS_PER_POINT, 0);
+                break;
+            case "atLeast":
+                float minimum = format.line / TWIPS_PER_POINT;
+                if (minimum > largest * SINGLE_LINE) {
+                    paragraph.setLeading(minimum, 0);
+                } else {
+                    paragraph.setLeading(0, SINGLE_LINE);
+                }
+                break;
+            default:
+                paragraph.setLeading(0, SINGLE_LINE * format.line / 240f);
+                break;
+        }
+        if (!format.tabs.isEmpty()) {
+            List<TabStop> stops = new ArrayList<>();
+            for (Map.Entry<Float, String> tab : format.tabs.entrySet()) {
+                stops.add(new TabStop(tab.getKey(), tabAlignment(tab.getValue())));
+            }
+            paragraph.setTabSettings(new TabSettings(stops, DEFAULT_TAB_INTERVAL));
+        } else {
+            paragraph.setTabSettings(new TabSettings(DEFAULT_TAB_INTERVAL));
+        }
+        paragraph.setKeepTogether(format.keepLines);
+        return paragraph;
+    }
+
+    //Adds the runs under parent and returns the largest font size among them
+    private float addRuns(Element parent, Paragraph paragraph, RunFormat base, Context context, String link) throws IOException, DocumentException {
+        float largest = 0;
+        for (Element element : children(parent)) {
+            switch (element.getLocalName()) {
+                case "r":
+                    largest = Math.max(largest, addRun(element, paragraph, base, context, link));
+                    break;
+                case "hyperlink":
+                    String target = null;
+                    String id = element.getAttributeNS(R_NS, "id");
+                    if (!id.isEmpty()) {
+                        PackageRelationship relationship = context.part.getPackagePart().getRelationship(id);
+                        if (relationship != null) {
+                            target = relationship.getTargetURI().toString();
+                        }
+                    }
+                    largest = Math.max(largest, addRuns(element, paragraph, base, context, target));
+                    break;
+                case "fldSimple":
+                    if (context.page > 0 && isPageField(attr(element, "instr"))) {
+                        RunFormat format = runFormat(base, child(child(element, "r"), "rPr"));
+                        paragraph.add(chunk(String.valueOf(context.page), format, link));
+                        largest = Math.max(largest, format.size);
+                    } else {
+                        largest = Math.max(largest, addRuns(element, paragraph, base, context, link));
+                    }
+                    break;
+                case "sdt":
+                    largest = Math.max(largest, addRuns(child(element, "sdtContent"), paragraph, base, context, link));
+                    break;
+                case "pPr":
+                case "del":
+                case "moveFrom":
+                    break;
+                default:
+                    //ins, moveTo, smartTag, customXml and the like wrap ordinary runs
+                    largest = Math.max(largest, addRuns(element, paragraph, base, context, link));
+                    break;
+            }
+        }
+        return largest;
+    }
+
+    private RunFormat runFormat(RunFormat base, Element properties) {
+        RunFormat format = base.copy();
+        for (Element style : styleChain(val(child(properties, "rStyle")))) {
+            format.apply(child(style, "rPr"));
+        }
+        format.apply(properties);
+        return format;
+    }
+
+    private float addRun(Element run, Paragraph paragraph, RunFormat base, Context context, String link) throws IOException, DocumentException {
+        RunFormat format = runFormat(base, child(run, "rPr"));
+        if (format.hidden) {
+            return 0;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Element element : runContent(run, new ArrayList<>())) {
+            String name = element.getLocalName();
+            if (name.equals("fldChar")) {
+                flush(text, paragraph, format, link);
+                String type = attr(element, "fldCharType");
+                if ("begin".equals(type)) {
+                    context.fieldInstruction = new StringBuilder();
+                } else if ("separate".equals(type) && context.fieldInstruction != null) {
+                    context.replaceFieldResult = context.page > 0 && isPageField(context.fieldInstruction.toString());
+                    if (context.replaceFieldResult) {
+                        paragraph.add(chunk(String.valueOf(context.page), format, link));
+                    }
+                    context.fieldInstruction = null;
+                } else if ("end".equals(type)) {
+                    context.fieldInstruction = null;
+                    context.replaceFieldResult = false;
+                }
+                continue;
+            }
+            if (context.fieldInstruction != null) {
+                if (name.equals("instrText")) {
+                    context.fieldInstruction.append(element.getTextContent());
+                }
+                continue;
+            }
+            if (context.replaceFieldResult) {
+                continue;
+            }
+            switch (name) {
+                case "t":
+                    text.append(element.getTextContent());
+                    break;
+                case "noBreakHyphen":
+                    text.append('-');
+                    break;
+                case "sym":
+                    text.append('\u2022');
+                    break;
+                case "tab":
+                    flush(text, paragraph, format, link);
+                    paragraph.add(Chunk.TABBING);
+                    break;
+                case "br":
+                    flush(text, paragraph, format, link);
+                    if ("page".equals(attr(element, "type")) && context.body) {
+                        paragraph.add(Chunk.NEXTPAGE);
+                    } else {
+                        paragraph.add(new Chunk("\n", font(format)));
+                    }
+                    break;
+                case "cr":
+                    flush(text, paragraph, format, link);
+                    paragraph.add(new Chunk("\n", font(format)));
+                    break;
+                case "drawing":
+                    flush(text, paragraph, format, link);
+                    Image picture = picture(element, context);
+                    if (picture != null) {
+                        paragraph.add(new Chunk(picture, 0, 0, true));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        flush(text, paragraph, format, link);
+        return format.size;
+    }
+
+    //Children of the run, with alternate content replaced by its first choice
+    private static List<Element> runContent(Element parent, List<Element> content) {
+        for (Element element : children(parent)) {
+            if (element.getLocalName().equals("AlternateContent")) {
+                runContent(child(element, "Choice"), content);
+            } else {
+                content.add(element);
+            }
+        }
+        return content;
+    }
+
+    private void flush(StringBuilder text, Paragraph paragraph, RunFormat format, String link) throws IOException, DocumentException {
+        if (text.length() > 0) {
+            paragraph.add(chunk(text.toString(), format, link));
+            text.setLength(0);
+        }
+    }
+
+    private Chunk chunk(String text, RunFormat format, String link) throws IOException, DocumentException {
+        String shown = format.caps ? text.toUpperCase() : text;
+        //Symbol and Wingdings characters sit in the private use area, the usual ones are bullets
+        StringBuilder mapped = new StringBuilder(shown.length());
+        for (int i = 0; i < shown.length(); i++) {
+            char c = shown.charAt(i);
+            mapped.append(c >= '\uF000' && c <= '\uF0FF' ? '\u2022' : c);
+        }
+        shown = mapped.toString();
+        if (!standardEncoding.canEncode(shown)) {
+            throw new UnsupportedContentException("The document has text the standard PDF fonts cannot show");
+        }
+        Chunk chunk;
+        if ("superscript".equals(format.verticalAlign) || "subscript".equals(format.verticalAlign)) {
+            RunFormat smaller = format.copy();
+            smaller.size = format.size * 0.65f;
+            chunk = new Chunk(shown, font(smaller));
+            chunk.setTextRise("superscript".equals(format.verticalAlign) ? format.size * 0.33f : -format.size * 0.15f);
+        } else {
+            chunk = new Chunk(shown, font(format));
+        }
+        if (format.highlight != null) {
+            chunk.setBackground(format.highlight);
+        }
+        if (link != null) {
+            chunk.setAnchor(link);
+        }
+        return chunk;
+    }
+
+    private Font font(RunFormat format) throws IOException, DocumentException {
+        String name = STANDARD_FONTS.get(format.family)[(format.bold ? 1 : 0) + (format.italic ? 2 : 0)];
+        BaseFont baseFont = baseFonts.get(name);
+        if (baseFont == null) {
+            baseFont = BaseFont.createFont(name, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            baseFonts.put(name, baseFont);
+        }
+        int style = (format.underline ? Font.UNDERLINE : 0) | (format.strike ? Font.STRIKETHRU : 0);
+        return new Font(baseFont, format.size, style, format.color == null ? BaseColor.BLACK : format.color);
+    }
+
+    private static boolean isPageField(String instruction) {
+        return instruction != null && instruction.trim().toUpperCase().matches("PAGE(\\s.*)?");
+    }
+
+    // ---- Numbering
+
+    private Element numberingLevel(String numId, int level) {
+        Element num = (numId == null) ? null : numbering.get(numId);
+        if (num == null) {
+            return null;
+        }
+        for (Element override : children(num, "lvlOverride")) {
+            if (number(attr(override, "ilvl"), -1) == level && child(override, "lvl") != null) {
+                return child(override, "lvl");
+            }
+        }
+        Element list = abstractNumbering.get(val(child(num, "abstractNumId")));
+        for (Element candidate : children(list, "lvl")) {
+            if (number(attr(candidate, "ilvl"), -1) == level) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    //Counts the item and formats its label from the level's text, e.g. "%1.%2." for 1.3.
+    private String nextLabel(String numId, int level, Element levelElement) {
+        Element num = numbering.get(numId);
+        String listId = val(child(num, "abstractNumId"));
+        int[] counts = counters.computeIfAbsent(listId, id -> new int[9]);
+        int depth = Math.max(0, Math.min(8, level));
+        if (startedLists.add(numId)) {
+            for (Element override : children(num, "lvlOverride")) {
+                Element start = child(override, "startOverride");
+                int overridden = (int) number(attr(override, "ilvl"), -1);
+                if (start != null && overridden >= 0 && overridden < 9) {
+                    counts[overridden] = 0;
+                }
+            }
+        }
+        int start = (int) number(val(child(levelElement, "start")), 1);
+        counts[depth] = (counts[depth] == 0) ? start : counts[depth] + 1;
+        for (int deeper = depth + 1; deeper < 9; deeper++) {
+            counts[deeper] = 0;
+        }
+
+        String format = first(val(child(levelElement, "numFmt")), "decimal");
+        String text = first(val(child(levelElement, "lvlText")), "");
+        if (format.equals("bullet")) {
+            return text;
+        }
+        if (format.equals("none")) {
+            return "";
+        }
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1))) {
+                int referenced = text.charAt(i + 1) - '1';
+                Element referencedLevel = numberingLevel(numId, referenced);
+                String referencedFormat = (referenced == depth) ? format : first(val(child(referencedLevel, "numFmt")), "decimal");
+                int value = (referenced >= 0 && referenced < 9) ? counts[referenced] : 0;
+                if (value == 0 && referencedLevel != null) {
+                    value = (int) number(val(child(referencedLevel, "start")), 1);
+                }
+                label.append(formatNumber(value, referencedFormat));
+                i++;
+            } else {
+                label.append(c);
+            }
+        }
+        return label.toString();
+    }
+
+    private static String formatNumber(int value, String format) {
+        switch (format) {
+            case "lowerLetter":
+                return letters(value).toLowerCase();
+            case "upperLetter":
+                return letters(value);
+            case "lowerRoman":
+                return roman(value).toLowerCase();
+            case "upperRoman":
+                return roman(value);
+            case "decimalZero":
+                return String.format("%02d", value);
+            default:
+                return String.valueOf(value);
+        }
+    }
+
+    //A, B, ... Z, AA, BB as Word counts
+    private static String letters(int value) {
+        if (value <= 0) {
+            return "";
+        }
+        char letter = (char) ('A' + (value - 1) % 26);
+        char[] repeated = new char[(value - 1) / 26 + 1];
+        Arrays.fill(repeated, letter);
+        return new String(repeated);
+    }
+
+    private static String roman(int value) {
+        int[] values = {1000, 900, 500, 400, 100, 90, 50, 40, 10, 9, 5, 4, 1};
+        String[] numerals = {"M", "CM", "D", "CD", "C", "XC", "L", "XL", "X", "IX", "V", "IV", "I"};
+        StringBuilder roman = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            while (value >= values[i]) {
+                roman.append(numerals[i]);
+                value -= values[i];
+            }
+        }
+        return roman.toString();
+    }
+
+    // ---- Pictures
+
+    //Inline or anchored picture at its size in the document, anchored ones are placed inline
+    private Image picture(Element drawing, Context context) throws UnsupportedContentException {
+        Element blip = descendant(drawing, "blip");
+        Element extent = descendant(drawing, "extent");
+        if (blip == null) {
+            return null;
+        }
+        POIXMLDocumentPart part = context.part.getRelationById(blip.getAttributeNS(R_NS, "embed"));
+        if (!(part instanceof XWPFPictureData)) {
+            return null;
+        }
+        Image image;
+        try {
+            image = Image.getInstance(((XWPFPictureData) part).getData());
+        } catch (BadElementException | IOException | RuntimeException e) {
+            throw new UnsupportedContentException("The document has a picture in a format the PDF writer cannot embed: "
+                    + ((XWPFPictureData) part).getFileName());
+        }
+        if (extent != null) {
+            float width = number(extent.getAttribute("cx"), 0) / EMUS_PER_POINT;
+            float height = number(extent.getAttribute("cy"), 0) / EMUS_PER_POINT;
+            if (width > 0 && height > 0) {
+                image.scaleAbsolute(width, height);
+            }
+        }
+        if (image.getScaledWidth() > context.width) {
+            image.scaleToFit(context.width, image.getScaledHeight() * context.width / image.getScaledWidth());
+        }
+        return image;
+    }
+
+    // ---- Tables
+
+    private static class Border {
+        final float width;
+        final BaseColor color;
+
+        Border(Element border) {
+            String kind = val(border);
+            boolean none = border == null || kind == null || kind.equals("nil") || kind.equals("none");
+            width = none ? 0 : Math.max(0.25f, number(attr(border, "sz"), 4) / 8f);
+            BaseColor parsed = color(attr(border, "color"));
+            color = parsed == null ? BaseColor.BLACK : parsed;
+        }
+    }
+
+    private static class TableCell {
+        final Element element;
+        final int column;
+        final int span;
+        final String merge;
+        int rowSpan = 1;
+
+        TableCell(Element element, int column) {
+            this.element = element;
+            this.column = column;
+            Element properties = child(element, "tcPr");
+            this.span = Math.max(1, (int) number(val(child(properties, "gridSpan")), 1));
+            Element vMerge = child(properties, "vMerge");
+            this.merge = (vMerge == null) ? null : first(val(vMerge), "continue");
+        }
+    }
+
+    private PdfPTable table(Element tbl, Context context) throws IOException, DocumentException {
+        Element properties = child(tbl, "tblPr");
+        String styleId = val(child(properties, "tblStyle"));
+        List<Element> tableProperties = new ArrayList<>();
+        for (Element style : styleChain(styleId)) {
+            addIfPresent(tableProperties, child(style, "tblPr"));
+        }
+        addIfPresent(tableProperties, properties);
+
+        //Table borders top, left, bottom, right, insideH, insideV and cell margins top, left, bottom, right
+        Map<String, Border> borders = new HashMap<>();
+        float[] margins = {0, DEFAULT_CELL_MARGIN, 0, DEFAULT_CELL_MARGIN};
+        String alignment = null;
+        for (Element tableProperty : tableProperties) {
+            readBorders(child(tableProperty, "tblBorders"), borders);
+            readMargins(child(tableProperty, "tblCellMar"), margins);
+            alignment = first(val(child(tableProperty, "jc")), alignment);
+        }
+
+        List<Float> grid = new ArrayList<>();
+        for (Element column : children(child(tbl, "tblGrid"), "gridCol")) {
+            grid.add(twips(attr(column, "w"), 0));
+        }
+        List<Element> rows = collect(tbl, "tr", new ArrayList<>());
+        List<List<TableCell>> cells = new ArrayList<>();
+        int columns = grid.size();
+        for (Element row : rows) {
+            List<TableCell> rowCells = new ArrayList<>();
+            int column = (int) number(val(child(child(row, "trPr"), "gridBefore")), 0);
+            for (Element cell : collect(row, "tc", new ArrayList<>())) {
+                TableCell tableCell = new TableCell(cell, column);
+                rowCells.add(tableCell);
+                column += tableCell.span;
+            }
+            columns = Math.max(columns, column);
+            cells.add(rowCells);
+        }
+        if (columns == 0) {
+            return new PdfPTable(1);
+        }
+        //Rows spanned by vertically merged cells
+        for (int r = 0; r < cells.size(); r++) {
+            for (TableCell cell : cells.get(r)) {
+                if (!"restart".equals(cell.merge)) {
+                    continue;
+                }
+                for (int below = r + 1; below < cells.size(); below++) {
+                    TableCell continued = cellAt(cells.get(below), cell.column);
+                    if (continued == null || !"continue".equals(continued.merge)) {
+                        break;
+                    }
+                    cell.rowSpan++;
+                }
+            }
+        }
+
+        float[] widths = new float[columns];
+        float total = 0;
+        for (int c = 0; c < columns; c++) {
+            widths[c] = (c < grid.size() && grid.get(c) > 0) ? grid.get(c) : context.width / columns;
+            total += widths[c];
+        }
+        if (total > context.width) {
+            for (int c = 0; c < columns; c++) {
+                widths[c] *= context.width / total;
+            }
+            total = context.width;
+        }
+        PdfPTable table = new PdfPTable(columns);
+        table.setTotalWidth(widths);
+        table.setLockedWidth(true);
+        table.setHorizontalAlignment("center".equals(alignment) ? com.itextpdf.text.Element.ALIGN_CENTER
+                : ("right".equals(alignment) || "end".equals(alignment)) ? com.itextpdf.text.Element.ALIGN_RIGHT
+                : com.itextpdf.text.Element.ALIGN_LEFT);
+        table.setSplitLate(false);
+
+        int headerRows = 0;
+        for (int r = 0; r < rows.size(); r++) {
+            Element rowProperties = child(rows.get(r), "trPr");
+            if (headerRows == r && on(child(rowProperties, "tblHeader"))) {
+                headerRows++;
+            }
+            Element height = child(rowProperties, "trHeight");
+            float rowHeight = twips(val(height), 0);
+            boolean exact = "exact".equals(attr(height, "hRule"));
+
+            int column = 0;
+            for (TableCell cell : cells.get(r)) {
+                if (cell.column > column) {
+                    table.addCell(filler(cell.column - column));
+                }
+                column = cell.column + cell.span;
+                if ("continue".equals(cell.merge)) {
+                    continue;
+                }
+                float cellWidth = 0;
+                for (int c = cell.column; c < Math.min(columns, column); c++) {
+                    cellWidth += widths[c];
+                }
+                PdfPCell pdfCell = cell(cell, r, r + cell.rowSpan - 1 == rows.size() - 1, columns, borders, margins, styleId, cellWidth, context);
+                if (rowHeight > 0) {
+                    if (exact) {
+                        pdfCell.setFixedHeight(rowHeight);
+                    } else {
+                        pdfCell.setMinimumHeight(rowHeight);
+                    }
+                }
+                table.addCell(pdfCell);
+            }
+            if (column < columns) {
+                table.addCell(filler(columns - column));
+            }
+        }
+        if (headerRows > 0 && headerRows < rows.size()) {
+            table.setHeaderRows(headerRows);
+        }
+        return table;
+    }
+
+    private PdfPCell cell(TableCell cell, int row, boolean lastRow, int columns, Map<String, Border> tableBorders, float[] tableMargins,
+                          String tableStyle, float width, Context context) throws IOException, DocumentException {
+        Element properties = child(cell.element, "tcPr");
+        Map<String, Border> borders = new HashMap<>();
+        borders.put("top", tableBorders.get(row == 0 ? "top" : "insideH"));
+        borders.put("bottom", tableBorders.get(lastRow ? "bottom" : "insideH"));
+        borders.put("left", tableBorders.get(cell.column == 0 ? "left" : "insideV"));
+        borders.put("right", tableBorders.get(cell.column + cell.span >= columns ? "right" : "insideV"));
+        readBorders(child(properties, "tcBorders"), borders);
+        float[] margins = tableMargins.clone();
+        readMargins(child(properties, "tcMar"), margins);
+
+        PdfPCell pdfCell = new PdfPCell();
+        pdfCell.setColspan(cell.span);
+        pdfCell.setRowspan(cell.rowSpan);
+        pdfCell.setPaddingTop(margins[0]);
+        pdfCell.setPaddingLeft(margins[1]);
+        pdfCell.setPaddingBottom(margins[2]);
+        pdfCell.setPaddingRight(margins[3]);
+        pdfCell.setBorder(Rectangle.NO_BORDER);
+        int sides = 0;
+        Border top = borders.get("top");
+        if (top != null && top.width > 0) {
+            sides |= Rectangle.TOP;
+            pdfCell.setBorderWidthTop(top.width);
+            pdfCell.setBorderColorTop(top.color);
+        }
+        Border bottom = borders.get("bottom");
+        if (bottom != null && bottom.width > 0) {
+            sides |= Rectangle.BOTTOM;
+            pdfCell.setBorderWidthBottom(bottom.width);
+            pdfCell.setBorderColorBottom(bottom.color);
+        }
+        Border left = borders.get("left");
+        if (left != null && left.width > 0) {
+            sides |= Rectangle.LEFT;
+            pdfCell.setBorderWidthLeft(left.width);
+            pdfCell.setBorderColorLeft(left.color);
+        }
+        Border right = borders.get("right");
+        if (right != null && right.width > 0) {
+            sides |= Rectangle.RIGHT;
+            pdfCell.setBorderWidthRight(right.width);
+            pdfCell.setBorderColorRight(right.color);
+        }
+        pdfCell.setBorder(sides);
+        BaseColor fill = color(attr(child(properties, "shd"), "fill"));
+        if (fill != null) {
+            pdfCell.setBackgroundColor(fill);
+        }
+        String verticalAlign = val(child(properties, "vAlign"));
+        pdfCell.setVerticalAlignment("center".equals(verticalAlign) ? com.itextpdf.text.Element.ALIGN_MIDDLE
+                : "bottom".equals(verticalAlign) ? com.itextpdf.text.Element.ALIGN_BOTTOM : com.itextpdf.text.Element.ALIGN_TOP);
+        Context cellContext = context.cell(tableStyle, Math.max(1, width - margins[1] - margins[3]));
+        for (com.itextpdf.text.Element element : blocks(cell.element, cellContext)) {
+            pdfCell.addElement(element);
+        }
+        return pdfCell;
+    }
+
+    //Empty, borderless cell for grid columns a row leaves out
+    private static PdfPCell filler(int span) {
+        PdfPCell filler = new PdfPCell();
+        filler.setColspan(span);
+        filler.setBorder(Rectangle.NO_BORDER);
+        return filler;
+    }
+
+    private static TableCell cellAt(List<TableCell> row, int column) {
+        for (TableCell cell : row) {
+            if (cell.column == column) {
+                return cell;
+            }
+        }
+        return null;
+    }
+
+    private static void readBorders(Element element, Map<String, Border> borders) {
+        for (Element border : children(element)) {
+            String side = border.getLocalName();
+            side = side.equals("start") ? "left" : side.equals("end") ? "right" : side;
+            borders.put(side, new Border(border));
+        }
+    }
+
+    private static void readMargins(Element element, float[] margins) {
+        for (Element margin : children(element)) {
+            float value = twips(attr(margin, "w"), -1);
+            if (value < 0) {
+                continue;
+            }
+            switch (margin.getLocalName()) {
+                case "top":
+                    margins[0] = value;
+                    break;
+                case "left":
+                case "start":
+                    margins[1] = value;
+                    break;
+                case "bottom":
+                    margins[2] = value;
+                    break;
+                case "right":
+                case "end":
+                    margins[3] = value;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    //Elements with the name under parent, looking through content controls and custom XML around them
+    private static List<Element> collect(Element parent, String name, List<Element> found) {
+        for (Element element : children(parent)) {
+            String elementName = element.getLocalName();
+            if (elementName.equals(name)) {
+                found.add(element);
+            } else if (elementName.equals("sdt") || elementName.equals("sdtContent") || elementName.equals("customXml")) {
+                collect(element, name, found);
+            }
+        }
+        return found;
+    }
+
+    // ---- XML helpers
+
+    private static List<Element> children(Element parent) {
+        List<Element> children = new ArrayList<>();
+        if (parent != null) {
+            for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node instanceof Element) {
+                    children.add((Element) node);
+                }
+            }
+        }
+        return children;
+    }
+
+    private static List<Element> children(Element parent, String name) {
+        List<Element> children = new ArrayList<>();
+        for (Element element : children(parent)) {
+            if (element.getLocalName().equals(name)) {
+                children.add(element);
+            }
+        }
+        return children;
+    }
+
+    private static Element child(Element parent, String name) {
+        if (parent != null) {
+            for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node instanceof Element && name.equals(node.getLocalName())) {
+                    return (Element) node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Element descendant(Element parent, String name) {
+        return (Element) parent.getElementsByTagNameNS("*", name).item(0);
+    }
+
+    private static void addIfPresent(List<Element> list, Element element) {
+        if (element != null) {
+            list.add(element);
+        }
+    }
+
+    private static String attr(Element element, String name) {
+        if (element == null) {
+            return null;
+        }
+        String value = element.getAttributeNS(W_NS, name);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String val(Element element) {
+        return attr(element, "val");
+    }
+
+    private static String first(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    //On/off properties are on when present, unless their value turns them off
+    private static boolean on(Element element) {
+        return element != null && on(first(val(element), "true"));
+    }
+
+    private static boolean on(String value) {
+        return value != null && !value.equals("false") && !value.equals("0") && !value.equals("off");
+    }
+
+    private static float number(String value, float fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static float twips(String value, float fallback) {
+        return number(value, fallback) / TWIPS_PER_POINT;
+    }
+
+    private static BaseColor color(String hex) {
+        if (hex == null || hex.length() != 6 || hex.equalsIgnoreCase("auto")) {
+            return null;
+        }
+        try {
+            //BaseColor takes ARGB, document colours are opaque
+            return new BaseColor(0xFF000000 | Integer.parseInt(hex, 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int alignment(String alignment) {
+        switch (alignment == null ? "" : alignment) {
+            case "center":
+                return com.itextpdf.text.Element.ALIGN_CENTER;
+            case "right":
+            case "end":
+                return com.itextpdf.text.Element.ALIGN_RIGHT;
+            case "both":
+            case "distribute":
+                return com.itextpdf.text.Element.ALIGN_JUSTIFIED;
+            default:
+                return com.itextpdf.text.Element.ALIGN_LEFT;
+        }
+    }
+
+    private static TabStop.Alignment tabAlignment(String alignment) {
+        switch (alignment == null ? "" : alignment) {
+            case "center":
+                return TabStop.Alignment.CENTER;
+            case "right":
+            case "end":
+                return TabStop.Alignment.RIGHT;
+            case "decimal":
+                return TabStop.Alignment.ANCHOR;
+            default:
+                return TabStop.Alignment.LEFT;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.automationanywhere.botcommand.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+//Reuses ImageIO readers and writers across calls instead of looking up and creating new ones for every image.
+//Readers and writers are not thread-safe, so each thread keeps its own instance per format.
+public class ImageCodecs {
+
+    private static final ThreadLocal<Map<ImageReaderSpi, ImageReader>> READERS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<String, ImageWriter>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
+    private ImageCodecs() {
+    }
+
+    //Reader that can decode the stream, with its input already set. Call release when done with it.
+    public static ImageReader reader(ImageInputStream input) throws IOException {
+        Iterator<ImageReaderSpi> providers = IIORegistry.getDefaultInstance().getServiceProviders(ImageReaderSpi.class, true);
+        while (providers.hasNext()) {
+            ImageReaderSpi spi = providers.next();
+            if (spi.canDecodeInput(input)) {
+                ImageReader reader = READERS.get().get(spi);
+                if (reader == null) {
+                    reader = spi.createReaderInstance();
+                    READERS.get().put(spi, reader);
+                }
+                reader.setInput(input, false, true);
+                return reader;
+            }
+        }
+        return null;
+    }
+
+    //Writer for a format name such as "png" or "jpg". Call release when done with it.
+    public static ImageWriter writer(String formatName) throws IOException {
+        String key = formatName.toLowerCase();
+        ImageWriter writer = WRITERS.get().get(key);
+        if (writer == null) {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(key);
+            if (!writers.hasNext()) {
+                throw new IOException("No image writer available for " + formatName);
+            }
+            writer = writers.next();
+            WRITERS.get().put(key, writer);
+        }
+        return writer;
+    }
+
+    //Clears the input/output so the cached instance does not keep the stream alive
+    public static void release(ImageReader reader) {
+        if (reader != null) {
+            reader.reset();
+        }
+    }
+
+    public static void release(ImageWriter writer) {
+        if (writer != null) {
+            writer.reset();
+        }
+    }
+
+    //Decodes the first image of a file with a cached reader
+    public static BufferedImage read(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null) {
+                throw new IOException("Cannot open " + file.getName());
+            }
+            ImageReader reader = reader(input);
+            if (reader == null) {
+                throw new IOException("Unsupported image format: " + file.getName());
+            }
+            try {
+                return reader.read(0);
+            } finally {
+                release(reader);
+            }
+        }
+    }
+
+    //Encodes an image to a file with a cached writer
+    public static void write(BufferedImage image, String formatName, File file) throws IOException {
+        write(image, formatName, file, null);
+    }
+
+    //Encodes an image in memory with a cached writer
+    public static byte[] encode(BufferedImage image, String formatName, ImageWriteParam param) throws IOException {
+        ImageWriter writer = writer(formatName);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            release(writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void write(BufferedImage image, String formatName, File file, ImageWriteParam param) throws IOException {
+        ImageWriter writer = writer(formatName);
+        //Replace rather than append to an existing file
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot overwrite " + file.getPath());
+        }
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            release(writer);
+        }
+    }
+}
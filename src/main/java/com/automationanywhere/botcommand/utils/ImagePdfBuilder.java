@@ -0,0 +1,120 @@
+package com.automationanywhere.botcommand.utils;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import com.itextpdf.text.pdf.codec.TiffImage;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+//Builds one PDF from images, one page per image, each page the size of its image.
+//iText writes an image to the file as soon as it is added, so only the image being added is held in memory.
+//JPEGs are embedded as they are (DCT) and CCITT compressed TIFF frames are passed through without decoding,
+//so building large scan PDFs is mostly I/O. Every frame of a multi-page TIFF becomes a page.
+public class ImagePdfBuilder implements Closeable {
+
+    private final OutputStream output;
+    private final Document document;
+    private final PdfWriter writer;
+    private ConversionMetrics metrics;
+    private int pageCount;
+
+    public ImagePdfBuilder(String outputFile) throws IOException, DocumentException {
+        this.output = new FileOutputStream(outputFile);
+        this.document = new Document();
+        document.setMargins(0, 0, 0, 0);
+        try {
+            this.writer = PdfWriter.getInstance(document, output);
+        } catch (DocumentException | RuntimeException e) {
+            output.close();
+            throw e;
+        }
+    }
+
+    //Times loading and writing every image in the conversion's metrics
+    public void setMetrics(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    //Adds every image of the file, returns the number of pages added
+    public int addFile(String imageFile) throws IOException, DocumentException {
+        String name = imageFile.toLowerCase();
+        if (!name.endsWith(".tiff") && !name.endsWith(".tif")) {
+            addPage(time(ConversionMetrics.LOAD, () -> readImage(imageFile)));
+            return 1;
+        }
+        //The file is read through a mapped source, so frames are loaded one at a time
+        RandomAccessFileOrArray tiff = new RandomAccessFileOrArray(new RandomAccessSourceFactory().createBestSource(imageFile));
+        try {
+            int frames = TiffImage.getNumberOfPages(tiff);
+            for (int frame = 1; frame <= frames; frame++) {
+                int current = frame;
+                addPage(time(ConversionMetrics.LOAD, () -> TiffImage.getTiffImage(tiff, current)));
+            }
+            return frames;
+        } finally {
+            tiff.close();
+        }
+    }
+
+    //JPEG, PNG, GIF or BMP. iText reports an unreadable image as a document error.
+    private static Image readImage(String imageFile) throws IOException {
+        try {
+            return Image.getInstance(imageFile);
+        } catch (BadElementException e) {
+            throw new IOException("Cannot read image " + imageFile, e);
+        }
+    }
+
+    //Adds the image on a new page of the same size, the scaled size if the image was scaled
+    public void addPage(Image image) throws DocumentException {
+        float width = image.getScaledWidth();
+        float height = image.getScaledHeight();
+        image.setAbsolutePosition(0, 0);
+        //The page size applies to the next page that is started
+        document.setPageSize(new Rectangle(width, height));
+        long start = System.nanoTime();
+        if (!document.isOpen()) {
+            writer.open();
+            document.open();
+        } else {
+            document.newPage();
+        }
+        document.add(image);
+        if (metrics != null) {
+            metrics.addTime(ConversionMetrics.WRITE, System.nanoTime() - start);
+            metrics.image((int) image.getWidth(), (int) image.getHeight());
+            metrics.count("pages", 1);
+        }
+        pageCount++;
+    }
+
+    private <T, E extends Exception> T time(String phase, ConversionMetrics.Phase<T, E> load) throws E {
+        return metrics == null ? load.run() : metrics.time(phase, load);
+    }
+
+    //Finishes the PDF. A document without pages is not valid, so at least one image has to be added first.
+    @Override
+    public void close() throws IOException {
+        try {
+            if (document.isOpen()) {
+                document.close();
+            }
+        } finally {
+            writer.close();
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+//Page selections such as "1-3,7,last" for the actions that read PDFs.
+//Items are separated by commas and are either a page or a range of pages. Pages are numbered from 1,
+//"last" is the last page and "last-2" the page two before it. A range with no end ("5-") runs to the last page.
+//Selected pages are always processed in document order, each once.
+public class PageRange {
+
+    private PageRange() {
+    }
+
+    //Zero-based indices of the selected pages, every page when the range is empty
+    public static List<Integer> parse(String range, int pageCount) {
+        List<Integer> pages = new ArrayList<>();
+        if (range == null || range.trim().isEmpty()) {
+            for (int page = 0; page < pageCount; page++) {
+                pages.add(page);
+            }
+            return pages;
+        }
+        TreeSet<Integer> selected = new TreeSet<>();
+        for (String item : range.split(",")) {
+            String text = item.trim().toLowerCase();
+            if (text.isEmpty()) {
+                continue;
+            }
+            //A dash that is not part of "last-N" separates the ends of a range
+            int dash = rangeDash(text);
+            int first;
+            int last;
+            if (dash < 0) {
+                first = page(text, pageCount, range);
+                last = first;
+            } else {
+                String start = text.substring(0, dash).trim();
+                String end = text.substring(dash + 1).trim();
+                first = start.isEmpty() ? 1 : page(start, pageCount, range);
+                last = end.isEmpty() ? pageCount : page(end, pageCount, range);
+            }
+            if (first > last) {
+                throw new IllegalArgumentException("Page range '" + item.trim() + "' ends before it starts");
+            }
+            for (int page = first; page <= last; page++) {
+                selected.add(page - 1);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("Page range '" + range + "' selects no pages");
+        }
+        pages.addAll(selected);
+        return pages;
+    }
+
+    //Range text without spaces or case differences, for cache keys. The input bytes are part of the key,
+    //so "last" always stands for the same page.
+    public static String canonical(String range) {
+        return range == null ? "" : range.replaceAll("\\s", "").toLowerCase();
+    }
+
+    private static int rangeDash(String text) {
+        int from = text.startsWith("last") ? 4 : 0;
+        int dash = text.indexOf('-', from);
+        //"last-2" on its own is a single page
+        if (from == 4 && dash >= 0 && text.substring(4, dash).trim().isEmpty()) {
+            int next = text.indexOf('-', dash + 1);
+            return text.substring(dash + 1, next < 0 ? text.length() : next).trim().matches("\\d+") ? next : dash;
+        }
+        return dash;
+    }
+
+    private static int page(String text, int pageCount, String range) {
+        int page;
+        try {
+            if (text.startsWith("last")) {
+                String offset = text.substring(4).trim();
+                if (!offset.isEmpty() && offset.charAt(0) != '-') {
+                    throw new NumberFormatException(text);
+                }
+                page = pageCount - (offset.isEmpty() ? 0 : Integer.parseInt(offset.substring(1).trim()));
+            } else {
+                page = Integer.parseInt(text);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page '" + text + "' in page range '" + range + "'");
+        }
+        if (page < 1 || page > pageCount) {
+            throw new IllegalArgumentException("Page '" + text + "' is outside the document, which has " + pageCount + " pages");
+        }
+        return page;
+    }
+}
@@ -0,0 +1,167 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Renders the pages of a PDF on a bounded pool of workers.
+//PDFBox documents are not thread-safe, so every worker loads its own PDDocument/PDFRenderer
+//and pulls the next page number from a shared counter until all pages are done.
+public class ParallelPageRenderer {
+
+    //Called by a worker for each page it owns, returns what was produced for that page (e.g. the path written)
+    public interface PageTask<T> {
+        T render(PDDocument document, PDFRenderer renderer, int pageIndex) throws IOException;
+    }
+
+    private final File pdfFile;
+    private final int threadCount;
+    private final long memoryCapBytes;
+    private ConversionMetrics metrics;
+    private RenderProfile renderProfile;
+    private MemoryUsageSetting memoryUsage;
+
+    //memoryCapBytes <= 0 means no cap on the page images held in memory at once
+    public ParallelPageRenderer(File pdfFile, int threadCount, long memoryCapBytes) {
+        this.pdfFile = pdfFile;
+        this.threadCount = Math.max(1, threadCount);
+        this.memoryCapBytes = memoryCapBytes;
+    }
+
+    //Times every worker's document load in the conversion's metrics
+    public void setMetrics(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    //Hints and subsampling every worker's renderer is set up with
+    public void setRenderProfile(RenderProfile renderProfile) {
+        this.renderProfile = renderProfile;
+    }
+
+    //Heap budget for the parsed PDF, split evenly between the workers' documents. Null keeps everything in memory.
+    public void setMemoryUsage(MemoryUsageSetting memoryUsage) {
+        this.memoryUsage = memoryUsage;
+    }
+
+    //Renders the given pages for callers that do not use a memory cap, results are in the same order as pages
+    public <T> List<T> render(List<Integer> pages, PageTask<T> task) throws IOException {
+        return render(pages, 0, 0, task);
+    }
+
+    //Renders the given pages and returns the task results in the same order as pages.
+    //dpi and bytesPerPixel are only used to estimate the memory each page needs.
+    public <T> List<T> render(List<Integer> pages, float dpi, int bytesPerPixel, PageTask<T> task) throws IOException {
+        Object[] results = new Object[pages.size()];
+        AtomicInteger next = new AtomicInteger(0);
+
+        //Memory cap is tracked in KB so the permits fit in an int
+        int capKb = memoryCapBytes > 0 ? (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryCapBytes / 1024)) : 0;
+        Semaphore memory = capKb > 0 ? new Semaphore(capKb, true) : null;
+
+        int workers = Math.min(threadCount, Math.max(1, pages.size()));
+        MemoryUsageSetting workerMemory = PdfMemoryBudget.split(memoryUsage, workers);
+        ExecutorService pool = null;
+        try {
+            if (workers == 1) {
+                //No point paying for a pool when there is only one worker
+                renderPages(pages, results, next, dpi, bytesPerPixel, memory, capKb, workerMemory, task);
+                return toList(results);
+            }
+
+            pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "pdf-render-worker");
+                t.setDaemon(true);
+                return t;
+            });
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> {
+                    renderPages(pages, results, next, dpi, bytesPerPixel, memory, capKb, workerMemory, task);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    //Stop the other workers and surface the original failure
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException(cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Page rendering was interrupted", e);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+        return toList(results);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> toList(Object[] results) {
+        return new ArrayList<>((List<T>) Arrays.asList(results));
+    }
+
+    private void renderPages(List<Integer> pages, Object[] results, AtomicInteger next, float dpi, int bytesPerPixel,
+                             Semaphore memory, int capKb, MemoryUsageSetting workerMemory, PageTask<?> task) throws IOException, InterruptedException {
+        try (PDDocument document = metrics == null ? PdfMemoryBudget.load(pdfFile, workerMemory) : metrics.time(ConversionMetrics.LOAD, () -> PdfMemoryBudget.load(pdfFile, workerMemory))) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            if (renderProfile != null) {
+                renderProfile.configure(renderer);
+            }
+            int slot;
+            while ((slot = next.getAndIncrement()) < pages.size()) {
+                int pageIndex = pages.get(slot);
+                //A single page larger than the cap still gets rendered, just on its own
+                int permits = memory == null ? 0 : (int) Math.min(capKb, Math.max(1, estimateBytes(document, pageIndex, dpi, bytesPerPixel) / 1024));
+                if (memory != null) {
+                    memory.acquire(permits);
+                }
+                try {
+                    results[slot] = task.render(document, renderer, pageIndex);
+                } finally {
+                    if (memory != null) {
+                        memory.release(permits);
+                    }
+                }
+            }
+        }
+    }
+
+    //Size of the raster PDFBox will allocate for a page at the given DPI
+    public static long estimateBytes(PDDocument document, int pageIndex, float dpi, int bytesPerPixel) {
+        PDRectangle box = document.getPage(pageIndex).getCropBox();
+        int rotation = document.getPage(pageIndex).getRotation();
+        float width = box.getWidth();
+        float height = box.getHeight();
+        if (rotation == 90 || rotation == 270) {
+            float swap = width;
+            width = height;
+            height = swap;
+        }
+        long pixels = (long) Math.ceil(width / 72f * dpi) * (long) Math.ceil(height / 72f * dpi);
+        return pixels * Math.max(1, bytesPerPixel);
+    }
+}
@@ -0,0 +1,945 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.xwpf.usermodel.Document;
+import org.apache.poi.xwpf.usermodel.LineSpacingRule;
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTblGrid;
+
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+
+//Rebuilds a DOCX from the text and images of a PDF, without Microsoft Word.
+//Every page is read on its own, so a ParallelPageRenderer can read several at once with one PDDocument per worker.
+//The words PDFTextStripper finds are grouped into lines; lines whose words sit in the same columns for several rows
+//become a table and the other lines are joined into paragraphs. Images are placed where the page draws them: JPEGs
+//are copied out of the PDF as they are, other images are stored as PNG. The pages are then written with
+//XWPFDocument in page order, each one starting on a new page. The result is editable text in the PDF's fonts,
+//sizes and colours, not an exact copy of its layout.
+public class PdfDocxReconstructor {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final float TWIPS_PER_POINT = 20f;
+    private static final int EMUS_PER_POINT = 12700;
+    //Words further apart than this many font sizes are in different columns
+    private static final float COLUMN_GAP = 1.8f;
+    //A line more than this many font sizes below the one before starts a new paragraph
+    private static final float PARAGRAPH_GAP = 1.6f;
+    //Height of a line of text relative to its font size, about Word's for the usual fonts
+    private static final float LINE_HEIGHT = 1.2f;
+    //Images smaller than this on either side are rules, bullets and other decoration
+    private static final float MIN_IMAGE_SIZE = 8f;
+    //Page margins are taken from the content, within these bounds
+    private static final float MIN_MARGIN = 18f;
+    private static final float MAX_MARGIN = 144f;
+    //Word's lines run a little taller than the PDF's, the bottom margin keeps this much room for that
+    //so the last line of a page does not spill onto a page of its own
+    private static final float BOTTOM_SLACK = 14f;
+    //Lines ending in dot leaders and a page number, like a table of contents, end their paragraph
+    private static final Pattern LEADER_LINE = Pattern.compile(".*(\\.{4,}|\\u2026{2,})\\s*[0-9ivxlcIVXLC]+$");
+    //Lines starting like a list item always start a paragraph
+    private static final Pattern LIST_ITEM = Pattern.compile("^([\\u2022\\u25AA\\u25E6\\u2023\\u2013*-]|\\(?[0-9]{1,3}[.)]|\\(?[a-zA-Z][.)])\\s.*");
+
+    //Encoded images of every document being read, so a logo on every page is encoded once per worker
+    private static final Map<PDDocument, Map<Object, Object[]>> ENCODED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private PdfDocxReconstructor() {
+    }
+
+    //What was found on one page, in reading order
+    public static class PageContent {
+        private final float width;
+        private final float height;
+        private final List<Block> blocks = new ArrayList<>();
+        //Extent of the content, Float.NaN for an empty page
+        private float left = Float.NaN;
+        private float right = Float.NaN;
+        private float top = Float.NaN;
+        private float bottom = Float.NaN;
+
+        PageContent(float width, float height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public int getParagraphCount() {
+            return (int) blocks.stream().filter(b -> b instanceof TextBlock).count();
+        }
+
+        public int getTableCount() {
+            return (int) blocks.stream().filter(b -> b instanceof TableBlock).count();
+        }
+
+        public int getPictureCount() {
+            return (int) blocks.stream().filter(b -> b instanceof PictureBlock).count();
+        }
+
+        private boolean isEmpty() {
+            return Float.isNaN(left);
+        }
+
+        private void include(float x0, float y0, float x1, float y1) {
+            boolean first = isEmpty();
+            left = first ? x0 : Math.min(left, x0);
+            right = first ? x1 : Math.max(right, x1);
+            top = first ? y0 : Math.min(top, y0);
+            bottom = first ? y1 : Math.max(bottom, y1);
+        }
+    }
+
+    //Reads the text and images of one page. Called on the worker that owns the document.
+    public static PageContent read(PDDocument document, int pageIndex) throws IOException {
+        PDPage page = document.getPage(pageIndex);
+        PDRectangle box = page.getCropBox();
+        boolean turned = page.getRotation() == 90 || page.getRotation() == 270;
+        PageContent content = new PageContent(turned ? box.getHeight() : box.getWidth(), turned ? box.getWidth() : box.getHeight());
+
+        WordCollector words = new WordCollector();
+        words.setStartPage(pageIndex + 1);
+        words.setEndPage(pageIndex + 1);
+        words.writeText(document, Writer.nullWriter());
+        List<Line> lines = words.lines;
+
+        ImageCollector images = new ImageCollector(page, ENCODED.computeIfAbsent(document, d -> new IdentityHashMap<>()));
+        images.processPage(page);
+
+        for (Line line : lines) {
+            content.include(line.x, line.top(), line.end, line.bottom());
+        }
+        for (PictureBlock picture : images.pictures) {
+            content.include(picture.x, picture.top, picture.x + picture.width, picture.top + picture.height);
+        }
+        if (!content.isEmpty()) {
+            content.blocks.addAll(group(lines, content.left, content.right));
+        }
+
+        //Pictures go before the first text that starts below them
+        for (PictureBlock picture : images.pictures) {
+            int at = 0;
+            while (at < content.blocks.size() && content.blocks.get(at).top <= picture.top) {
+                at++;
+            }
+            content.blocks.add(at, picture);
+        }
+        return content;
+    }
+
+    //Writes the pages to a DOCX, in the order given. Returns the number of pages written.
+    public static int write(List<PageContent> pages, File target) throws IOException {
+        try (XWPFDocument docx = new XWPFDocument()) {
+            float[] margins = margins(pages);
+            section(docx, pages.isEmpty() ? null : pages.get(0), margins);
+            float textWidth = (pages.isEmpty() ? PDRectangle.LETTER.getWidth() : pages.get(0).width) - margins[0] - margins[1];
+            int pictureNumber = 0;
+            for (int p = 0; p < pages.size(); p++) {
+                PageContent page = pages.get(p);
+                boolean newPage = p > 0;
+                if (page.blocks.isEmpty() || (newPage && page.blocks.get(0) instanceof TableBlock)) {
+                    //A table cannot start a page by itself, an empty paragraph carries the page break
+                    XWPFParagraph breakParagraph = docx.createParagraph();
+                    breakParagraph.setPageBreak(newPage);
+                    breakParagraph.setSpacingAfter(0);
+                    newPage = false;
+                }
+                float previousBottom = margins[2];
+                for (Block block : page.blocks) {
+                    float spaceBefore = Math.max(0, block.top - previousBottom);
+                    if (block instanceof TableBlock) {
+                        writeTable(docx, (TableBlock) block, margins[0]);
+                    } else {
+                        XWPFParagraph paragraph = docx.createParagraph();
+                        paragraph.setPageBreak(newPage);
+                        paragraph.setSpacingBefore(Math.round(spaceBefore * TWIPS_PER_POINT));
+                        paragraph.setSpacingAfter(0);
+                        if (block instanceof TextBlock) {
+                            writeText(paragraph, (TextBlock) block, margins[0]);
+                        } else {
+                            writePicture(paragraph, (PictureBlock) block, page.width, margins[0], textWidth, ++pictureNumber);
+                        }
+                    }
+                    newPage = false;
+                    previousBottom = block.bottom;
+                }
+            }
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+                docx.write(out);
+            } catch (IOException e) {
+                Files.deleteIfExists(target.toPath());
+                throw e;
+            }
+        }
+        return pages.size();
+    }
+
+    //Left, right, top and bottom margin: the narrowest the content leaves on any page, within MIN_MARGIN and MAX_MARGIN
+    private static float[] margins(List<PageContent> pages) {
+        float[] margins = {MAX_MARGIN, MAX_MARGIN, MAX_MARGIN, MAX_MARGIN};
+        boolean any = false;
+        for (PageContent page : pages) {
+            if (page.isEmpty()) {
+                continue;
+            }
+            any = true;
+            margins[0] = Math.min(margins[0], page.left);
+            margins[1] = Math.min(margins[1], page.width - page.right);
+            margins[2] = Math.min(margins[2], page.top);
+            margins[3] = Math.min(margins[3], page.height - page.bottom - BOTTOM_SLACK);
+        }
+        for (int i = 0; i < margins.length; i++) {
+            margins[i] = any ? Math.max(MIN_MARGIN, margins[i]) : 72f;
+        }
+        return margins;
+    }
+
+    //Page size of the first page and the margins, for the document's only section.
+    //Parsed from XML because poi-ooxml-lite has no classes for the page size and margin elements.
+    private static void section(XWPFDocument docx, PageContent first, float[] margins) throws IOException {
+        float width = first == null ? PDRectangle.LETTER.getWidth() : first.width;
+        float height = first == null ? PDRectangle.LETTER.getHeight() : first.height;
+        String xml = "<xml-fragment xmlns:w=\"" + W_NS + "\">"
+                + "<w:pgSz w:w=\"" + twips(width) + "\" w:h=\"" + twips(height) + "\"" + (width > height ? " w:orient=\"landscape\"" : "") + "/>"
+                + "<w:pgMar w:top=\"" + twips(margins[2]) + "\" w:right=\"" + twips(margins[1]) + "\" w:bottom=\"" + twips(margins[3])
+                + "\" w:left=\"" + twips(margins[0]) + "\" w:header=\"" + twips(Math.min(36, margins[2]))
+                + "\" w:footer=\"" + twips(Math.min(36, margins[3])) + "\" w:gutter=\"0\"/>"
+                + "</xml-fragment>";
+        try {
+            docx.getDocument().getBody().setSectPr(CTSectPr.Factory.parse(xml));
+        } catch (XmlException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static BigInteger twips(float points) {
+        return BigInteger.valueOf(Math.round(points * TWIPS_PER_POINT));
+    }
+
+    private static void writeText(XWPFParagraph paragraph, TextBlock text, float left) {
+        paragraph.setAlignment(text.alignment);
+        if (text.alignment == ParagraphAlignment.LEFT || text.alignment == ParagraphAlignment.BOTH) {
+            paragraph.setIndentationLeft(Math.round(Math.max(0, text.indent - left) * TWIPS_PER_POINT));
+            if (Math.abs(text.firstLineIndent) >= 1) {
+                if (text.firstLineIndent > 0) {
+                    paragraph.setIndentationFirstLine(Math.round(text.firstLineIndent * TWIPS_PER_POINT));
+                } else {
+                    paragraph.setIndentationHanging(Math.round(-text.firstLineIndent * TWIPS_PER_POINT));
+                }
+            }
+        }
+        paragraph.setSpacingBetween(Math.round(text.lineHeight * 10) / 10.0, LineSpacingRule.AT_LEAST);
+        writeSpans(paragraph, text.spans);
+    }
+
+    //Tabs between the columns of a line go in runs of their own
+    private static void writeSpans(XWPFParagraph paragraph, List<Span> spans) {
+        for (Span span : spans) {
+            String[] parts = span.text.toString().split("\t", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    paragraph.createRun().addTab();
+                }
+                if (parts[i].isEmpty()) {
+                    continue;
+                }
+                XWPFRun run = paragraph.createRun();
+                run.setText(parts[i]);
+                run.setFontFamily(span.style.family);
+                run.setFontSize(span.style.size);
+                run.setBold(span.style.bold);
+                run.setItalic(span.style.italic);
+                if (span.style.color != 0) {
+                    run.setColor(String.format("%06X", span.style.color));
+                }
+            }
+        }
+    }
+
+    private static void writeTable(XWPFDocument docx, TableBlock block, float left) {
+        int columns = block.columns.size();
+        XWPFTable table = docx.createTable(block.rows.size(), columns);
+        //Positions on the page come from the PDF, borders and padding would only shift them
+        table.removeBorders();
+        table.setCellMargins(0, 0, 0, 0);
+        CTTblGrid grid = table.getCTTbl().getTblGrid() != null ? table.getCTTbl().getTblGrid() : table.getCTTbl().addNewTblGrid();
+        while (grid.sizeOfGridColArray() > 0) {
+            grid.removeGridCol(0);
+        }
+        float[] widths = new float[columns];
+        for (int c = 0; c < columns; c++) {
+            float start = c == 0 ? left : block.columns.get(c)[0];
+            float end = c + 1 < columns ? block.columns.get(c + 1)[0] : block.columns.get(c)[1];
+            widths[c] = Math.max(TWIPS_PER_POINT, end - start);
+            grid.addNewGridCol().setW(twips(widths[c]));
+        }
+        for (int r = 0; r < block.rows.size(); r++) {
+            List<List<Span>> cells = block.rows.get(r);
+            table.getRow(r).setHeight(Math.round(block.heights[r] * TWIPS_PER_POINT));
+            for (int c = 0; c < columns; c++) {
+                XWPFTableCell cell = table.getRow(r).getCell(c);
+                cell.setWidth(String.valueOf(twips(widths[c])));
+                XWPFParagraph paragraph = cell.getParagraphs().isEmpty() ? cell.addParagraph() : cell.getParagraphs().get(0);
+                paragraph.setSpacingAfter(0);
+                if (c == 0) {
+                    paragraph.setIndentationLeft(Math.round(Math.max(0, block.columns.get(0)[0] - left) * TWIPS_PER_POINT));
+                }
+                writeSpans(paragraph, cells.get(c));
+            }
+        }
+    }
+
+    private static void writePicture(XWPFParagraph paragraph, PictureBlock picture, float pageWidth, float left, float textWidth, int number) throws IOException {
+        //Shrunk to fit between the margins, never enlarged
+        float scale = Math.min(1f, textWidth / picture.width);
+        float width = picture.width * scale;
+        float height = picture.height * scale;
+        float centre = picture.x + picture.width / 2;
+        if (Math.abs(centre - pageWidth / 2) < pageWidth / 20) {
+            paragraph.setAlignment(ParagraphAlignment.CENTER);
+        } else {
+            paragraph.setIndentationLeft(Math.round(Math.max(0, Math.min(picture.x - left, textWidth - width)) * TWIPS_PER_POINT));
+        }
+        boolean jpeg = picture.format == Document.PICTURE_TYPE_JPEG;
+        try (InputStream in = new ByteArrayInputStream(picture.data)) {
+            paragraph.createRun().addPicture(in, picture.format, "image" + number + (jpeg ? ".jpeg" : ".png"),
+                    Math.round(width * EMUS_PER_POINT), Math.round(height * EMUS_PER_POINT));
+        } catch (InvalidFormatException e) {
+            throw new IOException(e);
+        }
+    }
+
+    //Turns the page's lines into tables and paragraphs
+    private static List<Block> group(List<Line> lines, float left, float right) {
+        List<Block> blocks = new ArrayList<>();
+        int i = 0;
+        while (i < lines.size()) {
+            int tableEnd = tableEnd(lines, i);
+            if (tableEnd > i) {
+                blocks.add(table(lines.subList(i, tableEnd), right));
+                i = tableEnd;
+                continue;
+            }
+            List<Line> paragraph = new ArrayList<>();
+            paragraph.add(lines.get(i++));
+            while (i < lines.size() && lines.get(i - 1).segments.size() == 1 && continues(paragraph, lines.get(i), left, right)
+                    && tableEnd(lines, i) == i) {
+                paragraph.add(lines.get(i++));
+            }
+            blocks.add(paragraph(paragraph, left, right));
+        }
+        return blocks;
+    }
+
+    //End of the table starting at the line, the line itself when no table starts there.
+    //A table is two or more consecutive lines split into columns, with the columns overlapping from line to line.
+    private static int tableEnd(List<Line> lines, int start) {
+        int end = start;
+        while (end < lines.size() && lines.get(end).segments.size() >= 2
+                && (end == start || lines.get(end).baseline - lines.get(end - 1).baseline < 2.5f * lines.get(end - 1).size)) {
+            end++;
+        }
+        if (end - start < 2 || columns(lines.subList(start, end)).size() < 2) {
+            return start;
+        }
+        return end;
+    }
+
+    //Horizontal extents of the columns: the segments' extents, merged where they overlap
+    private static List<float[]> columns(List<Line> rows) {
+        List<float[]> extents = new ArrayList<>();
+        for (Line row : rows) {
+            for (Segment segment : row.segments) {
+                extents.add(new float[]{segment.x, segment.end});
+            }
+        }
+        extents.sort((a, b) -> Float.compare(a[0], b[0]));
+        List<float[]> columns = new ArrayList<>();
+        for (float[] extent : extents) {
+            float[] last = columns.isEmpty() ? null : columns.get(columns.size() - 1);
+            if (last != null && extent[0] <= last[1]) {
+                last[1] = Math.max(last[1], extent[1]);
+            } else {
+                columns.add(extent.clone());
+            }
+        }
+        return columns;
+    }
+
+    //The last column reaches to the right edge of the page's text, so its cells wrap where the PDF's could
+    private static TableBlock table(List<Line> rows, float right) {
+        List<float[]> columns = columns(rows);
+        float[] last = columns.get(columns.size() - 1);
+        last[1] = Math.max(last[1], right);
+        //Rows are at least as high as the PDF's, so the text below stays where it was
+        float[] heights = new float[rows.size()];
+        float height = 0;
+        for (int r = 0; r < rows.size(); r++) {
+            heights[r] = LINE_HEIGHT * rows.get(r).size;
+            if (r + 1 < rows.size()) {
+                heights[r] = Math.max(heights[r], rows.get(r + 1).baseline - rows.get(r).baseline);
+            }
+            height += heights[r];
+        }
+        TableBlock table = new TableBlock(columns, heights, rows.get(0).top(), rows.get(0).top() + height);
+        for (Line row : rows) {
+            List<List<Span>> cells = new ArrayList<>();
+            for (int c = 0; c < columns.size(); c++) {
+                cells.add(new ArrayList<>());
+            }
+            for (Segment segment : row.segments) {
+                int c = 0;
+                while (c + 1 < columns.size() && columns.get(c + 1)[0] <= segment.x) {
+                    c++;
+                }
+                if (!cells.get(c).isEmpty()) {
+                    append(cells.get(c), " ", cells.get(c).get(cells.get(c).size() - 1).style);
+                }
+                appendWords(cells.get(c), segment.words);
+            }
+            cells.forEach(PdfDocxReconstructor::trim);
+            table.rows.add(cells);
+        }
+        return table;
+    }
+
+    //Whether the line carries on the paragraph rather than starting a new one
+    private static boolean continues(List<Line> paragraph, Line line, float left, float right) {
+        Line previous = paragraph.get(paragraph.size() - 1);
+        float step = line.baseline - previous.baseline;
+        if (step <= 0 || step > PARAGRAPH_GAP * previous.size || Math.abs(line.size - previous.size) > 1) {
+            return false;
+        }
+        if (LIST_ITEM.matcher(line.text()).matches() || LEADER_LINE.matcher(previous.text()).matches() || (previous.isBold() && !line.isBold())) {
+            return false;
+        }
+        boolean centred = centred(previous, left, right) && centred(line, left, right);
+        if (!centred && line.x > left + (right - left) / 3) {
+            //Lines set against the right edge keep their own line
+            return false;
+        }
+        if (!centred && previous.end < right - 4 * previous.size) {
+            //A line that stops well short of the right edge ends its paragraph
+            return false;
+        }
+        if (paragraph.size() == 1) {
+            //The first line may be indented or outdented, the second sets the paragraph's left edge.
+            //Only list items have their second line indented further, under the item's text.
+            return centred || line.x <= previous.x + previous.size || LIST_ITEM.matcher(previous.text()).matches();
+        }
+        return centred || Math.abs(line.x - previous.x) <= previous.size;
+    }
+
+    private static boolean centred(Line line, float left, float right) {
+        float middle = (line.x + line.end) / 2;
+        return line.x > left + 2 * line.size && Math.abs(middle - (left + right) / 2) < line.size;
+    }
+
+    private static TextBlock paragraph(List<Line> lines, float left, float right) {
+        Line first = lines.get(0);
+        Line last = lines.get(lines.size() - 1);
+        //Lines are at least as far apart as in the PDF, so the text below stays where it was
+        float lineHeight = LINE_HEIGHT * first.size;
+        if (lines.size() > 1) {
+            lineHeight = Math.max(lineHeight, (last.baseline - first.baseline) / (lines.size() - 1));
+        }
+        TextBlock block = new TextBlock(first.top(), first.top() + lineHeight * lines.size(), lineHeight);
+        boolean centred = true;
+        boolean rightAligned = true;
+        for (Line line : lines) {
+            centred &= centred(line, left, right);
+            rightAligned &= Math.abs(line.end - right) < line.size && line.x > left + (right - left) / 3;
+        }
+        boolean justified = lines.size() > 1;
+        for (int i = 0; i + 1 < lines.size(); i++) {
+            justified &= Math.abs(lines.get(i).end - right) < lines.get(i).size;
+        }
+        block.alignment = centred ? ParagraphAlignment.CENTER : rightAligned ? ParagraphAlignment.RIGHT
+                : justified ? ParagraphAlignment.BOTH : ParagraphAlignment.LEFT;
+        block.indent = lines.size() > 1 ? lines.get(1).x : first.x;
+        block.firstLineIndent = first.x - block.indent;
+        for (int l = 0; l < lines.size(); l++) {
+            Line line = lines.get(l);
+            if (l > 0) {
+                Span previous = block.spans.get(block.spans.size() - 1);
+                char end = previous.text.charAt(previous.text.length() - 1);
+                //A hyphen at the end of a line joins the words around it
+                if (end != '-' && end != ' ') {
+                    append(block.spans, " ", previous.style);
+                }
+            }
+            for (int s = 0; s < line.segments.size(); s++) {
+                if (s > 0) {
+                    append(block.spans, "\t", block.spans.get(block.spans.size() - 1).style);
+                }
+                appendWords(block.spans, line.segments.get(s).words);
+            }
+        }
+        trim(block.spans);
+        return block;
+    }
+
+    //Drops the spaces the PDF has before the first and after the last word
+    private static void trim(List<Span> spans) {
+        while (!spans.isEmpty() && spans.get(0).text.length() > 0 && spans.get(0).text.charAt(0) == ' ') {
+            spans.get(0).text.deleteCharAt(0);
+        }
+        for (int i = spans.size() - 1; i >= 0; i--) {
+            StringBuilder text = spans.get(i).text;
+            while (text.length() > 0 && text.charAt(text.length() - 1) == ' ') {
+                text.setLength(text.length() - 1);
+            }
+            if (text.length() > 0) {
+                break;
+            }
+        }
+    }
+
+    private static void appendWords(List<Span> spans, List<Word> words) {
+        for (int w = 0; w < words.size(); w++) {
+            Word word = words.get(w);
+            if (w > 0 && !words.get(w - 1).text.endsWith(" ") && !word.text.startsWith(" ")) {
+                append(spans, " ", word.style);
+            }
+            append(spans, word.text, word.style);
+        }
+    }
+
+    //Adds text to the last span when the style is the same
+    private static void append(List<Span> spans, String text, Style style) {
+        Span last = spans.isEmpty() ? null : spans.get(spans.size() - 1);
+        if (last != null && (last.style.equals(style) || text.trim().isEmpty())) {
+            last.text.append(text);
+        } else {
+            spans.add(new Span(text, style));
+        }
+    }
+
+    //Something placed on the page, top and bottom in points from the top of the page
+    private abstract static class Block {
+        final float top;
+        final float bottom;
+
+        Block(float top, float bottom) {
+            this.top = top;
+            this.bottom = bottom;
+        }
+    }
+
+    private static class TextBlock extends Block {
+        final List<Span> spans = new ArrayList<>();
+        ParagraphAlignment alignment = ParagraphAlignment.LEFT;
+        float indent;
+        float firstLineIndent;
+        final float lineHeight;
+
+        TextBlock(float top, float bottom, float lineHeight) {
+            super(top, bottom);
+            this.lineHeight = lineHeight;
+        }
+    }
+
+    private static class TableBlock extends Block {
+        final List<float[]> columns;
+        final float[] heights;
+        final List<List<List<Span>>> rows = new ArrayList<>();
+
+        TableBlock(List<float[]> columns, float[] heights, float top, float bottom) {
+            super(top, bottom);
+            this.columns = columns;
+            this.heights = heights;
+        }
+    }
+
+    private static class PictureBlock extends Block {
+        final byte[] data;
+        final int format;
+        final float x;
+        final float width;
+        final float height;
+
+        PictureBlock(byte[] data, int format, float x, float top, float width, float height) {
+            super(top, top + height);
+            this.data = data;
+            this.format = format;
+            this.x = x;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    //Run formatting as far as the PDF tells it
+    private static class Style {
+        final String family;
+        final double size;
+        final boolean bold;
+        final boolean italic;
+        final int color;
+
+        Style(String family, double size, boolean bold, boolean italic, int color) {
+            this.family = family;
+            this.size = size;
+            this.bold = bold;
+            this.italic = italic;
+            this.color = color;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Style)) {
+                return false;
+            }
+            Style style = (Style) other;
+            return family.equals(style.family) && size == style.size && bold == style.bold && italic == style.italic && color == style.color;
+        }
+
+        @Override
+        public int hashCode() {
+            return family.hashCode() * 31 + Double.hashCode(size);
+        }
+    }
+
+    private static class Span {
+        final StringBuilder text;
+        final Style style;
+
+        Span(String text, Style style) {
+            this.text = new StringBuilder(text);
+            this.style = style;
+        }
+    }
+
+    //Text PDFTextStripper put together, with where it starts and ends on the baseline
+    private static class Word {
+        final String text;
+        final float x;
+        final float end;
+        final float baseline;
+        final Style style;
+
+        Word(String text, float x, float end, float baseline, Style style) {
+            this.text = text;
+            this.x = x;
+            this.end = end;
+            this.baseline = baseline;
+            this.style = style;
+        }
+    }
+
+    //Words of a line that are close together
+    private static class Segment {
+        final List<Word> words = new ArrayList<>();
+        float x;
+        float end;
+    }
+
+    private static class Line {
+        final List<Segment> segments = new ArrayList<>();
+        final float x;
+        final float end;
+        final float baseline;
+        final float size;
+
+        Line(List<Word> words) {
+            float size = 0;
+            for (Word word : words) {
+                size = Math.max(size, (float) word.style.size);
+            }
+            this.size = Math.max(1, size);
+            this.x = words.get(0).x;
+            this.end = words.get(words.size() - 1).end;
+            this.baseline = words.get(0).baseline;
+            Segment segment = null;
+            for (Word word : words) {
+                if (segment == null || word.x - segment.end > COLUMN_GAP * this.size) {
+                    segment = new Segment();
+                    segment.x = word.x;
+                    segments.add(segment);
+                }
+                segment.words.add(word);
+                segment.end = Math.max(segment.end, word.end);
+            }
+        }
+
+        float top() {
+            return baseline - size;
+        }
+
+        float bottom() {
+            return baseline + (LINE_HEIGHT - 1) * size;
+        }
+
+        String text() {
+            StringBuilder text = new StringBuilder();
+            for (Segment segment : segments) {
+                for (Word word : segment.words) {
+                    text.append(word.text).append(' ');
+                }
+            }
+            return text.toString().trim();
+        }
+
+        boolean isBold() {
+            for (Segment segment : segments) {
+                for (Word word : segment.words) {
+                    if (!word.style.bold) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    //Collects the words of a page, line by line, in the order PDFTextStripper sorts them
+    private static class WordCollector extends PDFTextStripper {
+        private final List<Line> lines = new ArrayList<>();
+        private final List<Word> current = new ArrayList<>();
+        private final Map<TextPosition, Integer> colors = new IdentityHashMap<>();
+
+        WordCollector() throws IOException {
+            setSortByPosition(true);
+            setSuppressDuplicateOverlappingText(true);
+        }
+
+        @Override
+        protected void processTextPosition(TextPosition text) {
+            super.processTextPosition(text);
+            colors.put(text, rgb(getGraphicsState().getNonStrokingColor()));
+        }
+
+        //PDFTextStripper only separates words the PDF draws apart. Words the PDF separates with space characters,
+        //which can be a whole row of a table, are split here so the gaps between columns can be found.
+        @Override
+        protected void writeString(String text, List<TextPosition> positions) {
+            List<TextPosition> word = new ArrayList<>();
+            for (TextPosition position : positions) {
+                if (position.getUnicode() == null || position.getUnicode().trim().isEmpty()) {
+                    addWord(word);
+                    word.clear();
+                } else {
+                    word.add(position);
+                }
+            }
+            addWord(word);
+        }
+
+        private void addWord(List<TextPosition> positions) {
+            if (positions.isEmpty()) {
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (TextPosition position : positions) {
+                text.append(position.getUnicode());
+            }
+            TextPosition first = positions.get(0);
+            TextPosition last = positions.get(positions.size() - 1);
+            float size = Math.abs(first.getTextMatrix().getScalingFactorY());
+            Integer color = colors.get(first);
+            Style style = style(first.getFont(), Math.round(size * 2) / 2.0, color == null ? 0 : color);
+            current.add(new Word(text.toString(), first.getXDirAdj(), last.getXDirAdj() + last.getWidthDirAdj(), first.getYDirAdj(), style));
+        }
+
+        @Override
+        protected void writeLineSeparator() {
+            endLine();
+        }
+
+        @Override
+        protected void writePageEnd() {
+            endLine();
+        }
+
+        @Override
+        protected void endArticle() throws IOException {
+            endLine();
+            super.endArticle();
+        }
+
+        private void endLine() {
+            if (!current.isEmpty()) {
+                lines.add(new Line(new ArrayList<>(current)));
+                current.clear();
+            }
+        }
+    }
+
+    private static int rgb(PDColor color) {
+        try {
+            return color == null ? 0 : color.toRGB() & 0xFFFFFF;
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static Style style(PDFont font, double size, int color) {
+        String name = font == null || font.getName() == null ? "" : font.getName();
+        PDFontDescriptor descriptor = font == null ? null : font.getFontDescriptor();
+        String lower = name.toLowerCase();
+        boolean bold = lower.contains("bold") || lower.contains("black") || lower.contains("heavy")
+                || (descriptor != null && (descriptor.isForceBold() || descriptor.getFontWeight() >= 600));
+        boolean italic = lower.contains("italic") || lower.contains("oblique") || (descriptor != null && descriptor.isItalic());
+        return new Style(family(name), Math.max(1, size), bold, italic, color);
+    }
+
+    //Word font name for a PDF font name, e.g. ABCDEF+TimesNewRomanPS-BoldMT is Times New Roman
+    static String family(String pdfName) {
+        String name = pdfName.replaceFirst("^[A-Z]{6}\\+", "");
+        name = name.split("[-,]")[0].replaceFirst("(PS)?MT$", "").replaceFirst("PS$", "");
+        if (name.isEmpty()) {
+            return "Arial";
+        }
+        name = name.replaceAll("([a-z])([A-Z])", "$1 $2");
+        if (name.startsWith("Helvetica")) {
+            return "Arial";
+        }
+        if (name.equals("Times") || name.startsWith("Times-") || name.equals("Times Roman")) {
+            return "Times New Roman";
+        }
+        if (name.equals("Courier")) {
+            return "Courier New";
+        }
+        return name;
+    }
+
+    //Finds the images the page draws and where, in points from the top left of the page
+    private static class ImageCollector extends PDFGraphicsStreamEngine {
+        private final List<PictureBlock> pictures = new ArrayList<>();
+        private final Map<Object, Object[]> encoded;
+        private final PDRectangle box;
+
+        ImageCollector(PDPage page, Map<Object, Object[]> encoded) {
+            super(page);
+            this.encoded = encoded;
+            box = page.getCropBox();
+        }
+
+        @Override
+        public void drawImage(PDImage image) throws IOException {
+            Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+            float width = Math.abs(ctm.getScalingFactorX());
+            float height = Math.abs(ctm.getScalingFactorY());
+            if (width < MIN_IMAGE_SIZE || height < MIN_IMAGE_SIZE || image.isStencil()) {
+                return;
+            }
+            //Inline images are part of the content stream, only XObjects can be shared between pages
+            Object[] data = image instanceof PDImageXObject ? encoded.get(((PDImageXObject) image).getCOSObject()) : null;
+            if (data == null) {
+                data = encode(image);
+                if (image instanceof PDImageXObject) {
+                    encoded.put(((PDImageXObject) image).getCOSObject(), data);
+                }
+            }
+            float x = ctm.getTranslateX() - box.getLowerLeftX();
+            float top = box.getUpperRightY() - (ctm.getTranslateY() + height);
+            //Images drawn over each other, like a logo over its own shadow, are shown once
+            for (PictureBlock picture : pictures) {
+                float overlapX = Math.min(picture.x + picture.width, x + width) - Math.max(picture.x, x);
+                float overlapY = Math.min(picture.top + picture.height, top + height) - Math.max(picture.top, top);
+                if (overlapX > 0 && overlapY > 0 && overlapX * overlapY > 0.9f * Math.max(picture.width * picture.height, width * height)) {
+                    return;
+                }
+            }
+            pictures.add(new PictureBlock((byte[]) data[0], (Integer) data[1], x, top, width, height));
+        }
+
+        @Override
+        public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+        }
+
+        @Override
+        public void clip(int windingRule) {
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+        }
+
+        @Override
+        public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        }
+
+        @Override
+        public Point2D getCurrentPoint() {
+            return new Point2D.Float();
+        }
+
+        @Override
+        public void closePath() {
+        }
+
+        @Override
+        public void endPath() {
+        }
+
+        @Override
+        public void strokePath() {
+        }
+
+        @Override
+        public void fillPath(int windingRule) {
+        }
+
+        @Override
+        public void fillAndStrokePath(int windingRule) {
+        }
+
+        @Override
+        public void shadingFill(COSName shadingName) {
+        }
+    }
+
+    //The image's bytes and POI picture type. Plain RGB and gray JPEGs are copied without decoding them,
+    //everything else is decoded with its masks and stored as PNG.
+    static Object[] encode(PDImage image) throws IOException {
+        boolean plainJpeg = "jpg".equals(image.getSuffix()) && image.getColorSpace().getNumberOfComponents() != 4
+                && (image.getDecode() == null || image.getDecode().size() == 0)
+                && !(image instanceof PDImageXObject && ((PDImageXObject) image).getSoftMask() != null);
+        if (plainJpeg) {
+            try (InputStream in = image.createInputStream(Collections.singletonList(COSName.DCT_DECODE.getName()))) {
+                return new Object[]{IOUtils.toByteArray(in), Document.PICTURE_TYPE_JPEG};
+            }
+        }
+        BufferedImage decoded = image instanceof PDImageXObject ? ((PDImageXObject) image).getImage() : image.getImage();
+        return new Object[]{ImageCodecs.encode(decoded, "png", null), Document.PICTURE_TYPE_PNG};
+    }
+}
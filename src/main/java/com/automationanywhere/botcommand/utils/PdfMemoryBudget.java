@@ -0,0 +1,45 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+//Limits the heap PDFBox uses for the streams of a loaded PDF.
+//By default every parsed stream is kept in main memory, so one very large PDF can exhaust the heap of the bot runner.
+//With a budget PDFBox keeps up to the cap in memory and spills the rest to scratch files, or uses scratch files only.
+public class PdfMemoryBudget {
+
+    private PdfMemoryBudget() {
+    }
+
+    //Setting for the action options, null for PDFBox's default of main memory only.
+    //maxMainMemoryMB of 0 keeps everything in scratch files, above 0 keeps that much in memory and spills the rest.
+    //A scratch folder without a cap also means scratch files only. Without a folder, scratch files go to the temp folder.
+    public static MemoryUsageSetting of(Double maxMainMemoryMB, String scratchFolder) throws IOException {
+        boolean hasFolder = scratchFolder != null && !scratchFolder.trim().isEmpty();
+        if (maxMainMemoryMB == null && !hasFolder) {
+            return null;
+        }
+        long maxBytes = (maxMainMemoryMB == null) ? 0 : maxMainMemoryMB.longValue() * 1024 * 1024;
+        MemoryUsageSetting setting = maxBytes > 0 ? MemoryUsageSetting.setupMixed(maxBytes) : MemoryUsageSetting.setupTempFileOnly();
+        if (hasFolder) {
+            File folder = Files.createDirectories(Paths.get(scratchFolder.trim())).toFile();
+            setting.setTempDir(folder);
+        }
+        return setting;
+    }
+
+    //Loads the PDF within the budget, a null setting loads it the default way
+    public static PDDocument load(File pdfFile, MemoryUsageSetting setting) throws IOException {
+        return setting == null ? PDDocument.load(pdfFile) : PDDocument.load(pdfFile, setting);
+    }
+
+    //Share of the budget for each of several documents open at the same time
+    public static MemoryUsageSetting split(MemoryUsageSetting setting, int documents) {
+        return (setting == null || documents <= 1) ? setting : setting.getPartitionedCopy(documents);
+    }
+}
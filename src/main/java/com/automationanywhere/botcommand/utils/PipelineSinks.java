@@ -0,0 +1,243 @@
+package com.automationanywhere.botcommand.utils;
+
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Image;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFPictureData;
+import org.apache.poi.xslf.usermodel.XSLFPictureShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+
+import javax.imageio.ImageWriteParam;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Encoders and sinks for ConversionPipeline: a PDF or PPTX with a picture per page, a multi-page TIFF, or an image file per page.
+//Pages keep their physical size, a page decoded at 300 DPI takes up as many points in the output as one decoded at 72 DPI.
+public class PipelineSinks {
+
+    public static final String AUTO = "auto";
+    public static final String JPEG = "jpeg";
+    public static final String PNG = "png";
+
+    //Same quality as PDFtoPPTX, keeps rendered text sharp at a fraction of the PNG size
+    private static final float JPEG_QUALITY = 0.9f;
+
+    private PipelineSinks() {
+    }
+
+    //Sink for an output format, writing <outputPrefix>.pdf/.pptx/.tiff, or <outputPrefix>-00001.<format> and so on for other formats.
+    //The encoding (auto, jpeg or png) applies to the pictures embedded in PDF and PPTX.
+    public static ConversionPipeline.Sink create(String outputFormat, String outputPrefix, String encoding) throws IOException {
+        String format = outputFormat.toLowerCase();
+        switch (format) {
+            case "pdf":
+                return new PdfSink(outputPrefix + ".pdf", encoder(encoding));
+            case "pptx":
+                return new PptxSink(outputPrefix + ".pptx", encoder(encoding));
+            case "tif":
+            case "tiff":
+                return new TiffSink(new File(outputPrefix + "." + format));
+            default:
+                return new ImageFilesSink(outputPrefix, format);
+        }
+    }
+
+    //"jpeg" or "png" for every page, "auto" (or nothing) for JPEG except for bilevel or transparent pages, which stay lossless as PNG
+    public static ConversionPipeline.Encoder encoder(String encoding) {
+        String name = (encoding == null || encoding.trim().isEmpty()) ? AUTO : encoding.trim().toLowerCase();
+        switch (name) {
+            case PNG:
+                return page -> new ConversionPipeline.EncodedPage(ImageCodecs.encode(page, PNG, null), PNG);
+            case JPEG:
+            case "jpg":
+                return PipelineSinks::encodeJpeg;
+            case AUTO:
+                return page -> (ColorConverter.isBinary(page) || page.getColorModel().hasAlpha())
+                        ? new ConversionPipeline.EncodedPage(ImageCodecs.encode(page, PNG, null), PNG)
+                        : encodeJpeg(page);
+            default:
+                throw new IllegalArgumentException("Unknown page encoding: " + encoding);
+        }
+    }
+
+    private static ConversionPipeline.EncodedPage encodeJpeg(BufferedImage page) throws IOException {
+        ImageWriteParam param = ImageCodecs.writer(JPEG).getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        return new ConversionPipeline.EncodedPage(ImageCodecs.encode(jpegCompatible(page), JPEG, param), JPEG);
+    }
+
+    //JPEG holds neither 1-bit pixels nor transparency
+    private static BufferedImage jpegCompatible(BufferedImage page) {
+        if (ColorConverter.isBinary(page)) {
+            return ColorConverter.toGray(page);
+        }
+        return page.getColorModel().hasAlpha() ? ColorConverter.toRgb(page) : page;
+    }
+
+    //Size of the page in points
+    private static float points(int pixels, float dpi) {
+        return pixels * 72f / dpi;
+    }
+
+    //One PDF page per page, written as soon as it is added
+    public static class PdfSink implements ConversionPipeline.Sink {
+        private final String outputFile;
+        private final ConversionPipeline.Encoder encoder;
+        private final ImagePdfBuilder pdf;
+        private boolean closed;
+
+        public PdfSink(String outputFile, ConversionPipeline.Encoder encoder) throws IOException {
+            this.outputFile = outputFile;
+            this.encoder = encoder;
+            try {
+                this.pdf = new ImagePdfBuilder(outputFile);
+            } catch (DocumentException e) {
+                throw new IOException("Cannot create " + outputFile, e);
+            }
+        }
+
+        @Override
+        public void accept(int page, BufferedImage image, float dpi) throws IOException {
+            ConversionPipeline.EncodedPage encoded = encoder.encode(image);
+            try {
+                Image picture = Image.getInstance(encoded.getData());
+                picture.scaleAbsolute(points(image.getWidth(), dpi), points(image.getHeight(), dpi));
+                pdf.addPage(picture);
+            } catch (DocumentException e) {
+                throw new IOException("Cannot add page " + (page + 1) + " to " + outputFile, e);
+            }
+        }
+
+        @Override
+        public List<String> getOutputs() {
+            return Collections.singletonList(outputFile);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                pdf.close();
+            }
+        }
+    }
+
+    //One slide per page. The slide size comes from the first page, later pages are fitted and centred on it.
+    //The slide show is only written when the sink is closed, so the encoded pictures are held until then.
+    public static class PptxSink implements ConversionPipeline.Sink {
+        private final String outputFile;
+        private final ConversionPipeline.Encoder encoder;
+        private final XMLSlideShow slideShow = new XMLSlideShow();
+        private Dimension slideSize;
+        private boolean closed;
+
+        public PptxSink(String outputFile, ConversionPipeline.Encoder encoder) {
+            this.outputFile = outputFile;
+            this.encoder = encoder;
+        }
+
+        @Override
+        public void accept(int page, BufferedImage image, float dpi) throws IOException {
+            float width = points(image.getWidth(), dpi);
+            float height = points(image.getHeight(), dpi);
+            if (slideSize == null) {
+                slideSize = new Dimension(Math.max(1, Math.round(width)), Math.max(1, Math.round(height)));
+                slideShow.setPageSize(slideSize);
+            }
+            ConversionPipeline.EncodedPage encoded = encoder.encode(image);
+            XSLFPictureData data = slideShow.addPicture(encoded.getData(), PNG.equals(encoded.getFormat()) ? PictureData.PictureType.PNG : PictureData.PictureType.JPEG);
+            XSLFSlide slide = slideShow.createSlide();
+            XSLFPictureShape picture = slide.createPicture(data);
+            float fit = Math.min(slideSize.width / width, slideSize.height / height);
+            int fittedWidth = Math.round(width * fit);
+            int fittedHeight = Math.round(height * fit);
+            picture.setAnchor(new Rectangle((slideSize.width - fittedWidth) / 2, (slideSize.height - fittedHeight) / 2, fittedWidth, fittedHeight));
+        }
+
+        @Override
+        public List<String> getOutputs() {
+            return Collections.singletonList(outputFile);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                slideShow.write(out);
+            } finally {
+                slideShow.close();
+            }
+        }
+    }
+
+    //All pages in one multi-page TIFF, encoded as they arrive
+    public static class TiffSink implements ConversionPipeline.Sink {
+        private final TiffSequenceWriter tiff;
+        private boolean closed;
+
+        public TiffSink(File outputFile) throws IOException {
+            this.tiff = new TiffSequenceWriter(outputFile);
+        }
+
+        @Override
+        public void accept(int page, BufferedImage image, float dpi) throws IOException {
+            tiff.writePage(image, dpi);
+        }
+
+        @Override
+        public List<String> getOutputs() {
+            return Collections.singletonList(tiff.getFile().getPath());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                tiff.close();
+            }
+        }
+    }
+
+    //One image file per page, named after the page number like PDFtoImage
+    public static class ImageFilesSink implements ConversionPipeline.Sink {
+        private final String outputPrefix;
+        private final String format;
+        private final List<String> outputs = new ArrayList<>();
+
+        public ImageFilesSink(String outputPrefix, String format) {
+            this.outputPrefix = outputPrefix;
+            this.format = format;
+        }
+
+        @Override
+        public void accept(int page, BufferedImage image, float dpi) throws IOException {
+            String file = String.format("%s-%05d.%s", outputPrefix, page + 1, format);
+            boolean jpeg = JPEG.equals(format) || "jpg".equals(format);
+            ImageCodecs.write(jpeg ? jpegCompatible(image) : image, format, new File(file));
+            outputs.add(file);
+        }
+
+        @Override
+        public List<String> getOutputs() {
+            return new ArrayList<>(outputs);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+//Sources for ConversionPipeline: PDF pages, PPTX slides and the frames of image files
+public class PipelineSources {
+
+    private PipelineSources() {
+    }
+
+    //Source for the file's extension. PDF pages are rendered with the profile in the image type, slides are drawn with
+    //the profile's slide scale, images are decoded as they are. The memory setting only applies to PDFs.
+    public static ConversionPipeline.Source open(File input, RenderProfile profile, ImageType imageType, MemoryUsageSetting memoryUsage) throws IOException {
+        String name = input.getName().toLowerCase();
+        if (name.endsWith(".pdf")) {
+            return new PdfSource(PdfMemoryBudget.load(input, memoryUsage), profile, imageType);
+        } else if (name.endsWith(".pptx")) {
+            return new SlideSource(input, profile);
+        }
+        return new ImageSource(input);
+    }
+
+    //Renders PDF pages at the profile's DPI
+    public static class PdfSource implements ConversionPipeline.Source {
+        private final PDDocument document;
+        private final PDFRenderer renderer;
+        private final float dpi;
+        private final ImageType imageType;
+
+        public PdfSource(PDDocument document, RenderProfile profile, ImageType imageType) {
+            this.document = document;
+            this.renderer = new PDFRenderer(document);
+            profile.configure(renderer);
+            this.dpi = profile.getDpi();
+            this.imageType = imageType;
+        }
+
+        @Override
+        public int getPageCount() {
+            return document.getNumberOfPages();
+        }
+
+        @Override
+        public float getDpi() {
+            return dpi;
+        }
+
+        @Override
+        public BufferedImage decode(int page) throws IOException {
+            return renderer.renderImageWithDPI(page, dpi, imageType);
+        }
+
+        @Override
+        public void close() throws IOException {
+            document.close();
+        }
+    }
+
+    //Draws slides the same way as PPTXtoImage, scaled by the profile's slide scale
+    public static class SlideSource implements ConversionPipeline.Source {
+        private final XMLSlideShow slideShow;
+        private final List<XSLFSlide> slides;
+        private final RenderProfile profile;
+        private final float scale;
+
+        public SlideSource(File pptx, RenderProfile profile) throws IOException {
+            try {
+                this.slideShow = new XMLSlideShow(OPCPackage.open(pptx, PackageAccess.READ));
+            } catch (Exception e) {
+                throw new IOException("Cannot open " + pptx.getName(), e);
+            }
+            this.slides = slideShow.getSlides();
+            this.profile = profile;
+            this.scale = profile.getSlideScale();
+        }
+
+        @Override
+        public int getPageCount() {
+            return slides.size();
+        }
+
+        //Slides are measured in points, so the scale gives the resolution
+        @Override
+        public float getDpi() {
+            return 72f * scale;
+        }
+
+        @Override
+        public BufferedImage decode(int page) {
+            Dimension size = slideShow.getPageSize();
+            int width = (int) (size.width * scale);
+            int height = (int) (size.height * scale);
+            BufferedImage image = new BufferedImage(width, height, profile.getBufferedImageType());
+            Graphics2D graphics = image.createGraphics();
+            try {
+                profile.configure(graphics);
+                graphics.setBackground(Color.white);
+                graphics.clearRect(0, 0, width, height);
+                graphics.scale(scale, scale);
+                slides.get(page).draw(graphics);
+            } finally {
+                graphics.dispose();
+            }
+            return image;
+        }
+
+        @Override
+        public void close() throws IOException {
+            //Opened read-only, so the package is discarded instead of saved
+            slideShow.getPackage().revert();
+        }
+    }
+
+    //Decodes every frame of an image file, such as the pages of a multi-page TIFF, one pixel per point
+    public static class ImageSource implements ConversionPipeline.Source {
+        private final ImageInputStream input;
+        private final ImageReader reader;
+
+        public ImageSource(File file) throws IOException {
+            this.input = ImageIO.createImageInputStream(file);
+            if (input == null) {
+                throw new IOException("Cannot open " + file.getName());
+            }
+            this.reader = ImageCodecs.reader(input);
+            if (reader == null) {
+                input.close();
+                throw new IOException("Unsupported image format: " + file.getName());
+            }
+        }
+
+        @Override
+        public int getPageCount() throws IOException {
+            return reader.getNumImages(true);
+        }
+
+        @Override
+        public float getDpi() {
+            return 72f;
+        }
+
+        @Override
+        public BufferedImage decode(int page) throws IOException {
+            return reader.read(page);
+        }
+
+        @Override
+        public void close() throws IOException {
+            ImageCodecs.release(reader);
+            input.close();
+        }
+    }
+}
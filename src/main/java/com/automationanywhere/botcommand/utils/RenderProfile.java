@@ -0,0 +1,131 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Named trade-offs between quality and throughput for the actions that rasterise PDF pages or slides.
+//A profile bundles the resolution (DPI for PDF pages, scale for slides), the Java2D rendering hints,
+//whether PDFBox may subsample large embedded images, and the image type used when the action has no colour option.
+public class RenderProfile {
+
+    public static final String DRAFT = "draft";
+    public static final String SCREEN = "screen";
+    public static final String OCR = "ocr";
+    public static final String PRINT = "print";
+
+    //Low resolution, no antialiasing, nearest-neighbour images. For previews and thumbnails.
+    public static final RenderProfile DRAFT_PROFILE = new RenderProfile(DRAFT, 72, 1f, true, false, hints(
+            RenderingHints.VALUE_ANTIALIAS_OFF, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF, RenderingHints.VALUE_RENDER_SPEED,
+            RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, RenderingHints.VALUE_FRACTIONALMETRICS_OFF));
+    //Monitor resolution with antialiased text and shapes
+    public static final RenderProfile SCREEN_PROFILE = new RenderProfile(SCREEN, 96, 96f / 72f, true, false, hints(
+            RenderingHints.VALUE_ANTIALIAS_ON, RenderingHints.VALUE_TEXT_ANTIALIAS_ON, RenderingHints.VALUE_RENDER_DEFAULT,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR, RenderingHints.VALUE_FRACTIONALMETRICS_OFF));
+    //Full resolution grayscale. Embedded scans are not subsampled, since that loses detail OCR needs.
+    public static final RenderProfile OCR_PROFILE = new RenderProfile(OCR, 300, 3f, false, true, hints(
+            RenderingHints.VALUE_ANTIALIAS_ON, RenderingHints.VALUE_TEXT_ANTIALIAS_ON, RenderingHints.VALUE_RENDER_SPEED,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR, RenderingHints.VALUE_FRACTIONALMETRICS_OFF));
+    //Full resolution colour with the best quality hints. This is what the actions always did before profiles.
+    public static final RenderProfile PRINT_PROFILE = new RenderProfile(PRINT, 300, 2f, false, false, hints(
+            RenderingHints.VALUE_ANTIALIAS_ON, RenderingHints.VALUE_TEXT_ANTIALIAS_ON, RenderingHints.VALUE_RENDER_QUALITY,
+            RenderingHints.VALUE_INTERPOLATION_BICUBIC, RenderingHints.VALUE_FRACTIONALMETRICS_ON));
+
+    private static final Map<String, RenderProfile> PROFILES = new LinkedHashMap<>();
+    static {
+        for (RenderProfile profile : Arrays.asList(DRAFT_PROFILE, SCREEN_PROFILE, OCR_PROFILE, PRINT_PROFILE)) {
+            PROFILES.put(profile.getName(), profile);
+        }
+    }
+
+    private final String name;
+    private final float dpi;
+    private final float slideScale;
+    private final boolean subsamplingAllowed;
+    private final boolean grayscale;
+    private final RenderingHints hints;
+
+    public RenderProfile(String name, float dpi, float slideScale, boolean subsamplingAllowed, boolean grayscale, RenderingHints hints) {
+        this.name = name;
+        this.dpi = dpi;
+        this.slideScale = slideScale;
+        this.subsamplingAllowed = subsamplingAllowed;
+        this.grayscale = grayscale;
+        this.hints = hints;
+    }
+
+    //Profile for a name, print when the name is empty
+    public static RenderProfile forName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return PRINT_PROFILE;
+        }
+        RenderProfile profile = PROFILES.get(name.trim().toLowerCase());
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown render profile '" + name + "', expected one of " + PROFILES.keySet());
+        }
+        return profile;
+    }
+
+    public static List<String> names() {
+        return new ArrayList<>(PROFILES.keySet());
+    }
+
+    private static RenderingHints hints(Object antialias, Object textAntialias, Object rendering, Object interpolation, Object fractionalMetrics) {
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING, antialias);
+        hints.put(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialias);
+        hints.put(RenderingHints.KEY_RENDERING, rendering);
+        hints.put(RenderingHints.KEY_INTERPOLATION, interpolation);
+        hints.put(RenderingHints.KEY_FRACTIONALMETRICS, fractionalMetrics);
+        return hints;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    //Resolution for PDF pages
+    public float getDpi() {
+        return dpi;
+    }
+
+    //Scale for slides, whose page size is in points (1/72 inch)
+    public float getSlideScale() {
+        return slideScale;
+    }
+
+    public boolean isSubsamplingAllowed() {
+        return subsamplingAllowed;
+    }
+
+    //PDFBox image type for actions without a colour option
+    public ImageType getImageType() {
+        return grayscale ? ImageType.GRAY : ImageType.RGB;
+    }
+
+    //BufferedImage type for slides
+    public int getBufferedImageType() {
+        return grayscale ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+    }
+
+    public RenderingHints getHints() {
+        return (RenderingHints) hints.clone();
+    }
+
+    //Applies the hints and subsampling to a PDFBox renderer
+    public void configure(PDFRenderer renderer) {
+        renderer.setRenderingHints(getHints());
+        renderer.setSubsamplingAllowed(subsamplingAllowed);
+    }
+
+    //Applies the hints to a Graphics2D that slides are drawn into
+    public void configure(Graphics2D graphics) {
+        graphics.addRenderingHints(hints);
+    }
+}
@@ -0,0 +1,351 @@
+package com.automationanywhere.botcommand.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+//On-disk cache of conversion results, keyed by a hash of the input bytes plus the action and the options
+//that change its output. A repeat conversion then costs a hash of the input and a copy (or hard link)
+//of the cached files instead of a full conversion.
+//Entries are built in a temp folder and moved into place in one step, so a reader never sees half an entry.
+//When the cache grows past its size limit the least recently used entries are removed.
+public class ResultCache {
+
+    //Bump when a converter changes its output, so older cached results are no longer used
+    static final String FORMAT_VERSION = "1";
+    static final String MANIFEST = "manifest.txt";
+    private static final String TEMP_PREFIX = "tmp-";
+
+    public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    //System properties that turn the cache on without the ConfigureResultCache action
+    public static final String DIR_PROPERTY = "fileconversion.cache.dir";
+    public static final String MAX_MB_PROPERTY = "fileconversion.cache.maxMB";
+
+    private static ResultCache shared = fromSystemProperties();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final boolean hardLinks;
+
+    //hardLinks links cached files into the output folder instead of copying them. This only works on the same
+    //file system, and an edited output also changes the cached copy, so copying is the safe default.
+    public ResultCache(Path directory, long maxBytes, boolean hardLinks) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.hardLinks = hardLinks;
+    }
+
+    //Cache used by the actions, null when caching is off
+    public static synchronized ResultCache getShared() {
+        return shared;
+    }
+
+    //Null turns caching off
+    public static synchronized void setShared(ResultCache cache) {
+        shared = cache;
+    }
+
+    private static ResultCache fromSystemProperties() {
+        String dir = System.getProperty(DIR_PROPERTY);
+        if (dir == null || dir.trim().isEmpty()) {
+            return null;
+        }
+        long maxBytes = DEFAULT_MAX_BYTES;
+        try {
+            String maxMb = System.getProperty(MAX_MB_PROPERTY);
+            if (maxMb != null && !maxMb.trim().isEmpty()) {
+                maxBytes = Long.parseLong(maxMb.trim()) * 1024 * 1024;
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Ignoring invalid " + MAX_MB_PROPERTY + ": " + e.toString());
+        }
+        return new ResultCache(Paths.get(dir.trim()), maxBytes, false);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    //Looks up the result of converting inputFile with the shared cache. Never a hit when caching is off.
+    //Outputs are named <outputDir><baseName><suffix>, where the suffix (e.g. "-00001.png") comes from the cached entry,
+    //so the same file converted under another name still hits.
+    public static Lookup lookup(String action, String inputFile, String outputDir, String baseName, String... options) {
+        ResultCache cache = getShared();
+        if (cache == null) {
+            return new Lookup(null, null, outputDir, baseName, null);
+        }
+        return cache.find(action, inputFile, outputDir, baseName, options);
+    }
+
+    //Same as lookup, timed as the "cache" phase of the conversion. A hit is counted and its files become the outputs.
+    public static Lookup lookup(ConversionMetrics metrics, String action, String inputFile, String outputDir, String baseName, String... options) {
+        Lookup cached = metrics.time("cache", () -> lookup(action, inputFile, outputDir, baseName, options));
+        if (cached.isHit()) {
+            metrics.count("cacheHits", 1);
+            cached.getOutputs().forEach(metrics::output);
+        }
+        return cached;
+    }
+
+    public Lookup find(String action, String inputFile, String outputDir, String baseName, String... options) {
+        //Problems with the cache must never fail a conversion, it just runs without it
+        try {
+            String key = key(new File(inputFile), action, options);
+            return new Lookup(this, key, outputDir, baseName, materialize(key, outputDir, baseName));
+        } catch (IOException e) {
+            System.out.println("Result cache lookup failed: " + e.toString());
+            return new Lookup(null, null, outputDir, baseName, null);
+        }
+    }
+
+    //Result of a lookup. On a miss, store the outputs once the conversion has written them.
+    public static class Lookup {
+        private final ResultCache cache;
+        private final String key;
+        private final String outputDir;
+        private final String baseName;
+        private final List<String> outputs;
+
+        Lookup(ResultCache cache, String key, String outputDir, String baseName, List<String> outputs) {
+            this.cache = cache;
+            this.key = key;
+            this.outputDir = outputDir;
+            this.baseName = baseName;
+            this.outputs = outputs;
+        }
+
+        public boolean isHit() {
+            return outputs != null;
+        }
+
+        //Output paths in the order the conversion returned them
+        public List<String> getOutputs() {
+            return outputs;
+        }
+
+        public void store(List<String> outputPaths) {
+            if (cache == null || outputs != null) {
+                return;
+            }
+            try {
+                cache.put(key, outputDir, baseName, outputPaths);
+            } catch (IOException e) {
+                System.out.println("Could not cache conversion result: " + e.toString());
+            }
+        }
+
+        public void store(String outputPath) {
+            store(Collections.singletonList(outputPath));
+        }
+    }
+
+    //SHA-256 over the format version, action, options, input extension and input bytes
+    static String key(File inputFile, String action, String... options) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        String name = inputFile.getName();
+        String extension = name.contains(".") ? name.substring(name.lastIndexOf('.') + 1).toLowerCase() : "";
+        StringBuilder header = new StringBuilder(FORMAT_VERSION).append('\0').append(action).append('\0').append(extension);
+        for (String option : options) {
+            header.append('\0').append(option == null ? "" : option);
+        }
+        digest.update(header.append('\0').toString().getBytes(StandardCharsets.UTF_8));
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(inputFile.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    //Copies or links the cached files of an entry into the output folder, null on a miss
+    private List<String> materialize(String key, String outputDir, String baseName) throws IOException {
+        Path entry = directory.resolve(key);
+        Path manifest = entry.resolve(MANIFEST);
+        if (!Files.isRegularFile(manifest)) {
+            return null;
+        }
+        List<String> suffixes;
+        try {
+            suffixes = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+            //Mark the entry as recently used
+            Files.setLastModifiedTime(manifest, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            //Evicted in the meantime
+            return null;
+        }
+        List<String> outputs = new ArrayList<>();
+        for (int i = 0; i < suffixes.size(); i++) {
+            Path target = Paths.get(outputDir + baseName + suffixes.get(i));
+            //Outputs can sit in a folder named after the input, such as the assets of an HTML page
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            Files.deleteIfExists(target);
+            Path cached = entry.resolve(Integer.toString(i));
+            if (!hardLinks || !link(target, cached)) {
+                Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            outputs.add(target.toString());
+        }
+        return outputs;
+    }
+
+    private static boolean link(Path target, Path cached) {
+        try {
+            Files.createLink(target, cached);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            //Different file system or no hard link support, fall back to a copy
+            return false;
+        }
+    }
+
+    //Builds the entry in a temp folder and moves it into place
+    void put(String key, String outputDir, String baseName, List<String> outputPaths) throws IOException {
+        if (outputPaths.isEmpty()) {
+            return;
+        }
+        String prefix = outputDir + baseName;
+        List<String> suffixes = new ArrayList<>();
+        for (String output : outputPaths) {
+            //Only outputs named after the input can be replayed for another input name
+            if (output == null || !output.startsWith(prefix) || !Files.isRegularFile(Paths.get(output))) {
+                return;
+            }
+            suffixes.add(output.substring(prefix.length()));
+        }
+        Path entry = directory.resolve(key);
+        if (Files.exists(entry)) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(TEMP_PREFIX + UUID.randomUUID());
+        try {
+            Files.createDirectory(temp);
+            for (int i = 0; i < outputPaths.size(); i++) {
+                Files.copy(Paths.get(outputPaths.get(i)), temp.resolve(Integer.toString(i)));
+            }
+            Files.write(temp.resolve(MANIFEST), suffixes, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry);
+            }
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            //Another conversion of the same input stored it first
+        } finally {
+            deleteTree(temp);
+        }
+        evict();
+    }
+
+    //Removes the least recently used entries until the cache fits in maxBytes
+    public synchronized void evict() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> entries = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                if (Files.isRegularFile(child.resolve(MANIFEST))) {
+                    entries.add(child);
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(ResultCache::lastUsed));
+        for (Path entry : entries) {
+            long size = sizeOf(entry);
+            sizes.add(size);
+            total += size;
+        }
+        for (int i = 0; i < entries.size() && total > maxBytes; i++) {
+            deleteTree(entries.get(i));
+            total -= sizes.get(i);
+        }
+    }
+
+    //Removes every entry
+    public synchronized void clear() throws IOException {
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                for (Path child : children) {
+                    deleteTree(child);
+                }
+            }
+        }
+    }
+
+    //Total bytes held by complete entries
+    public long size() throws IOException {
+        long total = 0;
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                for (Path child : children) {
+                    if (Files.isRegularFile(child.resolve(MANIFEST))) {
+                        total += sizeOf(child);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry.resolve(MANIFEST)).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long sizeOf(Path entry) throws IOException {
+        try (Stream<Path> files = Files.walk(entry)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.fit.pdfdom.PDFDomTree;
+import org.fit.pdfdom.PDFDomTreeConfig;
+import org.fit.pdfdom.resource.HtmlResource;
+import org.fit.pdfdom.resource.HtmlResourceHandler;
+import org.fit.pdfdom.resource.ImageResource;
+import org.w3c.dom.Element;
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSSerializer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//PDF to HTML that writes every page as soon as it has been processed, instead of building the DOM of the whole
+//document and serialising it at the end like PDFDomTree.writeText does. A page element is detached once it is written,
+//so memory stays bounded by one page. Images and fonts are saved as files in a "<baseName>_files" folder next to the
+//HTML rather than embedded as base64. The pages go either into one HTML file or into one file per page.
+public class StreamingHtmlTree extends PDFDomTree {
+
+    private final Path outputDir;
+    private final String baseName;
+    private final boolean filePerPage;
+    private final AssetFolder assets;
+    private final List<String> htmlFiles = new ArrayList<>();
+    private LSSerializer serializer;
+    private Writer singleFile;
+    private String writtenFontFaces = "";
+    private ConversionMetrics metrics;
+    private Set<Integer> pages;
+
+    //Pages are written to <outputDir><baseName>.html, or <outputDir><baseName>-00001.html and so on with filePerPage
+    public StreamingHtmlTree(Path outputDir, String baseName, boolean filePerPage) throws IOException {
+        this(outputDir, baseName, filePerPage, new AssetFolder(outputDir.resolve(baseName + "_files")));
+    }
+
+    private StreamingHtmlTree(Path outputDir, String baseName, boolean filePerPage, AssetFolder assets) throws IOException {
+        super(config(assets));
+        this.outputDir = outputDir;
+        this.baseName = baseName;
+        this.filePerPage = filePerPage;
+        this.assets = assets;
+    }
+
+    private static PDFDomTreeConfig config(AssetFolder assets) {
+        PDFDomTreeConfig config = PDFDomTreeConfig.createDefaultConfig();
+        config.setImageHandler(assets);
+        config.setFontHandler(assets);
+        return config;
+    }
+
+    //Counts the pages written in the conversion's metrics
+    public void setMetrics(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    //Zero-based pages to convert, all pages if never set
+    public void setPages(Collection<Integer> pages) {
+        this.pages = new HashSet<>(pages);
+    }
+
+    //Converts the document and returns the HTML files in page order
+    public List<String> write(PDDocument document) throws IOException {
+        try {
+            createDOM(document);
+        } finally {
+            if (singleFile != null) {
+                singleFile.close();
+                singleFile = null;
+            }
+        }
+        return new ArrayList<>(htmlFiles);
+    }
+
+    //Images and fonts saved next to the HTML, in the order they were written
+    public List<String> getAssetFiles() {
+        return assets.getFiles();
+    }
+
+    @Override
+    public void startDocument(PDDocument document) throws IOException {
+        super.startDocument(document);
+        serializer = createSerializer();
+        if (!filePerPage) {
+            Path file = outputDir.resolve(baseName + ".html");
+            singleFile = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            htmlFiles.add(file.toString());
+            writeHead(singleFile, defaultStyle);
+        }
+    }
+
+    @Override
+    protected void endDocument(PDDocument document) throws IOException {
+        super.endDocument(document);
+        if (singleFile != null) {
+            singleFile.write("</body>\n</html>\n");
+        }
+    }
+
+    @Override
+    public void processPage(PDPage page) throws IOException {
+        //Pages outside the selection are skipped before their content is parsed
+        if (pages != null && !pages.contains(getCurrentPageNo() - 1)) {
+            return;
+        }
+        Element before = curpage;
+        super.processPage(page);
+        //Pages outside the start/end range are skipped without a new page element
+        if (curpage != null && curpage != before) {
+            writePage(curpage);
+            body.removeChild(curpage);
+        }
+    }
+
+    private void writePage(Element page) throws IOException {
+        String markup = serializer.writeToString(page);
+        //Fonts are only known once a page uses them
+        String fontFaces = createFontFaces();
+        if (filePerPage) {
+            Path file = outputDir.resolve(String.format("%s-%05d.html", baseName, getCurrentPageNo()));
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writeHead(writer, fontFaces + "\n" + defaultStyle);
+                writer.write(markup);
+                writer.write("\n</body>\n</html>\n");
+            }
+            htmlFiles.add(file.toString());
+        } else {
+            //Font faces are appended in order, so only the new ones need a style block
+            String newFaces = fontFaces.startsWith(writtenFontFaces) ? fontFaces.substring(writtenFontFaces.length()) : fontFaces;
+            if (!newFaces.trim().isEmpty()) {
+                singleFile.write("<style type=\"text/css\">\n" + newFaces + "\n</style>\n");
+            }
+            singleFile.write(markup);
+            singleFile.write("\n");
+            singleFile.flush();
+        }
+        writtenFontFaces = fontFaces;
+        if (metrics != null) {
+            metrics.count("pages", 1);
+        }
+    }
+
+    private void writeHead(Writer writer, String css) throws IOException {
+        String title = document.getDocumentInformation().getTitle();
+        writer.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\"/>\n<title>");
+        writer.write(title == null ? "" : escape(title.trim()));
+        writer.write("</title>\n<style type=\"text/css\">\n");
+        writer.write(css);
+        writer.write("\n</style>\n</head>\n<body>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static LSSerializer createSerializer() throws IOException {
+        try {
+            DOMImplementationLS ls = (DOMImplementationLS) DOMImplementationRegistry.newInstance().getDOMImplementation("LS");
+            LSSerializer serializer = ls.createLSSerializer();
+            serializer.getDomConfig().setParameter("xml-declaration", false);
+            return serializer;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IOException("Error: cannot initialize the DOM serializer", e);
+        }
+    }
+
+    //Writes each image and font once into the asset folder and links it relative to the HTML
+    private static class AssetFolder implements HtmlResourceHandler {
+        private final Path directory;
+        private final Map<HtmlResource, String> links = new IdentityHashMap<>();
+        private final List<String> files = new ArrayList<>();
+
+        AssetFolder(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public String handleResource(HtmlResource resource) throws IOException {
+            //Font faces are rebuilt for every page, the font file is only written the first time
+            String link = links.get(resource);
+            if (link != null) {
+                return link;
+            }
+            Files.createDirectories(directory);
+            String name = String.format("%s-%d.%s", resource.getName().replaceAll("[^A-Za-z0-9_-]", "_"), files.size() + 1, resource.getFileEnding());
+            Path file = directory.resolve(name);
+            Files.write(file, resource.getData());
+            files.add(file.toString());
+            try {
+                link = new URI(null, null, directory.getFileName() + "/" + name, null).getRawPath();
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            //Images are only used once, holding on to them would keep every page's images in memory
+            if (!(resource instanceof ImageResource)) {
+                links.put(resource, link);
+            }
+            return link;
+        }
+
+        List<String> getFiles() {
+            return new ArrayList<>(files);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.automationanywhere.botcommand.utils;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+//Reads images scaled down to fit a box without decoding them at full size first.
+//The reader skips rows and columns while it decodes (source subsampling), which leaves at least twice the target
+//size so the image can still be filtered. Halving steps with bilinear filtering then bring it down to the box, which
+//averages the pixels the way a single bilinear step from far above the target size does not.
+//Memory and time follow the size of the output rather than the size of the input.
+public class Thumbnails {
+
+    private Thumbnails() {
+    }
+
+    //Size of the image scaled to fit the box with its aspect ratio kept, never larger than the image.
+    //A box side of 0 or less does not limit that side.
+    public static int[] fit(int width, int height, int maxWidth, int maxHeight) {
+        double scale = 1;
+        if (maxWidth > 0) {
+            scale = Math.min(scale, (double) maxWidth / width);
+        }
+        if (maxHeight > 0) {
+            scale = Math.min(scale, (double) maxHeight / height);
+        }
+        return new int[]{Math.max(1, (int) Math.round(width * scale)), Math.max(1, (int) Math.round(height * scale))};
+    }
+
+    //Image index of the reader, scaled down to fit the box
+    public static BufferedImage read(ImageReader reader, int index, int maxWidth, int maxHeight) throws IOException {
+        //Only the header is read for the size
+        int width = reader.getWidth(index);
+        int height = reader.getHeight(index);
+        int[] target = fit(width, height, maxWidth, maxHeight);
+        int subsampling = Math.max(1, Math.min(width / (target[0] * 2), height / (target[1] * 2)));
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (subsampling > 1) {
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+        return scale(reader.read(index, param), target[0], target[1]);
+    }
+
+    //Halves the image until the next halving would pass the target, then scales to the exact size
+    public static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage image = source;
+        while (image.getWidth() != width || image.getHeight() != height) {
+            int stepWidth = Math.max(width, image.getWidth() / 2);
+            int stepHeight = Math.max(height, image.getHeight() / 2);
+            image = draw(image, stepWidth, stepHeight);
+        }
+        return image;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        //Indexed and 1-bit images cannot hold the blended pixels, they are scaled as gray or colour
+        int type;
+        if (source.getColorModel().hasAlpha()) {
+            type = BufferedImage.TYPE_INT_ARGB;
+        } else if (source.getType() == BufferedImage.TYPE_BYTE_GRAY || ColorConverter.isBinary(source)) {
+            type = BufferedImage.TYPE_BYTE_GRAY;
+        } else {
+            type = BufferedImage.TYPE_INT_RGB;
+        }
+        BufferedImage output = new BufferedImage(width, height, type);
+        Graphics2D graphics = output.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return output;
+    }
+}
@@ -0,0 +1,109 @@
+package com.automationanywhere.botcommand.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.plugins.tiff.BaselineTIFFTagSet;
+import javax.imageio.plugins.tiff.TIFFDirectory;
+import javax.imageio.plugins.tiff.TIFFField;
+import javax.imageio.plugins.tiff.TIFFTag;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+//Writes pages one after another into a single multi-page TIFF.
+//Each page is encoded as soon as it is added, so the caller only has to hold the raster of the current page.
+//Bilevel pages are compressed with CCITT T.6 (Group 4), grayscale pages with LZW and colour pages with Deflate.
+public class TiffSequenceWriter implements Closeable {
+
+    public static final String CCITT_G4 = "CCITT T.6";
+    public static final String LZW = "LZW";
+    public static final String DEFLATE = "Deflate";
+
+    private final File file;
+    private final ImageOutputStream output;
+    private final ImageWriter writer;
+    private int pageCount;
+
+    public TiffSequenceWriter(File file) throws IOException {
+        this.file = file;
+        this.writer = ImageCodecs.writer("tiff");
+        ImageOutputStream stream = null;
+        try {
+            file.delete();
+            stream = ImageIO.createImageOutputStream(file);
+            if (stream == null) {
+                throw new IOException("Cannot create " + file.getName());
+            }
+            writer.setOutput(stream);
+            writer.prepareWriteSequence(null);
+        } catch (IOException | RuntimeException e) {
+            ImageCodecs.release(writer);
+            if (stream != null) {
+                stream.close();
+            }
+            throw e;
+        }
+        this.output = stream;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    //Compression used for an image, picked from its bit depth and colour model
+    public static String compressionFor(BufferedImage image) {
+        if (image.getColorModel().getPixelSize() == 1) {
+            return CCITT_G4;
+        }
+        if (image.getColorModel().getNumComponents() == 1) {
+            return LZW;
+        }
+        return DEFLATE;
+    }
+
+    //Encodes the page and appends it to the file. dpi <= 0 leaves out the resolution tags.
+    public void writePage(BufferedImage image, float dpi) throws IOException {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionType(compressionFor(image));
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+        if (dpi > 0) {
+            metadata = withResolution(metadata, Math.round(dpi));
+        }
+        writer.writeToSequence(new IIOImage(image, null, metadata), param);
+        pageCount++;
+    }
+
+    private static IIOMetadata withResolution(IIOMetadata metadata, int dpi) throws IOException {
+        TIFFDirectory directory = TIFFDirectory.createFromMetadata(metadata);
+        BaselineTIFFTagSet tags = BaselineTIFFTagSet.getInstance();
+        long[][] resolution = {{dpi, 1}};
+        directory.addTIFFField(new TIFFField(tags.getTag(BaselineTIFFTagSet.TAG_X_RESOLUTION), TIFFTag.TIFF_RATIONAL, 1, resolution));
+        directory.addTIFFField(new TIFFField(tags.getTag(BaselineTIFFTagSet.TAG_Y_RESOLUTION), TIFFTag.TIFF_RATIONAL, 1, resolution));
+        directory.addTIFFField(new TIFFField(tags.getTag(BaselineTIFFTagSet.TAG_RESOLUTION_UNIT), BaselineTIFFTagSet.RESOLUTION_UNIT_INCH));
+        return directory.getAsMetadata();
+    }
+
+    //Finishes the file. The writer goes back to the per-thread cache.
+    @Override
+    public void close() throws IOException {
+        try {
+            if (pageCount > 0) {
+                writer.endWriteSequence();
+            }
+        } finally {
+            ImageCodecs.release(writer);
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+//Takes the one-off start-up costs of the converters before the first document needs them: PDFBox's scan of the
+//system fonts, ImageIO plugin discovery, and loading the PDFBox and POI classes (POI's XML schema types take the
+//longest). PDFBox keeps the result of its font scan in a cache file, which is pointed at a folder of the package
+//so every bot run reuses it. The warm-up runs once per JVM on a background thread. Every conversion
+//action calls startInBackground before it starts, so the first one of a bot run starts it.
+public class WarmUp {
+
+    //System property with the font cache folder
+    public static final String FONT_CACHE_PROPERTY = "fileconversion.fontcache.dir";
+    //System property that turns the background warm-up off when set to false
+    public static final String ENABLED_PROPERTY = "fileconversion.warmup";
+    //PDFBox reads its font cache folder from this property the first time it looks up a font
+    static final String PDFBOX_FONT_CACHE_PROPERTY = "pdfbox.fontcache";
+
+    public static final String FONTS = "fonts";
+    public static final String IMAGEIO = "imageio";
+    public static final String PDFBOX = "pdfbox";
+    public static final String POI = "poi";
+
+    private static final String[] IMAGE_FORMATS = {"png", "jpeg", "tiff", "bmp", "gif"};
+
+    private static FutureTask<Map<String, Long>> task;
+
+    private WarmUp() {
+    }
+
+    //Starts the warm-up unless the system property turns it off
+    public static void startInBackground() {
+        if (!"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY, "").trim())) {
+            start();
+        }
+    }
+
+    //Starts the warm-up if it has not been started yet. The result maps each step to the milliseconds it took,
+    //a failed step is left out and only costs the converter that needs it the same time later.
+    public static synchronized Future<Map<String, Long>> start() {
+        if (task == null) {
+            useFontCacheFolder(null);
+            task = new FutureTask<>(WarmUp::run);
+            Thread thread = new Thread(task, "conversion-warm-up");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+        return task;
+    }
+
+    //Points PDFBox's font cache at the folder, or at the configured or default folder for null. A folder set earlier,
+    //including with PDFBox's own property, is kept when none is given. PDFBox only reads the folder on its first font
+    //lookup, so a change after that applies from the next bot run.
+    public static synchronized Path useFontCacheFolder(Path folder) {
+        String current = System.getProperty(PDFBOX_FONT_CACHE_PROPERTY);
+        if (folder == null && current != null && !current.trim().isEmpty()) {
+            return Paths.get(current);
+        }
+        if (folder == null) {
+            String configured = System.getProperty(FONT_CACHE_PROPERTY);
+            folder = (configured == null || configured.trim().isEmpty())
+                    ? Paths.get(System.getProperty("java.io.tmpdir"), "A360-FileConversion", "fontcache")
+                    : Paths.get(configured.trim());
+        }
+        try {
+            Files.createDirectories(folder);
+        } catch (IOException e) {
+            //PDFBox falls back to the home folder when it cannot write the cache
+            System.out.println("Cannot create font cache folder " + folder + ": " + e.toString());
+        }
+        System.setProperty(PDFBOX_FONT_CACHE_PROPERTY, folder.toString());
+        return folder;
+    }
+
+    private static Map<String, Long> run() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        step(timings, FONTS, () -> {
+            //Any font outside the standard 14 makes PDFBox load or build its list of system fonts
+            FontMappers.instance().getTrueTypeFont("Arial", null);
+        });
+        step(timings, IMAGEIO, () -> {
+            for (String format : IMAGE_FORMATS) {
+                Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+                if (readers.hasNext()) {
+                    readers.next().dispose();
+                }
+                Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+                if (writers.hasNext()) {
+                    writers.next().dispose();
+                }
+            }
+            ImageCodecs.encode(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", null);
+        });
+        step(timings, PDFBOX, () -> {
+            //Writes, reads, renders and extracts a one-line page
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            try (PDDocument document = new PDDocument()) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 720);
+                    content.showText("Warm-up");
+                    content.endText();
+                }
+                document.save(pdf);
+            }
+            try (PDDocument document = PDDocument.load(pdf.toByteArray())) {
+                new PDFRenderer(document).renderImageWithDPI(0, 10);
+                new PDFTextStripper().getText(document);
+            }
+        });
+        step(timings, POI, () -> {
+            OutputStream discard = new ByteArrayOutputStream();
+            try (XWPFDocument document = new XWPFDocument()) {
+                document.createParagraph().createRun().setText("Warm-up");
+                document.write(discard);
+            }
+            try (XMLSlideShow slideShow = new XMLSlideShow()) {
+                slideShow.createSlide();
+                slideShow.write(discard);
+            }
+            try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+                workbook.createSheet().createRow(0).createCell(0).setCellValue(1);
+                workbook.write(discard);
+            }
+        });
+        return Collections.unmodifiableMap(timings);
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    private static void step(Map<String, Long> timings, String name, Step step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+            timings.put(name, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception | LinkageError e) {
+            System.out.println("Warm-up of " + name + " failed: " + e.toString());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.automationanywhere.botcommand.utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+//Exports XLSX sheets to CSV with the POI event model, without Excel.
+//Sheet XML is parsed with SAX and every row is written straight to the CSV, so memory use
+//does not depend on the number of cells. Values are formatted the way Excel displays them.
+public class XlsxCsvExporter {
+
+    private static final char DELIMITER = ',';
+
+    private final File xlsxFile;
+    private long rowCount;
+
+    public XlsxCsvExporter(File xlsxFile) {
+        this.xlsxFile = xlsxFile;
+    }
+
+    //Rows written by this exporter so far, including the empty rows filled in
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    //Exports one sheet, the first one when sheetName is empty
+    public void exportSheet(String sheetName, String csvPath) throws IOException {
+        boolean firstSheet = sheetName == null || sheetName.isEmpty();
+        try (OPCPackage pkg = OPCPackage.open(xlsxFile, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (firstSheet || sheets.getSheetName().equals(sheetName)) {
+                        writeSheet(styles, strings, sheet, csvPath);
+                        return;
+                    }
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+        throw new IOException("Sheet '" + sheetName + "' was not found in " + xlsxFile.getName());
+    }
+
+    //Exports every sheet to <csvPathPrefix>_<sheet name>.csv and returns the paths in workbook order
+    public List<String> exportAllSheets(String csvPathPrefix) throws IOException {
+        List<String> csvPaths = new ArrayList<>();
+        try (OPCPackage pkg = OPCPackage.open(xlsxFile, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    //Sheet names can contain characters that are not allowed in file names
+                    String csvPath = csvPathPrefix + "_" + sheets.getSheetName().replaceAll("[\\\\/:*?\"<>|]", "_") + ".csv";
+                    writeSheet(styles, strings, sheet, csvPath);
+                    csvPaths.add(csvPath);
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+        return csvPaths;
+    }
+
+    private void writeSheet(StylesTable styles, ReadOnlySharedStringsTable strings, InputStream sheet, String csvPath)
+            throws IOException, SAXException, ParserConfigurationException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(csvPath)), StandardCharsets.UTF_8), 64 * 1024)) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            CsvRowWriter rowWriter = new CsvRowWriter(writer);
+            parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, rowWriter, new DataFormatter(), false));
+            try {
+                parser.parse(new InputSource(sheet));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rowCount += rowWriter.currentRow + 1;
+        }
+    }
+
+    //Writes rows as they are parsed, filling in the rows and columns the sheet XML leaves out
+    private static class CsvRowWriter implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Writer writer;
+        private int currentRow = -1;
+        private int currentCol = -1;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            try {
+                //Empty rows are not in the XML at all
+                for (int i = currentRow + 1; i < rowNum; i++) {
+                    writer.write("\r\n");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            currentRow = rowNum;
+            currentCol = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference == null ? currentCol + 1 : new CellReference(cellReference).getCol();
+            try {
+                for (int i = currentCol; i < col; i++) {
+                    if (i >= 0) {
+                        writer.write(DELIMITER);
+                    }
+                }
+                writeField(formattedValue);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            currentCol = col;
+        }
+
+        //RFC 4180 quoting, only when the value needs it
+        private void writeField(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean needsQuotes = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == DELIMITER || c == '"' || c == '\n' || c == '\r') {
+                    needsQuotes = true;
+                    break;
+                }
+            }
+            if (!needsQuotes) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
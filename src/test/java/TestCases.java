@@ -1,10 +1,71 @@
 import com.automationanywhere.botcommand.*;
 import com.automationanywhere.botcommand.data.Value;
+import com.automationanywhere.botcommand.data.impl.DictionaryValue;
+import com.automationanywhere.botcommand.data.impl.NumberValue;
+import com.automationanywhere.botcommand.data.impl.StringValue;
+import com.automationanywhere.botcommand.exception.BotCommandException;
+import com.automationanywhere.botcommand.utils.Binarizer;
+import com.automationanywhere.botcommand.utils.ColorConverter;
+import com.automationanywhere.botcommand.utils.ConversionBackend;
+import com.automationanywhere.botcommand.utils.ConversionJobs;
+import com.automationanywhere.botcommand.utils.ConversionMetrics;
+import com.automationanywhere.botcommand.utils.ConverterPool;
+import com.automationanywhere.botcommand.utils.PageRange;
+import com.automationanywhere.botcommand.utils.PdfMemoryBudget;
+import com.automationanywhere.botcommand.utils.ResultCache;
+import com.automationanywhere.botcommand.utils.Thumbnails;
+import com.automationanywhere.botcommand.utils.TiffSequenceWriter;
+import com.documents4j.api.DocumentType;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.Units;
+import org.apache.poi.wp.usermodel.HeaderFooterType;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TestCases {
     @Test
@@ -14,7 +75,7 @@ public class TestCases {
 
         PDFtoDOCX pdFtoDOCX = new PDFtoDOCX();
 
-        Value<String> outputFile = pdFtoDOCX.action(inputFile,outputPath);
+        Value<String> outputFile = pdFtoDOCX.action(inputFile,outputPath, null, null, null, null, null);
         Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/PDFtoDOCX/SamplePDF.docx");
     }
     @Test
@@ -25,8 +86,47 @@ public class TestCases {
 
         XLSXtoCSV xlsXtoCSV = new XLSXtoCSV();
 
-        Value<String> outputFile = xlsXtoCSV.action(inputFile,outputPath);
+        Value<String> outputFile = xlsXtoCSV.action(inputFile,outputPath, null, false, "native");
         Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/XLSXtoCSV/SampleExcel.csv");
+        Assert.assertTrue(new File(outputFile.toString()).length() > 0);
+    }
+    @Test
+    public void testXLSXtoCSVSheets() throws IOException {
+        String outputPath = "src/main/resources/test_files/Output/XLSXtoCSVSheets";
+        Files.createDirectories(Paths.get(outputPath));
+        String inputFile = outputPath + "/Book.xlsx";
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(inputFile)) {
+            Sheet first = workbook.createSheet("Summary");
+            first.createRow(0).createCell(0).setCellValue("total");
+            Sheet second = workbook.createSheet("Q1 Data");
+            Row row = second.createRow(0);
+            row.createCell(0).setCellValue("Smith, John");
+            row.createCell(1).setCellValue("said \"hi\"");
+            row.createCell(2).setCellValue("two\nlines");
+            row.createCell(3).setCellValue("plain");
+            second.createRow(2).createCell(1).setCellValue(42);
+            workbook.write(out);
+        }
+
+        //By name, with the fields that need quoting quoted and the gaps filled in
+        Value<String> outputFile = new XLSXtoCSV().action(inputFile, outputPath, "Q1 Data", false, "native");
+        Assert.assertEquals(outputFile.toString(), outputPath + "/Book.csv");
+        Assert.assertEquals(new String(Files.readAllBytes(Paths.get(outputFile.toString())), StandardCharsets.UTF_8),
+                "\"Smith, John\",\"said \"\"hi\"\"\",\"two\nlines\",plain\r\n\r\n,42\r\n");
+
+        //One CSV per sheet, named after the sheet, the first is returned
+        outputFile = new XLSXtoCSV().action(inputFile, outputPath, null, true, "native");
+        Assert.assertEquals(outputFile.toString(), outputPath + "/Book_Summary.csv");
+        Assert.assertEquals(new String(Files.readAllBytes(Paths.get(outputPath, "Book_Summary.csv")), StandardCharsets.UTF_8), "total\r\n");
+        Assert.assertTrue(Files.exists(Paths.get(outputPath, "Book_Q1 Data.csv")));
+
+        //Excel only saves the active sheet
+        try {
+            new XLSXtoCSV().action(inputFile, outputPath, "Q1 Data", false, null);
+            Assert.fail("A sheet name needs the native engine");
+        } catch (BotCommandException e) {
+            Assert.assertTrue(e.getMessage().contains("native"));
+        }
     }
     @Test
     public void testPDFtoHTML(){
@@ -35,7 +135,7 @@ public class TestCases {
 
         PDFtoHTML pdFtoHTML = new PDFtoHTML();
 
-        Value<String> outputFile = pdFtoHTML.action(inputFile,outputPath,"image");
+        Value<String> outputFile = pdFtoHTML.action(inputFile,outputPath,"image", null, null, null, null);
         Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/PDFtoHTML/SamplePDF.html");
     }
     @Test
@@ -55,7 +155,7 @@ public class TestCases {
 
         DOCXtoPDF docXtoPDF = new DOCXtoPDF();
 
-        Value<String> outputFile = docXtoPDF.action(inputFile,outputPath);
+        Value<String> outputFile = docXtoPDF.action(inputFile,outputPath, null);
         Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/DOCXtoPDF/SampleWordDoc.pdf");
     }
     @Test
@@ -65,7 +165,7 @@ public class TestCases {
 
         PPTXtoPDF pptxToPDF = new PPTXtoPDF();
 
-        Value<String> outputFile = pptxToPDF.action(inputFile,outputPath);
+        Value<String> outputFile = pptxToPDF.action(inputFile,outputPath, null);
         Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/PPTXtoPDF/SamplePowerpoint.pdf");
     }
     @Test
@@ -75,17 +175,31 @@ public class TestCases {
 
         PDFtoPPTX pdFtoPPTX = new PDFtoPPTX();
 
-        Value<String> outputFile = pdFtoPPTX.action(inputFile,outputPath);
+        Value<String> outputFile = pdFtoPPTX.action(inputFile,outputPath, null, null, null, null, null, null);
         Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/PDFtoPPTX/SamplePDF.pptx");
     }
     @Test
+    public void testPDFtoPPTXParallelJpeg() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PDFtoPPTXJpeg";
+
+        PDFtoPPTX pdFtoPPTX = new PDFtoPPTX();
+
+        Value<String> outputFile = pdFtoPPTX.action(inputFile,outputPath, "jpeg", 4.0, null, null, null, null);
+        try (XMLSlideShow ppt = new XMLSlideShow(new FileInputStream(outputFile.toString()));
+             PDDocument pdf = PDDocument.load(new File(inputFile))) {
+            Assert.assertEquals(ppt.getSlides().size(), pdf.getNumberOfPages());
+            Assert.assertEquals(ppt.getPictureData().get(0).getType(), PictureData.PictureType.JPEG);
+        }
+    }
+    @Test
     public void testPPTXtoImage() {
         String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePowerpoint.pptx";
         String outputPath = "src/main/resources/test_files/Output/PPTXtoImage";
 
         PPTXtoImage pptXtoImage = new PPTXtoImage();
 
-        Value<List<Value>> outputFile = pptXtoImage.action(inputFile,"jpg",outputPath);
+        Value<List<Value>> outputFile = pptXtoImage.action(inputFile,"jpg",outputPath, null);
         Assert.assertEquals(outputFile.get(0).toString(), "src/main/resources/test_files/Output/PPTXtoImage/SamplePowerpoint_page00001.jpg");
     }
     @Test
@@ -95,10 +209,87 @@ public class TestCases {
 
         ImagetoImage imagetoImage = new ImagetoImage();
 
-        Value<String> outputFile = imagetoImage.action(inputFile,"tiff","grayscale", outputPath);
+        Value<String> outputFile = imagetoImage.action(inputFile,"tiff","grayscale", outputPath, null, null, null);
         Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/ImagetoImage/SampleMultipageTIFF-00001.tiff");
     }
     @Test
+    public void testImagetoImageSinglePage() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg";
+        String outputPath = "src/main/resources/test_files/Output/ImagetoImageSingle";
+
+        ImagetoImage imagetoImage = new ImagetoImage();
+
+        Value<String> outputFile = imagetoImage.action(inputFile,"png","color", outputPath, null, null, null);
+        Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/ImagetoImageSingle/SampleJPG.png");
+        BufferedImage source = ImageIO.read(new File(inputFile));
+        BufferedImage output = ImageIO.read(new File(outputFile.toString()));
+        Assert.assertEquals(output.getWidth(), source.getWidth());
+        Assert.assertEquals(output.getRGB(source.getWidth() / 2, source.getHeight() / 2), source.getRGB(source.getWidth() / 2, source.getHeight() / 2));
+
+        outputFile = imagetoImage.action(inputFile,"gif","blackandwhite", outputPath, null, null, null);
+        output = ImageIO.read(new File(outputFile.toString()));
+        int pixel = output.getRGB(0, 0) & 0xFFFFFF;
+        Assert.assertTrue(pixel == 0 || pixel == 0xFFFFFF);
+    }
+    @Test
+    public void testImagetoImageGrayToColor() throws IOException {
+        String outputPath = "src/main/resources/test_files/Output/ImagetoImageGray";
+        Files.createDirectories(Paths.get(outputPath));
+        BufferedImage gray = new BufferedImage(2, 1, BufferedImage.TYPE_BYTE_GRAY);
+        gray.getRaster().setSample(0, 0, 0, 64);
+        gray.getRaster().setSample(1, 0, 0, 128);
+        File inputFile = new File(outputPath, "Gray.png");
+        ImageIO.write(gray, "png", inputFile);
+
+        //Gray values are kept as they are, not lightened by an sRGB conversion
+        Value<String> outputFile = new ImagetoImage().action(inputFile.getPath(), "png", "color", outputPath + "/Color", null, null, null);
+        BufferedImage output = ImageIO.read(new File(outputFile.toString()));
+        Assert.assertEquals(output.getRGB(0, 0) & 0xFFFFFF, 0x404040);
+        Assert.assertEquals(output.getRGB(1, 0) & 0xFFFFFF, 0x808080);
+
+        //Recolouring a file into its own folder and format replaces it, the input is closed before the write
+        outputFile = new ImagetoImage().action(inputFile.getPath(), "png", "color", outputPath, null, null, null);
+        Assert.assertEquals(new File(outputFile.toString()).getCanonicalPath(), inputFile.getCanonicalPath());
+        output = ImageIO.read(inputFile);
+        Assert.assertEquals(output.getType(), BufferedImage.TYPE_3BYTE_BGR);
+        Assert.assertEquals(output.getRGB(0, 0) & 0xFFFFFF, 0x404040);
+    }
+    @Test
+    public void testImagetoImageThumbnail() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg";
+        String outputPath = "src/main/resources/test_files/Output/ImagetoImageThumbnail";
+        BufferedImage source = ImageIO.read(new File(inputFile));
+
+        Value<String> outputFile = new ImagetoImage().action(inputFile, "png", "color", outputPath, null, 100.0, 100.0);
+        BufferedImage thumbnail = ImageIO.read(new File(outputFile.toString()));
+        int[] expected = Thumbnails.fit(source.getWidth(), source.getHeight(), 100, 100);
+        Assert.assertEquals(Math.max(thumbnail.getWidth(), thumbnail.getHeight()), 100);
+        Assert.assertEquals(thumbnail.getWidth(), expected[0]);
+        Assert.assertEquals(thumbnail.getHeight(), expected[1]);
+        //Only a subsample of the pixels was decoded
+        Map<String, Value> metrics = new GetConversionMetrics().action("ImagetoImage").get();
+        Assert.assertTrue(((NumberValue) metrics.get("peakImageWidth")).get().intValue() < source.getWidth());
+
+        //Every page of a TIFF, the width is not limited
+        String tiff = "src/main/resources/test_files/SampleFilesSource/SampleMultipageTIFF.tiff";
+        int pages;
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(tiff))) {
+            ImageReader reader = ImageIO.getImageReaders(input).next();
+            reader.setInput(input);
+            pages = reader.getNumImages(true);
+            reader.dispose();
+        }
+        new ImagetoImage().action(tiff, "png", "grayscale", outputPath, null, null, 50.0);
+        for (int i = 1; i <= pages; i++) {
+            BufferedImage page = ImageIO.read(new File(String.format(outputPath + "/SampleMultipageTIFF-%05d.png", i)));
+            Assert.assertEquals(page.getHeight(), 50);
+        }
+
+        //Never scaled up
+        Assert.assertEquals(Thumbnails.fit(200, 100, 400, 0), new int[]{200, 100});
+        Assert.assertEquals(Thumbnails.fit(12000, 9000, 300, 300), new int[]{300, 225});
+    }
+    @Test
     public void testPDFtoImage() {
         String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
         String outputPath = "src/main/resources/test_files/Output/PDFtoImage";
@@ -106,7 +297,866 @@ public class TestCases {
         PDFtoImage pdFtoImage = new PDFtoImage();
         ImagetoImage imagetoImage = new ImagetoImage();
 
-        Value<List<Value>> outputFile = pdFtoImage.action(inputFile,"jpg","color", outputPath);
+        Value<List<Value>> outputFile = pdFtoImage.action(inputFile,"jpg","color", outputPath, null, null, null, null, null, null, null, null);
         Assert.assertEquals(outputFile.get(0).toString(), "src/main/resources/test_files/Output/PDFtoImage/SamplePDF-00001.jpg");
     }
+    @Test
+    public void testPDFtoImageParallel() {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PDFtoImageParallel";
+
+        PDFtoImage pdFtoImage = new PDFtoImage();
+
+        Value<List<Value>> outputFile = pdFtoImage.action(inputFile,"png","grayscale", outputPath, 4.0, 64.0, null, null, null, null, null, null);
+        List<Value> pages = outputFile.get();
+        for (int i = 0; i < pages.size(); i++) {
+            Assert.assertEquals(pages.get(i).toString(), String.format("src/main/resources/test_files/Output/PDFtoImageParallel/SamplePDF-%05d.png", i + 1));
+        }
+    }
+    @Test
+    public void testCSVtoXLSX() {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SampleCSV.csv";
+        String outputPath = "src/main/resources/test_files/Output/CSVtoXLSX";
+
+        CSVtoXLSX csVtoXLSX = new CSVtoXLSX();
+
+        Value<String> outputFile = csVtoXLSX.action(inputFile, outputPath, null, null);
+        Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/CSVtoXLSX/SampleCSV.xlsx");
+    }
+    @Test
+    public void testCSVtoXLSXQuotedFields() throws IOException, InvalidFormatException {
+        String outputPath = "src/main/resources/test_files/Output/CSVtoXLSXQuoted";
+        Files.createDirectories(Paths.get(outputPath));
+        String inputFile = outputPath + "/Quoted.csv";
+        Files.write(Paths.get(inputFile), "name;note\r\n\"Smith; John\";\"said \"\"hi\"\"\nthen left\"\r\n".getBytes(StandardCharsets.UTF_8));
+
+        CSVtoXLSX csVtoXLSX = new CSVtoXLSX();
+
+        Value<String> outputFile = csVtoXLSX.action(inputFile, outputPath, ";", null);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new File(outputFile.toString()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals(sheet.getLastRowNum(), 1);
+            Assert.assertEquals(sheet.getRow(1).getCell(0).getStringCellValue(), "Smith; John");
+            Assert.assertEquals(sheet.getRow(1).getCell(1).getStringCellValue(), "said \"hi\"\nthen left");
+        }
+    }
+    @Test
+    public void testCSVtoXLSXUtf8WithByteOrderMark() throws IOException, InvalidFormatException {
+        String outputPath = "src/main/resources/test_files/Output/CSVtoXLSXUtf8";
+        Files.createDirectories(Paths.get(outputPath));
+        String inputFile = outputPath + "/Bom.csv";
+        Files.write(Paths.get(inputFile), "\uFEFFcity,note\nZürich,Ærø — Ğ\n".getBytes(StandardCharsets.UTF_8));
+
+        Value<String> outputFile = new CSVtoXLSX().action(inputFile, outputPath, null, "full");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new File(outputFile.toString()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals(sheet.getRow(0).getCell(0).getStringCellValue(), "city");
+            Assert.assertEquals(sheet.getRow(1).getCell(0).getStringCellValue(), "Zürich");
+            Assert.assertEquals(sheet.getRow(1).getCell(1).getStringCellValue(), "Ærø — Ğ");
+        }
+    }
+    @Test
+    public void testCSVtoXLSXCellTypes() throws IOException, InvalidFormatException {
+        String outputPath = "src/main/resources/test_files/Output/CSVtoXLSXTyped";
+        Files.createDirectories(Paths.get(outputPath));
+        String inputFile = outputPath + "/Typed.csv";
+        StringBuilder csv = new StringBuilder("id,amount,booked,active,zip,status\n");
+        for (int i = 1; i <= 1200; i++) {
+            csv.append(i).append(',').append(i * 1.5).append(",2024-03-").append(String.format("%02d", i % 28 + 1))
+                    .append(',').append(i % 2 == 0).append(",0").append(1000 + i).append(',').append(i % 3 == 0 ? "closed" : "open").append('\n');
+        }
+        //Past the sample, does not fit the amount column and stays text
+        csv.append("1201,n/a,2024-04-01,false,01201,open\n");
+        Files.write(Paths.get(inputFile), csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        Value<String> outputFile = new CSVtoXLSX().action(inputFile, outputPath, null, "sample");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new File(outputFile.toString()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals(sheet.getLastRowNum(), 1201);
+            Assert.assertEquals(sheet.getRow(0).getCell(1).getStringCellValue(), "amount");
+            Row row = sheet.getRow(10);
+            Assert.assertEquals(row.getCell(0).getNumericCellValue(), 10.0);
+            Assert.assertEquals(row.getCell(1).getNumericCellValue(), 15.0);
+            Assert.assertTrue(DateUtil.isCellDateFormatted(row.getCell(2)));
+            Assert.assertEquals(row.getCell(2).getLocalDateTimeCellValue().toLocalDate(), LocalDate.of(2024, 3, 11));
+            Assert.assertTrue(row.getCell(3).getBooleanCellValue());
+            //Leading zeros are kept
+            Assert.assertEquals(row.getCell(4).getStringCellValue(), "01010");
+            Assert.assertEquals(sheet.getRow(1201).getCell(1).getStringCellValue(), "n/a");
+            //Every cell uses one of the column styles
+            Assert.assertEquals(row.getCell(2).getCellStyle().getIndex(), sheet.getRow(1200).getCell(2).getCellStyle().getIndex());
+            //Repeated values are stored once: the header, the zips and the two statuses
+            Assert.assertEquals(workbook.getSharedStringSource().getUniqueCount(), 6 + 1200 + 2 + 1);
+        }
+
+        new File(outputFile.toString()).delete();
+        outputFile = new CSVtoXLSX().action(inputFile, outputPath, null, "full");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new File(outputFile.toString()))) {
+            //The n/a in the last row keeps the whole amount column as text
+            Assert.assertEquals(workbook.getSheetAt(0).getRow(10).getCell(1).getStringCellValue(), "15.0");
+            Assert.assertEquals(workbook.getSheetAt(0).getRow(10).getCell(0).getNumericCellValue(), 10.0);
+        }
+    }
+    @Test
+    public void testConverterPoolReusesConverter() throws IOException {
+        AtomicInteger created = new AtomicInteger();
+        ConverterPool pool = new ConverterPool(() -> new CopyBackend(created, true), 2, 60000);
+        try {
+            File source = new File("src/main/resources/test_files/SampleFilesSource/SampleWordDoc.docx");
+            Files.createDirectories(Paths.get("src/main/resources/test_files/Output/ConverterPool"));
+            pool.convert(source, DocumentType.DOCX, new File("src/main/resources/test_files/Output/ConverterPool/first.pdf"), DocumentType.PDF);
+            pool.convert(source, DocumentType.DOCX, new File("src/main/resources/test_files/Output/ConverterPool/second.pdf"), DocumentType.PDF);
+            Assert.assertEquals(created.get(), 1);
+            Assert.assertEquals(pool.getIdleCount(), 1);
+            Assert.assertTrue(new File("src/main/resources/test_files/Output/ConverterPool/second.pdf").exists());
+        } finally {
+            pool.shutDown();
+        }
+    }
+    @Test
+    public void testConverterPoolReplacesFailedConverter() throws IOException {
+        AtomicInteger created = new AtomicInteger();
+        ConverterPool pool = new ConverterPool(() -> new CopyBackend(created, created.get() > 0), 1, 60000);
+        try {
+            File source = new File("src/main/resources/test_files/SampleFilesSource/SampleWordDoc.docx");
+            File target = new File("src/main/resources/test_files/Output/ConverterPool/retry.pdf");
+            Files.createDirectories(target.getParentFile().toPath());
+            Assert.assertThrows(IOException.class, () -> pool.convert(source, DocumentType.DOCX, target, DocumentType.PDF));
+            Assert.assertEquals(pool.getIdleCount(), 0);
+            pool.convert(source, DocumentType.DOCX, target, DocumentType.PDF);
+            Assert.assertEquals(created.get(), 2);
+        } finally {
+            pool.shutDown();
+        }
+    }
+    @Test
+    public void testConverterPoolCancelsInterruptedConversion() throws Exception {
+        CompletableFuture<Boolean> conversion = new CompletableFuture<>();
+        AtomicInteger shutDowns = new AtomicInteger();
+        ConversionBackend busy = new ConversionBackend() {
+            @Override
+            public Future<Boolean> schedule(File source, DocumentType sourceType, File target, DocumentType targetType) {
+                return conversion;
+            }
+
+            @Override
+            public boolean isOperational() {
+                return true;
+            }
+
+            @Override
+            public void shutDown() {
+                shutDowns.incrementAndGet();
+            }
+        };
+        ConverterPool pool = new ConverterPool(() -> busy, 1, 60000);
+        try {
+            File source = new File("src/main/resources/test_files/SampleFilesSource/SampleWordDoc.docx");
+            File target = new File("src/main/resources/test_files/Output/ConverterPool/cancelled.pdf");
+            CompletableFuture<Throwable> failure = new CompletableFuture<>();
+            Thread worker = new Thread(() -> {
+                try {
+                    pool.convert(source, DocumentType.DOCX, target, DocumentType.PDF);
+                    failure.complete(null);
+                } catch (Throwable t) {
+                    failure.complete(t);
+                }
+            });
+            worker.start();
+            //Interrupting the worker is what CancelConversion does
+            while (worker.getState() != Thread.State.WAITING) {
+                Thread.sleep(10);
+            }
+            worker.interrupt();
+            Assert.assertTrue(failure.get(10, TimeUnit.SECONDS) instanceof IOException);
+            //The conversion is stopped and its converter is not handed out again
+            Assert.assertTrue(conversion.isCancelled());
+            Assert.assertEquals(shutDowns.get(), 1);
+            Assert.assertEquals(pool.getIdleCount(), 0);
+        } finally {
+            pool.shutDown();
+        }
+    }
+    @Test
+    public void testConverterPoolEvictsIdleConverters() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CopyBackend[] backend = new CopyBackend[1];
+        ConverterPool pool = new ConverterPool(() -> backend[0] = new CopyBackend(created, true), 1, 0);
+        try {
+            pool.borrow().close();
+            Assert.assertEquals(pool.getIdleCount(), 1);
+            pool.evictIdle();
+            Assert.assertEquals(pool.getIdleCount(), 0);
+            Assert.assertFalse(backend[0].isOperational());
+        } finally {
+            pool.shutDown();
+        }
+    }
+
+    @Test
+    public void testBatchConvert() {
+        String outputPath = "src/main/resources/test_files/Output/BatchConvert";
+        List<Value> inputFiles = new ArrayList<>();
+        inputFiles.add(new StringValue("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg"));
+        inputFiles.add(new StringValue("src/main/resources/test_files/SampleFilesSource/Missing.jpg"));
+
+        BatchConvert batchConvert = new BatchConvert();
+
+        Value<Map<String, Value>> result = batchConvert.action("IMAGEtoPDF", null, null, inputFiles, outputPath, null, null, 2.0, null, null);
+        Map<String, Value> outputs = ((DictionaryValue) result.get().get("outputs")).get();
+        Map<String, Value> errors = ((DictionaryValue) result.get().get("errors")).get();
+        Assert.assertEquals(outputs.get("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg").toString(), "src/main/resources/test_files/Output/BatchConvert/SampleJPG.pdf");
+        Assert.assertTrue(errors.containsKey("src/main/resources/test_files/SampleFilesSource/Missing.jpg"));
+    }
+
+    @Test
+    public void testBatchConvertEngine() {
+        String outputPath = "src/main/resources/test_files/Output/BatchConvertEngine";
+        List<Value> inputFiles = new ArrayList<>();
+        inputFiles.add(new StringValue("src/main/resources/test_files/SampleFilesSource/SampleWordDoc.docx"));
+
+        //The Java engine converts without Office
+        Value<Map<String, Value>> result = new BatchConvert().action("DOCXtoPDF", null, null, inputFiles, outputPath, null, null, null, null, "java");
+        Map<String, Value> outputs = ((DictionaryValue) result.get().get("outputs")).get();
+        Assert.assertEquals(outputs.get("src/main/resources/test_files/SampleFilesSource/SampleWordDoc.docx").toString(), outputPath + "/SampleWordDoc.pdf");
+        Assert.assertTrue(((DictionaryValue) result.get().get("errors")).get().isEmpty());
+    }
+
+    @Test
+    public void testBatchConvertSharedBaseName() throws IOException {
+        String outputPath = "src/main/resources/test_files/Output/BatchConvertShared";
+        Path sourceFolder = Paths.get(outputPath, "Source");
+        Files.createDirectories(sourceFolder);
+        Path jpg = Files.copy(Paths.get("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg"), sourceFolder.resolve("scan.jpg"), StandardCopyOption.REPLACE_EXISTING);
+        Path png = Files.copy(Paths.get("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg"), sourceFolder.resolve("Scan.png"), StandardCopyOption.REPLACE_EXISTING);
+        List<Value> inputFiles = new ArrayList<>();
+        inputFiles.add(new StringValue(jpg.toString()));
+        inputFiles.add(new StringValue(png.toString()));
+
+        Value<Map<String, Value>> result = new BatchConvert().action("IMAGEtoPDF", null, null, inputFiles, outputPath, null, null, 2.0, null, null);
+        Map<String, Value> outputs = ((DictionaryValue) result.get().get("outputs")).get();
+        Map<String, Value> errors = ((DictionaryValue) result.get().get("errors")).get();
+        //Both would be written to scan.pdf, only the first is converted
+        Assert.assertEquals(outputs.keySet(), Collections.singleton(jpg.toString()));
+        Assert.assertEquals(errors.keySet(), Collections.singleton(png.toString()));
+        Assert.assertTrue(errors.get(png.toString()).toString().contains(jpg.toString()));
+    }
+
+    @Test
+    public void testGetConversionMetrics() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/Metrics";
+        Path previousLog = ConversionMetrics.getLogFile();
+        Path logFile = Paths.get(outputPath, "conversion-metrics.jsonl");
+        ConversionMetrics.setLogFile(logFile);
+        try {
+            Value<List<Value>> outputFiles = new PDFtoImage().action(inputFile, "png", "color", outputPath, null, null, null, null, null, null, null, null);
+
+            Map<String, Value> metrics = new GetConversionMetrics().action("PDFtoImage").get();
+            Assert.assertEquals(metrics.get("status").toString(), "success");
+            Assert.assertEquals(((NumberValue) metrics.get("pages")).get().intValue(), outputFiles.get().size());
+            Assert.assertTrue(((NumberValue) metrics.get("renderMs")).get() > 0);
+            Assert.assertTrue(((NumberValue) metrics.get("outputBytes")).get() > 0);
+            Assert.assertTrue(((NumberValue) metrics.get("peakImageWidth")).get() > 0);
+            Assert.assertEquals(metrics.get("metricsLog").toString(), logFile.toString());
+
+            List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+            Assert.assertEquals(lines.size(), 1);
+            Assert.assertTrue(lines.get(0).contains("\"action\":\"PDFtoImage\""));
+        } finally {
+            ConversionMetrics.setLogFile(previousLog);
+        }
+    }
+
+    @Test
+    public void testResultCacheReusesConversion() throws IOException {
+        String cachePath = "src/main/resources/test_files/Output/ResultCache";
+        Files.createDirectories(Paths.get(cachePath, "in"));
+        //The same image under two names
+        Path first = Paths.get(cachePath, "in", "First.jpg");
+        Path second = Paths.get(cachePath, "in", "Second.jpg");
+        Files.copy(Paths.get("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg"), first, StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(first, second, StandardCopyOption.REPLACE_EXISTING);
+
+        new ConfigureResultCache().action(true, cachePath + "/store", 100.0, "copy", true);
+        try {
+            ImagetoImage imagetoImage = new ImagetoImage();
+            Value<String> firstOutput = imagetoImage.action(first.toString(), "png", "grayscale", cachePath + "/out", null, null, null);
+            Assert.assertNull(new GetConversionMetrics().action("ImagetoImage").get().get("cacheHits"));
+
+            Value<String> secondOutput = imagetoImage.action(second.toString(), "png", "grayscale", cachePath + "/out", null, null, null);
+            Assert.assertEquals(secondOutput.toString(), cachePath + "/out/Second.png");
+            Assert.assertEquals(((NumberValue) new GetConversionMetrics().action("ImagetoImage").get().get("cacheHits")).get().intValue(), 1);
+            Assert.assertEquals(Files.readAllBytes(Paths.get(secondOutput.toString())), Files.readAllBytes(Paths.get(firstOutput.toString())));
+
+            //Other options are a different result
+            imagetoImage.action(second.toString(), "png", "color", cachePath + "/out", null, null, null);
+            Assert.assertNull(new GetConversionMetrics().action("ImagetoImage").get().get("cacheHits"));
+        } finally {
+            new ConfigureResultCache().action(false, null, null, null, false);
+        }
+    }
+    @Test
+    public void testResultCacheEvictsLeastRecentlyUsed() throws IOException, InterruptedException {
+        Path root = Paths.get("src/main/resources/test_files/Output/ResultCacheEviction");
+        Files.createDirectories(root);
+        String outputDir = root.toString() + "/";
+        ResultCache cache = new ResultCache(root.resolve("store"), 250, false);
+        byte[] output = new byte[100];
+        for (String name : new String[]{"A", "B", "C"}) {
+            Files.write(root.resolve(name + ".in"), name.getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (String name : new String[]{"A", "B"}) {
+            Files.write(root.resolve(name + ".out"), output);
+            cache.find("Test", outputDir + name + ".in", outputDir, name).store(outputDir + name + ".out");
+            Thread.sleep(20);
+        }
+        //Using A makes B the least recently used entry
+        Assert.assertTrue(cache.find("Test", outputDir + "A.in", outputDir, "A").isHit());
+        Thread.sleep(20);
+        Files.write(root.resolve("C.out"), output);
+        cache.find("Test", outputDir + "C.in", outputDir, "C").store(outputDir + "C.out");
+
+        Assert.assertTrue(cache.size() <= 250);
+        Assert.assertTrue(cache.find("Test", outputDir + "A.in", outputDir, "A").isHit());
+        Assert.assertFalse(cache.find("Test", outputDir + "B.in", outputDir, "B").isHit());
+        Assert.assertTrue(cache.find("Test", outputDir + "C.in", outputDir, "C").isHit());
+    }
+
+    @Test
+    public void testPDFtoImageRenderProfile() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PDFtoImageProfile";
+
+        PDFtoImage pdFtoImage = new PDFtoImage();
+
+        //Draft renders at 72 DPI, so a page is as many pixels wide as it is points
+        Value<List<Value>> draft = pdFtoImage.action(inputFile, "png", "color", outputPath + "/draft", null, null, "draft", null, null, null, null, null);
+        Value<List<Value>> print = pdFtoImage.action(inputFile, "png", "color", outputPath + "/print", null, null, "print", null, null, null, null, null);
+        BufferedImage draftImage = ImageIO.read(new File(draft.get().get(0).toString()));
+        BufferedImage printImage = ImageIO.read(new File(print.get().get(0).toString()));
+        try (PDDocument pdf = PDDocument.load(new File(inputFile))) {
+            float pageWidth = pdf.getPage(0).getCropBox().getWidth();
+            Assert.assertEquals(draftImage.getWidth(), (int) Math.ceil(pageWidth));
+            Assert.assertEquals(printImage.getWidth(), (int) Math.ceil(pageWidth * 300 / 72));
+        }
+    }
+    @Test
+    public void testPPTXtoImageRenderProfile() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePowerpoint.pptx";
+        String outputPath = "src/main/resources/test_files/Output/PPTXtoImageProfile";
+
+        PPTXtoImage pptXtoImage = new PPTXtoImage();
+
+        //OCR renders slides in grayscale at three times their size
+        Value<List<Value>> outputFiles = pptXtoImage.action(inputFile, "png", outputPath, "ocr");
+        BufferedImage slide = ImageIO.read(new File(outputFiles.get().get(0).toString()));
+        try (XMLSlideShow ppt = new XMLSlideShow(new FileInputStream(inputFile))) {
+            Assert.assertEquals(slide.getWidth(), ppt.getPageSize().width * 3);
+        }
+        Assert.assertEquals(slide.getColorModel().getNumColorComponents(), 1);
+    }
+
+    @Test
+    public void testPDFtoImageSingleTiff() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PDFtoImageSingleTiff";
+
+        PDFtoImage pdFtoImage = new PDFtoImage();
+
+        //Every page ends up as a G4 compressed frame of one file
+        Value<List<Value>> outputFiles = pdFtoImage.action(inputFile, "tiff", "blackandwhite", outputPath, 4.0, null, "draft", true, null, null, null, null);
+        Assert.assertEquals(outputFiles.get().size(), 1);
+        Assert.assertEquals(outputFiles.get().get(0).toString(), "src/main/resources/test_files/Output/PDFtoImageSingleTiff/SamplePDF.tiff");
+        try (PDDocument pdf = PDDocument.load(new File(inputFile));
+             ImageInputStream input = ImageIO.createImageInputStream(new File(outputFiles.get().get(0).toString()))) {
+            ImageReader reader = ImageIO.getImageReaders(input).next();
+            reader.setInput(input);
+            Assert.assertEquals(reader.getNumImages(true), pdf.getNumberOfPages());
+            BufferedImage firstPage = reader.read(0);
+            Assert.assertEquals(firstPage.getColorModel().getPixelSize(), 1);
+            Assert.assertEquals(firstPage.getWidth(), (int) Math.ceil(pdf.getPage(0).getCropBox().getWidth()));
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testPDFtoHTMLStreaming() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PDFtoHTMLStreaming/";
+
+        PDFtoHTML pdFtoHTML = new PDFtoHTML();
+
+        //One file holding every page, with no images inlined
+        Value<String> single = pdFtoHTML.action(inputFile, outputPath + "single", "stream", false, null, null, null);
+        Assert.assertEquals(single.toString(), "src/main/resources/test_files/Output/PDFtoHTMLStreaming/single/SamplePDF.html");
+        String html = new String(Files.readAllBytes(Paths.get(single.toString())), StandardCharsets.UTF_8);
+        Assert.assertFalse(html.contains("data:image"));
+        Assert.assertTrue(html.trim().endsWith("</html>"));
+
+        //A file per page
+        Value<String> firstPage = pdFtoHTML.action(inputFile, outputPath + "pages", "stream", true, null, null, null);
+        Assert.assertEquals(firstPage.toString(), "src/main/resources/test_files/Output/PDFtoHTMLStreaming/pages/SamplePDF-00001.html");
+        try (PDDocument pdf = PDDocument.load(new File(inputFile))) {
+            Assert.assertEquals(html.split("class=\"page\"", -1).length - 1, pdf.getNumberOfPages());
+            for (int page = 1; page <= pdf.getNumberOfPages(); page++) {
+                Path pageFile = Paths.get(String.format("%spages/SamplePDF-%05d.html", outputPath, page));
+                Assert.assertTrue(Files.size(pageFile) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testIMAGEtoPDFMultipageTiff() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SampleMultipageTIFF.tiff";
+        String outputPath = "src/main/resources/test_files/Output/ImagetoPDFMultipage";
+
+        IMAGEtoPDF imageToPDF = new IMAGEtoPDF();
+
+        //Every frame becomes a page, not only the first one
+        Value<String> outputFile = imageToPDF.action(inputFile, outputPath);
+        try (PDDocument pdf = PDDocument.load(new File(outputFile.toString()))) {
+            Assert.assertEquals(pdf.getNumberOfPages(), 6);
+        }
+    }
+    @Test
+    public void testIMAGEStoPDF() throws IOException {
+        String outputPath = "src/main/resources/test_files/Output/IMAGEStoPDF/";
+        Files.createDirectories(Paths.get(outputPath));
+
+        //Two page G4 scan
+        String scan = outputPath + "scan.tiff";
+        try (TiffSequenceWriter tiff = new TiffSequenceWriter(new File(scan))) {
+            tiff.writePage(new BufferedImage(850, 1100, BufferedImage.TYPE_BYTE_BINARY), 100);
+            tiff.writePage(new BufferedImage(850, 1100, BufferedImage.TYPE_BYTE_BINARY), 100);
+        }
+        List<Value> inputFiles = new ArrayList<>();
+        inputFiles.add(new StringValue("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg"));
+        inputFiles.add(new StringValue(scan));
+        inputFiles.add(new StringValue("src/main/resources/test_files/SampleFilesSource/SampleMultipageTIFF.tiff"));
+
+        IMAGEStoPDF imagesToPDF = new IMAGEStoPDF();
+
+        Value<String> outputFile = imagesToPDF.action(null, null, inputFiles, outputPath + "Combined");
+        Assert.assertEquals(outputFile.toString(), "src/main/resources/test_files/Output/IMAGEStoPDF/Combined.pdf");
+        try (PDDocument pdf = PDDocument.load(new File(outputFile.toString()))) {
+            Assert.assertEquals(pdf.getNumberOfPages(), 1 + 2 + 6);
+            //The JPEG and the G4 frames are embedded as they were
+            Assert.assertEquals(firstImage(pdf.getPage(0)).getSuffix(), "jpg");
+            Assert.assertEquals(firstImage(pdf.getPage(1)).getSuffix(), "tiff");
+        }
+    }
+
+    private static PDImageXObject firstImage(PDPage page) throws IOException {
+        for (COSName name : page.getResources().getXObjectNames()) {
+            PDXObject xObject = page.getResources().getXObject(name);
+            if (xObject instanceof PDImageXObject) {
+                return (PDImageXObject) xObject;
+            }
+        }
+        throw new AssertionError("No image on the page");
+    }
+
+    @Test
+    public void testPageRange() {
+        Assert.assertEquals(PageRange.parse("", 3).toString(), "[0, 1, 2]");
+        Assert.assertEquals(PageRange.parse("1-3,7,last", 10).toString(), "[0, 1, 2, 6, 9]");
+        Assert.assertEquals(PageRange.parse("last, 2, last-1", 5).toString(), "[1, 3, 4]");
+        Assert.assertEquals(PageRange.parse("last-2-last", 5).toString(), "[2, 3, 4]");
+        Assert.assertEquals(PageRange.parse("4-", 5).toString(), "[3, 4]");
+        Assert.assertThrows(IllegalArgumentException.class, () -> PageRange.parse("6", 5));
+        Assert.assertThrows(IllegalArgumentException.class, () -> PageRange.parse("3-1", 5));
+        Assert.assertThrows(IllegalArgumentException.class, () -> PageRange.parse("first", 5));
+    }
+    @Test
+    public void testPDFtoImagePageRange() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PDFtoImagePageRange";
+
+        PDFtoImage pdFtoImage = new PDFtoImage();
+
+        //Only the selected pages are rendered, named after their page number
+        Value<List<Value>> outputFiles = pdFtoImage.action(inputFile, "png", "color", outputPath, 2.0, null, "draft", null, "1,last", null, null, null);
+        int pageCount;
+        try (PDDocument pdf = PDDocument.load(new File(inputFile))) {
+            pageCount = pdf.getNumberOfPages();
+        }
+        Assert.assertEquals(outputFiles.get().size(), 2);
+        Assert.assertEquals(outputFiles.get().get(0).toString(), "src/main/resources/test_files/Output/PDFtoImagePageRange/SamplePDF-00001.png");
+        Assert.assertEquals(outputFiles.get().get(1).toString(), String.format("src/main/resources/test_files/Output/PDFtoImagePageRange/SamplePDF-%05d.png", pageCount));
+        Assert.assertEquals(new File(outputPath).list().length, 2);
+    }
+    @Test
+    public void testPDFtoPPTXAndHTMLPageRange() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PageRange/";
+
+        Value<String> pptx = new PDFtoPPTX().action(inputFile, outputPath, "jpeg", null, "draft", "2-3", null, null);
+        try (XMLSlideShow ppt = new XMLSlideShow(new FileInputStream(pptx.toString()))) {
+            Assert.assertEquals(ppt.getSlides().size(), 2);
+        }
+
+        Value<String> html = new PDFtoHTML().action(inputFile, outputPath, "html", null, "2", null, null);
+        String markup = new String(Files.readAllBytes(Paths.get(html.toString())), StandardCharsets.UTF_8);
+        Assert.assertEquals(markup.split("class=\"page\"", -1).length - 1, 1);
+
+        Value<String> stream = new PDFtoHTML().action(inputFile, outputPath + "pages", "stream", true, "last", null, null);
+        Assert.assertEquals(new File(outputPath + "pages").list((dir, name) -> name.endsWith(".html")).length, 1);
+        Assert.assertFalse(stream.toString().endsWith("-00001.html"));
+    }
+
+    @Test
+    public void testPDFtoImageMemoryBudget() throws IOException {
+        String inputFile = "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf";
+        String outputPath = "src/main/resources/test_files/Output/PDFtoImageMemoryBudget";
+        String scratchFolder = "src/main/resources/test_files/Output/Scratch";
+
+        PDFtoImage pdFtoImage = new PDFtoImage();
+
+        //Everything in scratch files, on two workers that each get their own document
+        Value<List<Value>> outputFiles = pdFtoImage.action(inputFile, "png", "grayscale", outputPath, 2.0, null, "draft", null, "1-2", 0.0, scratchFolder, null);
+        Assert.assertEquals(outputFiles.get().size(), 2);
+        Assert.assertTrue(new File(outputFiles.get().get(1).toString()).length() > 0);
+        //Scratch files are removed when the documents are closed
+        Assert.assertTrue(new File(scratchFolder).isDirectory());
+        Assert.assertEquals(new File(scratchFolder).list().length, 0);
+
+        MemoryUsageSetting mixed = PdfMemoryBudget.of(16.0, null);
+        Assert.assertTrue(mixed.useMainMemory() && mixed.useTempFile());
+        Assert.assertEquals(mixed.getMaxMainMemoryBytes(), 16L * 1024 * 1024);
+        Assert.assertNull(PdfMemoryBudget.of(null, ""));
+    }
+
+    @Test
+    public void testConvertChain() throws IOException {
+        String outputPath = "src/main/resources/test_files/Output/ConvertChain";
+        ConvertChain convertChain = new ConvertChain();
+
+        //PPTX to PDF without Office or an intermediate image per slide
+        Value<List<Value>> pdf = convertChain.action("src/main/resources/test_files/SampleFilesSource/SamplePowerpoint.pptx", "pdf", "color", outputPath, "draft", null, null, null, null);
+        Assert.assertEquals(pdf.get().size(), 1);
+        try (XMLSlideShow ppt = new XMLSlideShow(new FileInputStream("src/main/resources/test_files/SampleFilesSource/SamplePowerpoint.pptx"));
+             PDDocument document = PDDocument.load(new File(pdf.get().get(0).toString()))) {
+            Assert.assertEquals(document.getNumberOfPages(), ppt.getSlides().size());
+            //Pages keep the slide size in points, whatever the render resolution
+            Assert.assertEquals(Math.round(document.getPage(0).getMediaBox().getWidth()), ppt.getPageSize().width);
+            Assert.assertEquals(firstImage(document.getPage(0)).getSuffix(), "jpg");
+        }
+
+        //Frames 2 to 4 of a multi-page TIFF to PPTX, bilevel pages stay lossless
+        Value<List<Value>> pptx = convertChain.action("src/main/resources/test_files/SampleFilesSource/SampleMultipageTIFF.tiff", "pptx", "blackandwhite", outputPath, null, "auto", "2-4", null, null);
+        try (XMLSlideShow ppt = new XMLSlideShow(new FileInputStream(pptx.get().get(0).toString()))) {
+            Assert.assertEquals(ppt.getSlides().size(), 3);
+            Assert.assertEquals(ppt.getPictureData().get(0).getType(), PictureData.PictureType.PNG);
+        }
+
+        //PDF pages into one multi-page TIFF
+        Value<List<Value>> tiff = convertChain.action("src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf", "tiff", "grayscale", outputPath, "draft", null, "1,last", null, null);
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(tiff.get().get(0).toString()))) {
+            ImageReader reader = ImageIO.getImageReaders(input).next();
+            reader.setInput(input);
+            Assert.assertEquals(reader.getNumImages(true), 2);
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testConversionJobs() throws InterruptedException {
+        String outputPath = "src/main/resources/test_files/Output/ConversionJobs";
+        String pdfJob = new StartConversion().action("PDFtoImage", "src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf", outputPath, "png", "grayscale", "draft", null).toString();
+        String imageJob = new StartConversion().action("ImagetoImage", "src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg", outputPath, "png", "color", null, null).toString();
+        String brokenJob = new StartConversion().action("CSVtoXLSX", "src/main/resources/test_files/SampleFilesSource/Missing.csv", outputPath, null, null, null, null).toString();
+
+        List<Value> ids = new ArrayList<>();
+        ids.add(new StringValue(pdfJob));
+        ids.add(new StringValue(imageJob));
+        ids.add(new StringValue(brokenJob));
+        ids.add(new StringValue("no-such-job"));
+        Map<String, Value> jobs = new WaitForConversions().action(ids, 120.0).get();
+        Assert.assertEquals(((DictionaryValue) jobs.get(pdfJob)).get("status").toString(), ConversionJobs.SUCCEEDED);
+        Assert.assertEquals(((DictionaryValue) jobs.get(brokenJob)).get("status").toString(), ConversionJobs.FAILED);
+        Assert.assertNotNull(((DictionaryValue) jobs.get(brokenJob)).get("error"));
+        Assert.assertEquals(((DictionaryValue) jobs.get("no-such-job")).get("status").toString(), "unknown");
+
+        //The output is there once the wait returns
+        Map<String, Value> image = new WaitForConversion().action(imageJob, null).get();
+        Assert.assertTrue(new File(image.get("output").toString()).isFile());
+        Assert.assertEquals(new GetConversionStatus().action(pdfJob).get().get("status").toString(), ConversionJobs.SUCCEEDED);
+        Assert.assertThrows(BotCommandException.class, () -> new WaitForConversion().action(brokenJob, 1.0));
+
+        //A job that does not finish in time keeps running until it is cancelled
+        CountDownLatch release = new CountDownLatch(1);
+        String slowJob = ConversionJobs.getShared().submit("slow", () -> release.await(1, TimeUnit.MINUTES)).getId();
+        Assert.assertThrows(BotCommandException.class, () -> new WaitForConversion().action(slowJob, 0.2));
+        Assert.assertEquals(new GetConversionStatus().action(slowJob).get().get("status").toString(), ConversionJobs.RUNNING);
+        Assert.assertTrue(new CancelConversion().action(slowJob).get());
+        Assert.assertEquals(new GetConversionStatus().action(slowJob).get().get("status").toString(), ConversionJobs.CANCELLED);
+        Assert.assertFalse(new CancelConversion().action(slowJob).get());
+        release.countDown();
+    }
+
+    @Test
+    public void testBinarizer() throws IOException {
+        //Text-like marks on a page that darkens from left to right, as on a scan with a shadow
+        BufferedImage scan = new BufferedImage(512, 256, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 512; x++) {
+                int background = 230 - x * 140 / 512;
+                boolean ink = x % 32 < 8 && y % 32 < 8;
+                scan.getRaster().setSample(x, y, 0, ink ? background - 80 : background);
+            }
+        }
+        //Fixed mid-gray turns the shadowed background black
+        BufferedImage fixed = Binarizer.binarize(scan, Binarizer.FIXED);
+        Assert.assertEquals(fixed.getRGB(500, 20) & 0xFFFFFF, 0x000000);
+        Assert.assertEquals(fixed.getRGB(20, 20) & 0xFFFFFF, 0xFFFFFF);
+
+        //Adaptive keeps the whole background white and every mark black
+        BufferedImage adaptive = Binarizer.binarize(scan, Binarizer.ADAPTIVE);
+        Assert.assertTrue(ColorConverter.isBinary(adaptive));
+        for (int x = 4; x < 512; x += 32) {
+            Assert.assertEquals(adaptive.getRGB(x, 4) & 0xFFFFFF, 0x000000, "mark at " + x);
+            Assert.assertEquals(adaptive.getRGB(x + 16, 16) & 0xFFFFFF, 0xFFFFFF, "background at " + (x + 16));
+        }
+
+        //Otsu cuts between the two modes of a bimodal histogram
+        long[] histogram = new long[256];
+        histogram[40] = 1000;
+        histogram[200] = 3000;
+        int threshold = Binarizer.otsu(histogram);
+        Assert.assertTrue(threshold > 40 && threshold <= 200, "threshold " + threshold);
+        Assert.assertThrows(IllegalArgumentException.class, () -> Binarizer.method("dither"));
+
+        //Both actions write 1-bit images with the selected method
+        String outputPath = "src/main/resources/test_files/Output/Binarizer";
+        Value<String> image = new ImagetoImage().action("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg", "png", "blackandwhite", outputPath, "adaptive", null, null);
+        Assert.assertEquals(ImageIO.read(new File(image.toString())).getColorModel().getPixelSize(), 1);
+        Value<List<Value>> pages = new PDFtoImage().action("src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf", "png", "blackandwhite", outputPath, 2.0, null, "draft", null, "1", null, null, "otsu");
+        Assert.assertEquals(ImageIO.read(new File(pages.get().get(0).toString())).getColorModel().getPixelSize(), 1);
+    }
+
+    @Test
+    public void testDOCXtoPDFJavaEngine() throws Exception {
+        String outputPath = "src/main/resources/test_files/Output/DOCXtoPDFJava";
+        Files.createDirectories(Paths.get(outputPath));
+
+        //A letter with styled text, a table with a merged cell, a picture, a page break and page numbers
+        File letter = new File(outputPath, "Letter.docx");
+        try (XWPFDocument document = new XWPFDocument(); FileOutputStream out = new FileOutputStream(letter)) {
+            XWPFRun title = document.createParagraph().createRun();
+            title.setText("Quarterly Statement");
+            title.setBold(true);
+            title.setFontSize(18);
+            document.createParagraph().createRun().setText("Dear customer, please find your balance below.");
+            XWPFTable table = document.createTable(2, 3);
+            table.getRow(0).getCell(0).setText("Account");
+            table.getRow(0).getCell(1).setText("Balance");
+            table.getRow(0).getCell(2).setText("Due");
+            table.getRow(1).getCell(0).setText("Savings 1234");
+            table.getRow(1).getCell(1).getCTTc().addNewTcPr().addNewGridSpan().setVal(BigInteger.valueOf(2));
+            table.getRow(1).removeCell(2);
+            table.getRow(1).getCell(1).setText("1,250.00");
+            try (FileInputStream picture = new FileInputStream("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg")) {
+                document.createParagraph().createRun().addPicture(picture, org.apache.poi.xwpf.usermodel.Document.PICTURE_TYPE_JPEG, "SampleJPG.jpg", Units.toEMU(120), Units.toEMU(80));
+            }
+            XWPFParagraph closing = document.createParagraph();
+            closing.setPageBreak(true);
+            closing.createRun().setText("Kind regards");
+            XWPFParagraph footer = document.createFooter(HeaderFooterType.DEFAULT).createParagraph();
+            footer.createRun().setText("Page ");
+            footer.getCTP().addNewFldSimple().setInstr(" PAGE ");
+            document.write(out);
+        }
+
+        Value<String> outputFile = new DOCXtoPDF().action(letter.getPath(), outputPath, "java");
+        Assert.assertEquals(outputFile.toString(), outputPath + "/Letter.pdf");
+        try (PDDocument pdf = PDDocument.load(new File(outputFile.toString()))) {
+            Assert.assertEquals(pdf.getNumberOfPages(), 2);
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(1);
+            stripper.setEndPage(1);
+            String first = stripper.getText(pdf);
+            Assert.assertTrue(first.contains("Quarterly Statement"), first);
+            Assert.assertTrue(first.contains("1,250.00"), first);
+            Assert.assertTrue(first.contains("Page 1"), first);
+            Assert.assertFalse(first.contains("Kind regards"), first);
+            stripper.setStartPage(2);
+            stripper.setEndPage(2);
+            String second = stripper.getText(pdf);
+            Assert.assertTrue(second.contains("Kind regards"), second);
+            Assert.assertTrue(second.contains("Page 2"), second);
+        }
+
+        //The sample's content controls, tables and bullet lists are laid out without Office
+        Value<String> sample = new DOCXtoPDF().action("src/main/resources/test_files/SampleFilesSource/SampleWordDoc.docx", outputPath, "java");
+        try (PDDocument pdf = PDDocument.load(new File(sample.toString()))) {
+            Assert.assertTrue(new PDFTextStripper().getText(pdf).contains("EXPERIENCE"));
+        }
+
+        //Text the standard PDF fonts cannot show fails on the Java engine and goes to Office on auto
+        File greek = new File(outputPath, "Greek.docx");
+        try (XWPFDocument document = new XWPFDocument(); FileOutputStream out = new FileOutputStream(greek)) {
+            document.createParagraph().createRun().setText("\u0391\u03b8\u03ae\u03bd\u03b1");
+            document.write(out);
+        }
+        Assert.assertThrows(BotCommandException.class, () -> new DOCXtoPDF().action(greek.getPath(), outputPath, "java"));
+        Assert.assertFalse(new File(outputPath, "Greek.pdf").exists());
+        AtomicInteger created = new AtomicInteger();
+        ConverterPool.setShared(new ConverterPool(() -> new CopyBackend(created, true), 1, 60000));
+        try {
+            new DOCXtoPDF().action(greek.getPath(), outputPath, "auto");
+            Assert.assertEquals(created.get(), 1);
+            Assert.assertEquals(Files.readAllBytes(Paths.get(outputPath, "Greek.pdf")), Files.readAllBytes(greek.toPath()));
+
+            //A file that is not a DOCX fails on auto too, only unsupported content goes to Office
+            File broken = new File(outputPath, "Broken.docx");
+            Files.write(broken.toPath(), "not a DOCX".getBytes(StandardCharsets.US_ASCII));
+            Assert.assertThrows(BotCommandException.class, () -> new DOCXtoPDF().action(broken.getPath(), outputPath, "auto"));
+            Assert.assertEquals(created.get(), 1);
+            Assert.assertFalse(new File(outputPath, "Broken.pdf").exists());
+        } finally {
+            ConverterPool.setShared(null);
+        }
+    }
+
+    @Test
+    public void testPDFtoDOCXJavaEngine() throws Exception {
+        String outputPath = "src/main/resources/test_files/Output/PDFtoDOCXJava";
+        Files.createDirectories(Paths.get(outputPath));
+
+        //A statement with a bold title, a paragraph over two lines, a table without rules and a photo, and two more pages
+        File statement = new File(outputPath, "Statement.pdf");
+        byte[] photo = Files.readAllBytes(Paths.get("src/main/resources/test_files/SampleFilesSource/SampleJPG.jpg"));
+        try (PDDocument pdf = new PDDocument()) {
+            PDPage first = new PDPage(PDRectangle.LETTER);
+            pdf.addPage(first);
+            try (PDPageContentStream content = new PDPageContentStream(pdf, first)) {
+                writeLine(content, PDType1Font.HELVETICA_BOLD, 18, 72, 700, "Quarterly Statement");
+                writeLine(content, PDType1Font.HELVETICA, 11, 72, 670, "Dear customer, please find below the balance of every account you hold with us this quarter");
+                writeLine(content, PDType1Font.HELVETICA, 11, 72, 656, "and the date it is due.");
+                String[][] rows = {{"Account", "Balance", "Due"}, {"Savings 1234", "1,250.00", "31 March"}, {"Checking 5678", "310.20", "15 April"}};
+                for (int r = 0; r < rows.length; r++) {
+                    for (int c = 0; c < rows[r].length; c++) {
+                        writeLine(content, PDType1Font.HELVETICA, 11, 72 + 150 * c, 620 - 18 * r, rows[r][c]);
+                    }
+                }
+                content.drawImage(PDImageXObject.createFromByteArray(pdf, photo, "SampleJPG.jpg"), 72, 400, 160, 120);
+            }
+            for (String text : new String[]{"Kind regards", "Appendix"}) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    writeLine(content, PDType1Font.HELVETICA, 11, 72, 700, text);
+                }
+            }
+            pdf.save(statement);
+        }
+
+        //The first two pages, read on two threads, come back in page order
+        Value<String> outputFile = new PDFtoDOCX().action(statement.getPath(), outputPath, "java", 2.0, "1-2", null, null);
+        Assert.assertEquals(outputFile.toString(), outputPath + "/Statement.docx");
+        try (XWPFDocument docx = new XWPFDocument(new FileInputStream(outputFile.toString()))) {
+            List<XWPFParagraph> paragraphs = docx.getParagraphs();
+            Assert.assertEquals(paragraphs.get(0).getText(), "Quarterly Statement");
+            Assert.assertTrue(paragraphs.get(0).getRuns().get(0).isBold());
+            Assert.assertEquals(paragraphs.get(1).getText(), "Dear customer, please find below the balance of every account you hold with us this quarter and the date it is due.");
+            Assert.assertEquals(docx.getTables().size(), 1);
+            XWPFTable table = docx.getTables().get(0);
+            Assert.assertEquals(table.getNumberOfRows(), 3);
+            Assert.assertEquals(table.getRow(1).getCell(0).getText(), "Savings 1234");
+            Assert.assertEquals(table.getRow(2).getCell(1).getText(), "310.20");
+            Assert.assertEquals(table.getRow(2).getCell(2).getText(), "15 April");
+            //The JPEG is carried over byte for byte
+            Assert.assertEquals(docx.getAllPictures().size(), 1);
+            Assert.assertEquals(docx.getAllPictures().get(0).getData(), photo);
+            XWPFParagraph last = paragraphs.get(paragraphs.size() - 1);
+            Assert.assertEquals(last.getText(), "Kind regards");
+            Assert.assertTrue(last.isPageBreak());
+            Assert.assertFalse(docx.getParagraphs().stream().anyMatch(p -> p.getText().contains("Appendix")));
+        }
+
+        //The sample's text is rebuilt without Office
+        Value<String> sample = new PDFtoDOCX().action("src/main/resources/test_files/SampleFilesSource/SamplePDF.pdf", outputPath, "java", 4.0, null, null, null);
+        try (XWPFDocument docx = new XWPFDocument(new FileInputStream(sample.toString()))) {
+            Assert.assertTrue(docx.getParagraphs().stream().anyMatch(p -> p.getText().contains("Salesforce Connected App")));
+        }
+
+        //A file PDFBox cannot read fails on the Java engine and goes to Office on auto
+        File broken = new File(outputPath, "Broken.pdf");
+        Files.write(broken.toPath(), "not a PDF".getBytes(StandardCharsets.US_ASCII));
+        Assert.assertThrows(BotCommandException.class, () -> new PDFtoDOCX().action(broken.getPath(), outputPath, "java", null, null, null, null));
+        Assert.assertFalse(new File(outputPath, "Broken.docx").exists());
+        AtomicInteger created = new AtomicInteger();
+        ConverterPool.setShared(new ConverterPool(() -> new CopyBackend(created, true), 1, 60000));
+        try {
+            new PDFtoDOCX().action(broken.getPath(), outputPath, "auto", null, null, null, null);
+            Assert.assertEquals(created.get(), 1);
+            Assert.assertEquals(Files.readAllBytes(Paths.get(outputPath, "Broken.docx")), Files.readAllBytes(broken.toPath()));
+
+            //A range that does not fit the PDF is reported on auto, and Office does not take a range at all
+            Assert.assertThrows(BotCommandException.class, () -> new PDFtoDOCX().action(statement.getPath(), outputPath + "/Range", "auto", null, "99", null, null));
+            Assert.assertThrows(BotCommandException.class, () -> new PDFtoDOCX().action(statement.getPath(), outputPath + "/Range", "office", null, "1-2", null, null));
+            //Office would ignore the range, so a PDF Java cannot read fails instead of falling back
+            Assert.assertThrows(BotCommandException.class, () -> new PDFtoDOCX().action(broken.getPath(), outputPath + "/Range", "auto", null, "1", null, null));
+            Assert.assertEquals(created.get(), 1);
+        } finally {
+            ConverterPool.setShared(null);
+        }
+    }
+
+    private static void writeLine(PDPageContentStream content, PDType1Font font, float size, float x, float y, String text) throws IOException {
+        content.beginText();
+        content.setFont(font, size);
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    @Test
+    public void testWarmUpConversions() {
+        String fontCache = "src/main/resources/test_files/Output/WarmUp/fonts";
+        Map<String, Value> result = new WarmUpConversions().action(fontCache, true).get();
+        Assert.assertEquals(result.get("status").toString(), "done");
+        Assert.assertEquals(result.get("fontCacheFolder").toString(), Paths.get(fontCache).toString());
+        Assert.assertTrue(Files.isDirectory(Paths.get(fontCache)));
+        for (String step : new String[]{"fontsMs", "imageioMs", "pdfboxMs", "poiMs"}) {
+            Assert.assertTrue(result.containsKey(step), step);
+        }
+
+        //The warm-up only runs once, later calls report the same timings
+        Map<String, Value> again = new WarmUpConversions().action(null, false).get();
+        Assert.assertEquals(again.get("status").toString(), "done");
+        Assert.assertEquals(((NumberValue) again.get("poiMs")).get(), ((NumberValue) result.get("poiMs")).get());
+    }
+    //Stand-in for Office that copies the source instead of converting it
+    private static class CopyBackend implements ConversionBackend {
+        private final boolean succeeds;
+        private boolean operational = true;
+
+        CopyBackend(AtomicInteger created, boolean succeeds) {
+            created.incrementAndGet();
+            this.succeeds = succeeds;
+        }
+
+        @Override
+        public Future<Boolean> schedule(File source, DocumentType sourceType, File target, DocumentType targetType) {
+            try {
+                Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return CompletableFuture.completedFuture(succeeds);
+        }
+
+        @Override
+        public boolean isOperational() {
+            return operational;
+        }
+
+        @Override
+        public void shutDown() {
+            operational = false;
+        }
+    }
 }